@@ -10,6 +10,7 @@ import com.emulsify.prescriptionreader.data.model.Prescription
 import com.emulsify.prescriptionreader.data.model.PrescriptionAnalysis
 import com.emulsify.prescriptionreader.network.NetworkConfig
 import com.emulsify.prescriptionreader.network.model.*
+import com.google.gson.Gson
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.withContext
@@ -26,7 +27,15 @@ class PrescriptionRepository {
     private val apiService = NetworkConfig.apiService
     private val TAG = "PrescriptionRepository"
     
-    suspend fun uploadPrescription(context: Context, fileUri: Uri): Result<String> = withContext(Dispatchers.IO) {
+    private val gson = Gson()
+    private val JOB_POLL_INTERVAL_MS = 1000L
+    private val JOB_POLL_ATTEMPTS = 180
+    
+    suspend fun uploadPrescription(
+        context: Context,
+        fileUri: Uri,
+        onProgress: (String) -> Unit = {}
+    ): Result<String> = withContext(Dispatchers.IO) {
         try {
             Log.d(TAG, "🔍 TESTING REAL OCR - Starting file upload for URI: $fileUri")
             
@@ -51,11 +60,16 @@ class PrescriptionRepository {
                 val response = apiService.uploadPrescription(body)
                 
                 if (response.isSuccessful) {
-                    val uploadResponse = response.body()
-                    Log.d(TAG, "📊 OCR Response received: $uploadResponse")
+                    val accepted = response.body()
+                    Log.d(TAG, "📊 OCR Response received: $accepted")
+                    
+                    // Uploads are processed asynchronously; wait for the job result
+                    val uploadResponse = accepted?.jobId?.let { awaitIngestionJob(it, onProgress) } ?: accepted
                     
-                    if (uploadResponse?.documents?.isNotEmpty() == true) {
-                        val extractedText = uploadResponse.documents.first().content
+                    // Files are processed independently; use the first one that succeeded
+                    val processedDocument = uploadResponse?.documents?.firstOrNull { it.status != "failed" }
+                    if (processedDocument != null) {
+                        val extractedText = processedDocument.content.orEmpty()
                         Log.d(TAG, "✅ REAL OCR SUCCESS! Extracted ${extractedText.length} characters")
                         
                         // Clean up temp file
@@ -108,8 +122,8 @@ class PrescriptionRepository {
                         Log.d(TAG, "📝 Text extraction success: $textResult")
                         
                         if (textResult?.documents?.isNotEmpty() == true) {
-                            // Text is in the message field for this endpoint
-                            val extractedText = textResult.message
+                            // The text view returns the text once, in the document content
+                            val extractedText = textResult.documents.firstOrNull()?.content ?: textResult.message
                             val textExtractionResult = """
                                 📝 TEXT EXTRACTION SUCCESSFUL!
                                 
@@ -239,6 +253,95 @@ class PrescriptionRepository {
         }
     }
 
+    /**
+     * Follow an ingestion job's event stream until it completes and return its upload result.
+     * Falls back to polling the job status if the stream cannot be read.
+     */
+    private suspend fun awaitIngestionJob(jobId: String, onProgress: (String) -> Unit): UploadResponse {
+        return try {
+            streamIngestionJob(jobId, onProgress)
+        } catch (e: IOException) {
+            Log.w(TAG, "⚠️ Job event stream interrupted: ${e.message}, polling instead")
+            pollIngestionJob(jobId)
+        }
+    }
+    
+    private suspend fun streamIngestionJob(jobId: String, onProgress: (String) -> Unit): UploadResponse {
+        val response = apiService.streamJobEvents(jobId)
+        val body = response.body()
+        if (!response.isSuccessful || body == null) {
+            throw IOException("Job events HTTP ${response.code()}")
+        }
+        
+        body.use {
+            val reader = it.charStream().buffered()
+            var event = "message"
+            val data = StringBuilder()
+            
+            var line = reader.readLine()
+            while (line != null) {
+                when {
+                    line.startsWith("event:") -> event = line.substringAfter("event:").trim()
+                    line.startsWith("data:") -> data.append(line.substringAfter("data:").trim())
+                    line.isEmpty() && data.isNotEmpty() -> {
+                        val payload = data.toString()
+                        data.clear()
+                        val currentEvent = event
+                        event = "message"
+                        
+                        when (currentEvent) {
+                            "completed" -> {
+                                val job = gson.fromJson(payload, IngestionJobResponse::class.java)
+                                return job.result ?: throw Exception("Job completed without result")
+                            }
+                            "failed" -> {
+                                val job = gson.fromJson(payload, IngestionJobResponse::class.java)
+                                throw Exception(job.error ?: "Processing failed")
+                            }
+                            else -> describeJobEvent(currentEvent, payload)?.let(onProgress)
+                        }
+                    }
+                }
+                line = reader.readLine()
+            }
+            throw IOException("Job event stream closed early")
+        }
+    }
+    
+    private fun describeJobEvent(event: String, payload: String): String? {
+        val data = gson.fromJson(payload, Map::class.java)
+        return when (event) {
+            "page_rendered" -> "Rendering page ${(data["page"] as? Double)?.toInt()} of ${(data["page_count"] as? Double)?.toInt()}"
+            "page_ocrd" -> "Reading text on page ${(data["page"] as? Double)?.toInt()} of ${(data["page_count"] as? Double)?.toInt()}"
+            "chunk_created" -> "Indexing text (${(data["chunks"] as? Double)?.toInt()} sections)"
+            "chunks_stored" -> "Saving ${(data["chunks"] as? Double)?.toInt()} sections"
+            "stage" -> "Stage: ${data["stage"]}"
+            else -> null
+        }
+    }
+    
+    /**
+     * Poll an ingestion job until it completes and return its upload result
+     */
+    private suspend fun pollIngestionJob(jobId: String): UploadResponse {
+        repeat(JOB_POLL_ATTEMPTS) {
+            val response = apiService.getJob(jobId)
+            if (!response.isSuccessful) {
+                throw Exception("Job status HTTP ${response.code()}")
+            }
+            
+            val job = response.body() ?: throw Exception("Empty job status")
+            Log.d(TAG, "⏳ Job ${job.id}: ${job.status} (${job.stage}) ${job.progress}")
+            
+            when (job.status) {
+                "COMPLETED" -> return job.result ?: throw Exception("Job completed without result")
+                "FAILED" -> throw Exception(job.error ?: "Processing failed")
+            }
+            delay(JOB_POLL_INTERVAL_MS)
+        }
+        throw Exception("Timed out waiting for job $jobId")
+    }
+
     private fun uriToFile(context: Context, uri: Uri): File {
         try {
             Log.d(TAG, "Converting URI to file: $uri")
@@ -5,15 +5,28 @@ import retrofit2.Response
 import retrofit2.http.*
 import okhttp3.MultipartBody
 import okhttp3.RequestBody
+import okhttp3.ResponseBody
 
 interface PrescriptionApiService {
     
     @Multipart
     @POST("upload")
     suspend fun uploadPrescription(
-        @Part file: MultipartBody.Part
+        @Part file: MultipartBody.Part,
+        @Query("view") view: String = "text"
     ): Response<UploadResponse>
     
+    @GET("jobs/{id}")
+    suspend fun getJob(
+        @Path("id") jobId: String
+    ): Response<IngestionJobResponse>
+    
+    @Streaming
+    @GET("jobs/{id}/events")
+    suspend fun streamJobEvents(
+        @Path("id") jobId: String
+    ): Response<ResponseBody>
+    
     @Multipart
     @POST("test-upload")
     suspend fun testUploadPrescription(
@@ -23,7 +36,8 @@ interface PrescriptionApiService {
     @Multipart
     @POST("extract-text")
     suspend fun extractTextOnly(
-        @Part file: MultipartBody.Part
+        @Part file: MultipartBody.Part,
+        @Query("view") view: String = "text"
     ): Response<UploadResponse>
     
     @POST("query")
@@ -18,17 +18,32 @@ data class UploadResponse(
     val message: String = "",
     @SerializedName("total_documents")
     val totalDocuments: Int = 0,
+    @SerializedName("job_id")
+    val jobId: String? = null,
+    @SerializedName("status_url")
+    val statusUrl: String? = null,
     // Backward compatibility
     val text: String = "",
     val success: Boolean = true
 )
 
+data class IngestionJobResponse(
+    val id: String,
+    val status: String,
+    val stage: String = "",
+    val progress: Map<String, Int> = emptyMap(),
+    val result: UploadResponse? = null,
+    val error: String? = null
+)
+
 data class DocumentInfo(
     val filename: String = "",
-    val content: String = "",
+    val content: String? = null,
     @SerializedName("upload_time")
     val uploadTime: String = "",
-    val id: String = ""
+    val id: String = "",
+    val status: String = "processed",
+    val error: String? = null
 )
 
 data class QueryResponse(
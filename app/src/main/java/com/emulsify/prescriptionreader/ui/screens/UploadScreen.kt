@@ -200,7 +200,7 @@ fun UploadScreen(
                             fontWeight = FontWeight.Medium
                         )
                         Text(
-                            text = "This may take a few moments",
+                            text = prescriptionViewModel.uploadProgress ?: "This may take a few moments",
                             style = MaterialTheme.typography.bodySmall,
                             color = MaterialTheme.colorScheme.onSurfaceVariant
                         )
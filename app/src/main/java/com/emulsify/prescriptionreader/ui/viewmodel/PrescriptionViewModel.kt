@@ -31,6 +31,9 @@ class PrescriptionViewModel : ViewModel() {
     var uploadedText by mutableStateOf<String?>(null)
         private set
     
+    var uploadProgress by mutableStateOf<String?>(null)
+        private set
+    
     var prescriptionAnalysis by mutableStateOf<PrescriptionAnalysis?>(null)
         private set
     
@@ -70,12 +73,13 @@ class PrescriptionViewModel : ViewModel() {
                 isLoading = true
                 errorMessage = null
                 uploadedText = null
+                uploadProgress = null
                 prescriptionAnalysis = null
                 
                 Log.d(TAG, "Starting prescription upload and analysis...")
                 
                 // Step 1: Upload and extract text
-                repository.uploadPrescription(context, fileUri)
+                repository.uploadPrescription(context, fileUri) { progress -> uploadProgress = progress }
                     .onSuccess { extractedText ->
                         uploadedText = extractedText
                         Log.d(TAG, "Text extracted successfully")
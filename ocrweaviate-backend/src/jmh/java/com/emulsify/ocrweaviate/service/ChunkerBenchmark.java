@@ -0,0 +1,123 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunking 1 MB of prescription-like text: the copying splitter the chunker replaced,
+ * offset spans over the whole text, and the streaming chunker fed page by page.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ChunkerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ChunkerBenchmark {
+
+    private static final String[] WORDS = {
+        "Amoxicillin", "500", "mg", "capsule", "Take", "one", "tablet", "three", "times", "daily",
+        "after", "food", "for", "seven", "days", "Paracetamol", "650", "when", "required", "fever",
+        "Review", "week", "Avoid", "alcohol", "BP", "120/80", "Dr.", "Sharma", "MBBS"
+    };
+
+    @Param({"1048576"})
+    public int textLength;
+
+    @Param({"500"})
+    public int chunkSize;
+
+    @Param({"50"})
+    public int overlap;
+
+    private String text;
+    private List<String> pages;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(textLength + 32);
+        while (builder.length() < textLength) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+            builder.append(random.nextInt(12) == 0 ? ". " : " ");
+        }
+        text = builder.substring(0, textLength);
+
+        pages = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += 3000) {
+            pages.add(text.substring(i, Math.min(text.length(), i + 3000)));
+        }
+    }
+
+    @Benchmark
+    public void copyingSplit(Blackhole blackhole) {
+        blackhole.consume(copyingSplit(text, chunkSize, overlap));
+    }
+
+    @Benchmark
+    public void spans(Blackhole blackhole) {
+        List<TextSpan> spans = IncrementalChunker.split(text, chunkSize, overlap);
+        blackhole.consume(spans);
+    }
+
+    @Benchmark
+    public void spansMaterialized(Blackhole blackhole) {
+        for (TextSpan span : IncrementalChunker.split(text, chunkSize, overlap)) {
+            blackhole.consume(span.toString());
+        }
+    }
+
+    @Benchmark
+    public void streamedPages(Blackhole blackhole) {
+        IncrementalChunker chunker = new IncrementalChunker(chunkSize, overlap, blackhole::consume);
+        for (String page : pages) {
+            chunker.append(page);
+        }
+        chunker.finish();
+    }
+
+    /**
+     * The splitter chunking used before: trim and copy the text, search boundaries backwards
+     * from every window end, copy every window and trim it again
+     */
+    private static List<String> copyingSplit(String text, int chunkSize, int overlap) {
+        List<String> chunks = new ArrayList<>();
+        text = text.trim();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + chunkSize, text.length());
+            if (end < text.length()) {
+                int lastPeriod = text.lastIndexOf('.', end);
+                int lastSpace = text.lastIndexOf(' ', end);
+                if (lastPeriod > start + chunkSize / 2) {
+                    end = lastPeriod + 1;
+                } else if (lastSpace > start + chunkSize / 2) {
+                    end = lastSpace;
+                }
+            }
+            String chunk = text.substring(start, end).trim();
+            if (chunk.length() > 30) {
+                chunks.add(chunk);
+            }
+            start = Math.min(start + Math.max(chunkSize - overlap, end - start), text.length());
+        }
+        return chunks.stream().filter(chunk -> chunk.length() >= 50).toList();
+    }
+}
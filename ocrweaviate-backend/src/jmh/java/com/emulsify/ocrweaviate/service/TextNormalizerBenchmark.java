@@ -0,0 +1,81 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cleaning the OCR text of one page: the regex replacement passes OCRService ran before,
+ * and the single-pass {@link TextNormalizer}.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=TextNormalizerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class TextNormalizerBenchmark {
+
+    private static final String[] WORDS = {
+        "Tab", "Amoxicillin", "500", "mg", "1-0-1", "after", "food", "x", "5", "days", "Syp", "Ascoril",
+        "|", "_", "Dr.", "Sharma", "MBBS", "Reg", "No.", "45872", "Review", "Page 2", "\u0001"
+    };
+
+    private static final String[] SEPARATORS = {" ", " ", " ", "  ", "\t", "\n", " \n ", "\r\n", "\n\n"};
+
+    @Param({"3000"})
+    public int textLength;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(textLength + 32);
+        while (builder.length() < textLength) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+            builder.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        text = builder.substring(0, textLength);
+    }
+
+    @Benchmark
+    public String regexPageText() {
+        String cleaned = Pattern.compile("[^\\S\\n]+").matcher(text).replaceAll(" ");
+        cleaned = Pattern.compile("\\bpage\\s*\\d+\\b", Pattern.CASE_INSENSITIVE).matcher(cleaned).replaceAll("");
+        cleaned = cleaned.replaceAll("\\s*\\n\\s*", "\n");
+        cleaned = cleaned.replaceAll("[\\u0000-\\u0009\\u000B-\\u001F\\u007F]", "");
+        return cleaned.trim();
+    }
+
+    @Benchmark
+    public String singlePassPageText() {
+        return TextNormalizer.cleanPageText(text, true);
+    }
+
+    @Benchmark
+    public String regexImageText() {
+        String cleaned = text.replaceAll("[^\\S\\n]+", " ").replaceAll("\\s*\\n\\s*", "\n").trim();
+        cleaned = cleaned.replaceAll("[|\\\\/_]+", " ");
+        return cleaned.replaceAll("[^\\S\\n]+", " ").replaceAll(" ?\n ?", "\n");
+    }
+
+    @Benchmark
+    public String singlePassImageText() {
+        return TextNormalizer.cleanImageText(text, true);
+    }
+}
@@ -0,0 +1,65 @@
+package com.emulsify.ocrweaviate;
+
+import com.emulsify.ocrweaviate.model.BulkIngestionRun;
+import com.emulsify.ocrweaviate.service.BulkIngestionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+
+/**
+ * Command-line bulk ingestion mode.
+ *
+ * java -jar ocrweaviate-backend.jar --bulk.source=/data/scans.zip --bulk.parallelism=4
+ *
+ * Ingests every document in the ZIP archive or directory, then exits. Rerunning the same
+ * source resumes after the documents that were already ingested.
+ */
+@Component
+@ConditionalOnProperty(name = "bulk.source")
+public class BulkIngestionRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestionRunner.class);
+
+    private final BulkIngestionService bulkIngestionService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${bulk.source}")
+    private String source;
+
+    @Value("${bulk.parallelism:#{null}}")
+    private Integer parallelism;
+
+    @Autowired
+    public BulkIngestionRunner(BulkIngestionService bulkIngestionService, ConfigurableApplicationContext context) {
+        this.bulkIngestionService = bulkIngestionService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(String... args) {
+        logger.info("📦 Bulk ingestion of {}", source);
+        BulkIngestionRun run = bulkIngestionService.runPath(Paths.get(source), parallelism);
+
+        if (run.getStatus() == BulkIngestionRun.Status.COMPLETED) {
+            logger.info("✅ {}", run.summary());
+        } else {
+            logger.error("❌ {}", run.summary());
+        }
+        run.getFailures().forEach(failure ->
+            logger.warn("⚠️ {}: {}", failure.get("filename"), failure.get("error")));
+        if (run.getError() != null) {
+            logger.error("❌ Bulk ingestion failed: {}", run.getError());
+        }
+
+        int exitCode = run.getStatus() == BulkIngestionRun.Status.COMPLETED && run.getFailedCount() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
@@ -1,11 +1,14 @@
 package com.emulsify.ocrweaviate;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Arrays;
+
 /**
  * Main Spring Boot application class for OCRWeaviate Backend
  * 
@@ -20,7 +23,12 @@ import org.springframework.web.client.RestTemplate;
 public class OcrWeaviateApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(OcrWeaviateApplication.class, args);
+        SpringApplication application = new SpringApplication(OcrWeaviateApplication.class);
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith("--bulk.source="))) {
+            // Command-line bulk ingestion (see BulkIngestionRunner) does not need the web server
+            application.setWebApplicationType(WebApplicationType.NONE);
+        }
+        application.run(args);
         System.out.println("🚀 OCRWeaviate Backend started successfully!");
         System.out.println("📄 Ready to process PDF documents with OCR");
         System.out.println("🔍 Weaviate vector search enabled");
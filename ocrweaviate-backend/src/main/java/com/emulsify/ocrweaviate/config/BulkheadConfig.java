@@ -0,0 +1,80 @@
+package com.emulsify.ocrweaviate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for the request-facing bulkheads. Interactive extraction and queries each get
+ * their own bounded pool, so a saturated ingestion or bulk executor cannot take their threads.
+ *
+ * With virtual threads enabled the I/O bulkheads run on virtual threads, while OCR and page
+ * rendering stay on a platform-thread pool sized to the cores.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    private final Environment environment;
+
+    @Value("${bulkhead.interactive.threads:2}")
+    private int interactiveThreads;
+
+    @Value("${bulkhead.interactive.queue-capacity:10}")
+    private int interactiveQueueCapacity;
+
+    @Value("${bulkhead.query.threads:8}")
+    private int queryThreads;
+
+    @Value("${bulkhead.query.queue-capacity:50}")
+    private int queryQueueCapacity;
+
+    @Value("${ocr.cpu.threads:0}")
+    private int ocrThreads;
+
+    public BulkheadConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Synchronous extraction and single uploads (/extract-text, /upload-single)
+     */
+    @Bean(name = "interactiveExecutor")
+    public ThreadPoolTaskExecutor interactiveExecutor() {
+        return boundedExecutor(interactiveThreads, interactiveQueueCapacity, "interactive-", true);
+    }
+
+    /**
+     * Vector search and LLM calls (/query, /ask, /documents)
+     */
+    @Bean(name = "queryExecutor")
+    public ThreadPoolTaskExecutor queryExecutor() {
+        return boundedExecutor(queryThreads, queryQueueCapacity, "query-", true);
+    }
+
+    /**
+     * CPU-bound rendering and OCR; always platform threads, one per core unless configured.
+     * Callers block until their task finishes, so the queue is only as deep as the callers.
+     */
+    @Bean(name = "ocrExecutor")
+    public ThreadPoolTaskExecutor ocrExecutor() {
+        int threads = ocrThreads > 0 ? ocrThreads : Runtime.getRuntime().availableProcessors();
+        return boundedExecutor(threads, Integer.MAX_VALUE, "ocr-", false);
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(int threads, int queueCapacity, String threadNamePrefix, boolean blockingIo) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        if (blockingIo) {
+            VirtualThreads.apply(executor, threadNamePrefix, environment);
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,85 @@
+package com.emulsify.ocrweaviate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for document ingestion (decoding, OCR, chunking, storage)
+ * Keeps long-running uploads off the servlet request threads
+ */
+@Configuration
+public class IngestionConfig {
+
+    private final Environment environment;
+
+    @Value("${ingestion.executor.threads:2}")
+    private int threads;
+
+    @Value("${ingestion.executor.queue-capacity:50}")
+    private int queueCapacity;
+
+    // One document writing per batch request the vector store client lets through at a time
+    @Value("${weaviate.batch.max-in-flight:4}")
+    private int storeThreads;
+
+    @Value("${bulk.executor.threads:4}")
+    private int bulkThreads;
+
+    @Value("${bulk.executor.queue-capacity:100}")
+    private int bulkQueueCapacity;
+
+    public IngestionConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean(name = "ingestionExecutor")
+    public ThreadPoolTaskExecutor ingestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingestion-");
+        VirtualThreads.apply(executor, "ingestion-", environment);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for vector store writes, so chunks are indexed while OCR of the same document goes on.
+     * Each document has at most one batch queued at a time, so the queue is unbounded.
+     */
+    @Bean(name = "storageExecutor")
+    public ThreadPoolTaskExecutor storageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(storeThreads);
+        executor.setMaxPoolSize(storeThreads);
+        executor.setThreadNamePrefix("storage-");
+        VirtualThreads.apply(executor, "storage-", environment);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for bulk back-loads, so archives of thousands of documents never queue behind interactive uploads
+     */
+    @Bean(name = "bulkIngestionExecutor")
+    public ThreadPoolTaskExecutor bulkIngestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkThreads);
+        executor.setMaxPoolSize(bulkThreads);
+        executor.setQueueCapacity(bulkQueueCapacity);
+        executor.setThreadNamePrefix("bulk-ingestion-");
+        VirtualThreads.apply(executor, "bulk-ingestion-", environment);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
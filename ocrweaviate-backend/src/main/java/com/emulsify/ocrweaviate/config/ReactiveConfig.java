@@ -0,0 +1,60 @@
+package com.emulsify.ocrweaviate.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers and CORS for the reactive stack (spring.main.web-application-type=reactive).
+ * Blocking and CPU-bound work is moved off the event loop onto the existing bounded executors,
+ * so the bulkhead limits and metrics apply to both stacks.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    @Value("${cors.allowed-origins}")
+    private String allowedOrigins;
+
+    @Value("${cors.allowed-methods}")
+    private String allowedMethods;
+
+    @Value("${cors.allowed-headers}")
+    private String allowedHeaders;
+
+    @Value("${cors.allow-credentials}")
+    private boolean allowCredentials;
+
+    /**
+     * Vector search and LLM calls, bounded by the query bulkhead
+     */
+    @Bean
+    public Scheduler queryScheduler(@Qualifier("queryExecutor") ThreadPoolTaskExecutor queryExecutor) {
+        return Schedulers.fromExecutorService(queryExecutor.getThreadPoolExecutor(), "query");
+    }
+
+    /**
+     * CPU-bound work such as pricing an upload for admission, bounded by the OCR pool
+     */
+    @Bean
+    public Scheduler cpuScheduler(@Qualifier("ocrExecutor") ThreadPoolTaskExecutor ocrExecutor) {
+        return Schedulers.fromExecutorService(ocrExecutor.getThreadPoolExecutor(), "cpu");
+    }
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowedOrigins(allowedOrigins.split(","))
+                .allowedMethods(allowedMethods.split(","))
+                .allowedHeaders(allowedHeaders.split(","))
+                .allowCredentials(allowCredentials)
+                .maxAge(3600); // 1 hour
+    }
+}
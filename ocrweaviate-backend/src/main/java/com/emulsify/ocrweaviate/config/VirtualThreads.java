@@ -0,0 +1,22 @@
+package com.emulsify.ocrweaviate.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Puts an executor's workers on virtual threads when spring.threads.virtual.enabled is set
+ * and the JVM is Java 21 or later; otherwise the executor keeps platform threads.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static void apply(ThreadPoolTaskExecutor executor, String threadNamePrefix, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        }
+    }
+}
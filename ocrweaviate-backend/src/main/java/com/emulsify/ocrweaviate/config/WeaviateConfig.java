@@ -11,8 +11,9 @@ import org.springframework.context.annotation.Configuration;
 public class WeaviateConfig {
 
     private Api api = new Api();
-    private String collectionName;
+    private String collectionName = "PolicyDocument";
     private Timeout timeout = new Timeout();
+    private Batch batch = new Batch();
 
     // Getters and setters
     public Api getApi() {
@@ -39,6 +40,14 @@ public class WeaviateConfig {
         this.timeout = timeout;
     }
 
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
     public static class Api {
         private String url;
         private String key;
@@ -71,4 +80,46 @@ public class WeaviateConfig {
             this.seconds = seconds;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Batch writes to the objects endpoint
+     */
+    public static class Batch {
+        private int size = 100;
+        private int maxInFlight = 4;
+        private int maxRetries = 3;
+        private long backoffMillis = 200;
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public long getBackoffMillis() {
+            return backoffMillis;
+        }
+
+        public void setBackoffMillis(long backoffMillis) {
+            this.backoffMillis = backoffMillis;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.emulsify.ocrweaviate.controller;
+
+import com.emulsify.ocrweaviate.model.BulkIngestionRun;
+import com.emulsify.ocrweaviate.service.BulkIngestionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Bulk ingestion of ZIP archives and server-side directories
+ */
+@RestController
+@RequestMapping("/bulk")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BulkIngestionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestionController.class);
+
+    private final BulkIngestionService bulkIngestionService;
+
+    @Autowired
+    public BulkIngestionController(BulkIngestionService bulkIngestionService) {
+        this.bulkIngestionService = bulkIngestionService;
+    }
+
+    /**
+     * Start a bulk run. Either send a ZIP archive as the raw request body, or name a
+     * directory (or .zip) below bulk.ingestion.allowed-root with the directory parameter.
+     * Returns 202 Accepted; progress and throughput are available from GET /bulk/{id}.
+     */
+    @PostMapping("/ingest")
+    public ResponseEntity<Map<String, Object>> ingest(@RequestParam(value = "directory", required = false) String directory,
+                                                      @RequestParam(value = "filename", required = false) String filename,
+                                                      @RequestParam(value = "parallelism", required = false) Integer parallelism,
+                                                      HttpServletRequest request) {
+        try {
+            BulkIngestionRun run;
+            if (directory != null && !directory.isBlank()) {
+                logger.info("📦 Bulk ingestion requested for directory: {}", directory);
+                run = bulkIngestionService.startPath(directory, parallelism);
+            } else {
+                // Only used in logs; runs over uploaded archives are keyed by content
+                String archiveName = filename != null ? filename : "unnamed archive";
+                logger.info("📦 Bulk ingestion requested for uploaded archive: {} ({} bytes)",
+                    archiveName, request.getContentLengthLong());
+                run = bulkIngestionService.startArchive(archiveName, request.getInputStream(), parallelism);
+            }
+
+            String statusUrl = "/bulk/" + run.getId();
+            Map<String, Object> response = Map.of(
+                "message", "Bulk ingestion started",
+                "run_id", run.getId(),
+                "status_url", statusUrl,
+                "parallelism", run.getParallelism()
+            );
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, statusUrl)
+                .body(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Bulk ingestion failed to start: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Bulk ingestion error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress, throughput and failures of a bulk run
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<BulkIngestionRun> getRun(@PathVariable("id") String id) {
+        BulkIngestionRun run = bulkIngestionService.getRun(id);
+        if (run == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(run);
+    }
+}
@@ -1,21 +1,38 @@
 package com.emulsify.ocrweaviate.controller;
 
+import com.emulsify.ocrweaviate.config.ResponseSizeFilter;
+import com.emulsify.ocrweaviate.exception.AdmissionRejectedException;
+import com.emulsify.ocrweaviate.model.IngestionJob;
 import com.emulsify.ocrweaviate.model.QueryRequest;
 import com.emulsify.ocrweaviate.model.QueryResponse;
 import com.emulsify.ocrweaviate.model.UploadResponse;
+import com.emulsify.ocrweaviate.service.BulkIngestionService;
+import com.emulsify.ocrweaviate.service.Bulkheads;
 import com.emulsify.ocrweaviate.service.DocumentProcessingService;
+import com.emulsify.ocrweaviate.service.IngestionJobService;
+import com.emulsify.ocrweaviate.service.IngestionProgressListener;
+import com.emulsify.ocrweaviate.service.JobEventBroadcaster;
+import com.emulsify.ocrweaviate.service.SpooledUpload;
+import com.emulsify.ocrweaviate.service.UploadSpooler;
+import com.emulsify.ocrweaviate.service.TenantIdentity;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Main REST controller for OCRWeaviate backend
@@ -23,21 +40,37 @@ import java.util.Map;
  */
 @RestController
 @RequestMapping("/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DocumentController {
     
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
     
     private final DocumentProcessingService documentService;
+    private final IngestionJobService ingestionJobService;
+    private final JobEventBroadcaster eventBroadcaster;
+    private final UploadSpooler uploadSpooler;
+    private final BulkIngestionService bulkIngestionService;
+    private final Bulkheads bulkheads;
+    private final ResponseSizeFilter responseSizes;
 
     @Autowired
-    public DocumentController(DocumentProcessingService documentService) {
+    public DocumentController(DocumentProcessingService documentService, IngestionJobService ingestionJobService,
+                              JobEventBroadcaster eventBroadcaster, UploadSpooler uploadSpooler,
+                              BulkIngestionService bulkIngestionService, Bulkheads bulkheads,
+                              ResponseSizeFilter responseSizes) {
         this.documentService = documentService;
+        this.ingestionJobService = ingestionJobService;
+        this.eventBroadcaster = eventBroadcaster;
+        this.uploadSpooler = uploadSpooler;
+        this.bulkIngestionService = bulkIngestionService;
+        this.bulkheads = bulkheads;
+        this.responseSizes = responseSizes;
     }
     
     /**
      * Check if file is supported (PDF or common image formats)
      */
-    private boolean isSupportedFileType(String filename) {
+    static boolean isSupportedFileType(String filename) {
         if (filename == null) return false;
         
         String lowerFilename = filename.toLowerCase();
@@ -101,6 +134,19 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Processing statistics (cache hit rates, queue depths)
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = documentService.getProcessingStats();
+        stats.put("ingestion", ingestionJobService.getStats());
+        stats.put("bulk", bulkIngestionService.getStats());
+        stats.put("bulkheads", bulkheads.getStats());
+        stats.put("responses", responseSizes.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Simple file upload test (without OCR processing)
      */
@@ -148,83 +194,93 @@ public class DocumentController {
     }
 
     /**
-     * Text-only extraction endpoint (bypasses OCR completely)
+     * Text-only extraction endpoint (bypasses OCR completely).
+     * view=text returns the text once, in the document content; view=ids returns only the counts.
      */
     @PostMapping(value = "/extract-text", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<UploadResponse> extractTextOnly(@RequestParam("files") List<MultipartFile> files) {
-        try {
-            logger.info("📝 Text extraction request with {} file(s)", files.size());
-            
-            if (files.isEmpty()) {
-                return ResponseEntity.badRequest().body(
-                    new UploadResponse("No files provided", null, 0)
-                );
-            }
+    public CompletableFuture<ResponseEntity<UploadResponse>> extractTextOnly(@RequestParam("files") List<MultipartFile> files,
+                                                                             @RequestParam(value = "view", required = false) String view) {
+        UploadResponse.View shape = UploadResponse.View.parse(view);
+        return bulkheads.supply(Bulkheads.INTERACTIVE, () -> {
+            try {
+                logger.info("📝 Text extraction request with {} file(s)", files.size());
+            
+                if (files.isEmpty()) {
+                    return ResponseEntity.badRequest().body(
+                        new UploadResponse("No files provided", null, 0)
+                    );
+                }
             
-            // Process only the first file for now
-            MultipartFile file = files.get(0);
-            String filename = file.getOriginalFilename();
+                // Process only the first file for now
+                MultipartFile file = files.get(0);
+                String filename = file.getOriginalFilename();
             
-            if (!isSupportedFileType(filename)) {
-                return ResponseEntity.badRequest().body(
-                    new UploadResponse("Unsupported file type: " + filename + ". Supported formats: PDF, JPG, JPEG, PNG, BMP, TIFF", null, 0)
-                );
-            }
+                if (!isSupportedFileType(filename)) {
+                    return ResponseEntity.badRequest().body(
+                        new UploadResponse("Unsupported file type: " + filename + ". Supported formats: PDF, JPG, JPEG, PNG, BMP, TIFF", null, 0)
+                    );
+                }
             
-            logger.info("📄 Processing file: {} (size: {} bytes)", filename, file.getSize());
+                logger.info("📄 Processing file: {} (size: {} bytes)", filename, file.getSize());
             
-            // Extract text based on file type
-            String extractedText;
-            if (isImageFile(filename)) {
-                logger.info("🖼️ Attempting image text extraction from: {}", filename);
-                extractedText = documentService.extractTextFromImage(file);
-            } else {
-                logger.info("📄 Attempting basic text extraction from: {}", filename);
-                extractedText = documentService.extractBasicTextFromPDF(file);
-            }
+                // Extract text based on file type
+                String extractedText;
+                if (isImageFile(filename)) {
+                    logger.info("🖼️ Attempting image text extraction from: {}", filename);
+                    extractedText = documentService.extractTextFromImage(file);
+                } else {
+                    logger.info("📄 Attempting basic text extraction from: {}", filename);
+                    extractedText = documentService.extractBasicTextFromPDF(file);
+                }
             
-            if (extractedText != null && !extractedText.trim().isEmpty()) {
-                // Create document info with available fields
-                UploadResponse.DocumentInfo doc = new UploadResponse.DocumentInfo();
-                doc.setFilename(filename);
-                doc.setContent(extractedText); // Add the extracted text content
-                doc.setTextLength(extractedText.length());
-                doc.setChunksCreated(1); // Basic extraction creates one "chunk"
+                if (extractedText != null && !extractedText.trim().isEmpty()) {
+                    // Create document info with available fields
+                    UploadResponse.DocumentInfo doc = new UploadResponse.DocumentInfo();
+                    doc.setFilename(filename);
+                    doc.setContent(extractedText); // Add the extracted text content
+                    doc.setTextLength(extractedText.length());
+                    doc.setChunksCreated(1); // Basic extraction creates one "chunk"
                 
-                // Create response with extracted text in message
-                UploadResponse response = new UploadResponse(
-                    "✅ Text extraction successful (no OCR):\n\n" + extractedText,
-                    List.of(doc),
-                    1
-                );
+                    // The full view also repeats the extracted text in the message
+                    String message = shape == UploadResponse.View.FULL
+                        ? "✅ Text extraction successful (no OCR):\n\n" + extractedText
+                        : "✅ Text extraction successful (no OCR)";
+                    UploadResponse response = new UploadResponse(message, List.of(doc), 1);
                 
-                logger.info("✅ Text extraction completed: {} characters", extractedText.length());
-                return ResponseEntity.ok(response);
-            } else {
-                UploadResponse response = new UploadResponse(
-                    "⚠️ No text found in PDF - may require OCR for scanned images",
+                    logger.info("✅ Text extraction completed: {} characters", extractedText.length());
+                    return ResponseEntity.ok(response.withView(shape));
+                } else {
+                    UploadResponse response = new UploadResponse(
+                        "⚠️ No text found in PDF - may require OCR for scanned images",
+                        null,
+                        0
+                    );
+                    return ResponseEntity.ok(response);
+                }
+            
+            } catch (Exception e) {
+                logger.error("❌ Text extraction failed: {}", e.getMessage());
+                UploadResponse errorResponse = new UploadResponse(
+                    "Text extraction error: " + e.getMessage(),
                     null,
                     0
                 );
-                return ResponseEntity.ok(response);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
             }
-            
-        } catch (Exception e) {
-            logger.error("❌ Text extraction failed: {}", e.getMessage());
-            UploadResponse errorResponse = new UploadResponse(
-                "Text extraction error: " + e.getMessage(),
-                null,
-                0
-            );
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+        });
     }
 
     /**
-     * Upload and process multiple PDF documents (up to 3)
+     * Upload multiple documents (up to 3) for asynchronous processing
+     * Returns 202 Accepted with a job id; progress and the result are available from GET /jobs/{id}
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<UploadResponse> uploadDocuments(@RequestParam("files") List<MultipartFile> files) {
+    public ResponseEntity<UploadResponse> uploadDocuments(@RequestParam("files") List<MultipartFile> files,
+                                                          @RequestParam(value = "replace", defaultValue = "false") boolean replace,
+                                                          @RequestParam(value = "view", required = false) String view,
+                                                          @RequestHeader(value = TenantIdentity.TENANT_HEADER, required = false) String tenantId,
+                                                          @RequestHeader(value = TenantIdentity.API_KEY_HEADER, required = false) String apiKey) {
+        UploadResponse.View shape = UploadResponse.View.parse(view);
         try {
             logger.info("📁 Received upload request with {} file(s)", files.size());
             
@@ -257,12 +313,19 @@ public class DocumentController {
                 }
             }
             
-            // Process documents
-            UploadResponse response = documentService.processDocuments(files);
-            
-            logger.info("✅ Upload completed successfully: {} documents processed", response.getTotalDocuments());
-            return ResponseEntity.ok(response);
-            
+            // Queue documents for processing on the ingestion executor
+            IngestionJob job = ingestionJobService.submit(files, TenantIdentity.resolve(tenantId, apiKey), replace, shape);
+            return acceptedResponse(job, files.size());
+            
+        } catch (AdmissionRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new UploadResponse(e.getMessage(), null, 0));
+        } catch (RejectedExecutionException e) {
+            bulkheads.recordRejection(Bulkheads.INGESTION);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new UploadResponse("Server is busy processing other documents. Please retry shortly.", null, 0)
+            );
         } catch (Exception e) {
             logger.error("❌ Upload failed: {}", e.getMessage());
             UploadResponse errorResponse = new UploadResponse(
@@ -275,119 +338,230 @@ public class DocumentController {
     }
 
     /**
-     * Upload single PDF document (backward compatibility)
+     * Upload a single document as the raw request body (Content-Type application/pdf or image/*).
+     * The body is read straight into the upload spool, so no multipart buffering happens.
      */
-    @PostMapping(value = "/upload-single", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Object>> uploadSingleDocument(@RequestParam("file") MultipartFile file) {
+    @PostMapping(value = "/upload/stream")
+    public ResponseEntity<UploadResponse> uploadStream(@RequestParam("filename") String filename,
+                                                       @RequestParam(value = "replace", defaultValue = "false") boolean replace,
+                                                       @RequestParam(value = "view", required = false) String view,
+                                                       @RequestHeader(value = TenantIdentity.TENANT_HEADER, required = false) String tenantId,
+                                                       @RequestHeader(value = TenantIdentity.API_KEY_HEADER, required = false) String apiKey,
+                                                       HttpServletRequest request) {
+        UploadResponse.View shape = UploadResponse.View.parse(view);
         try {
-            logger.info("📄 Received single file upload: {}", file.getOriginalFilename());
+            logger.info("📁 Received streaming upload: {} ({} bytes)", filename, request.getContentLengthLong());
             
-            List<MultipartFile> files = List.of(file);
-            UploadResponse response = documentService.processDocuments(files);
-            
-            // Convert to single document response format
-            UploadResponse.DocumentInfo doc = response.getDocuments().get(0);
-            Map<String, Object> singleResponse = Map.of(
-                "message", "Successfully processed " + doc.getFilename(),
-                "chunks_created", doc.getChunksCreated(),
-                "text_length", doc.getTextLength()
-            );
+            if (!isSupportedFileType(filename)) {
+                return ResponseEntity.badRequest().body(
+                    new UploadResponse("Unsupported file type: " + filename + ". Supported formats: PDF, JPG, JPEG, PNG, BMP, TIFF", null, 0)
+                );
+            }
             
-            return ResponseEntity.ok(singleResponse);
+            SpooledUpload upload = uploadSpooler.spool("file", filename, request.getContentType(), request.getInputStream());
+            if (upload.isEmpty()) {
+                upload.close();
+                return ResponseEntity.badRequest().body(
+                    new UploadResponse("Empty file detected", null, 0)
+                );
+            }
             
+            IngestionJob job = ingestionJobService.submitSpooled(List.of(upload), TenantIdentity.resolve(tenantId, apiKey), replace, shape);
+            return acceptedResponse(job, 1);
+            
+        } catch (AdmissionRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new UploadResponse(e.getMessage(), null, 0));
+        } catch (RejectedExecutionException e) {
+            bulkheads.recordRejection(Bulkheads.INGESTION);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                new UploadResponse("Server is busy processing other documents. Please retry shortly.", null, 0)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new UploadResponse(e.getMessage(), null, 0));
         } catch (Exception e) {
-            logger.error("❌ Single upload failed: {}", e.getMessage());
-            Map<String, Object> errorResponse = Map.of(
-                "message", "Processing error: " + e.getMessage()
+            logger.error("❌ Streaming upload failed: {}", e.getMessage());
+            UploadResponse errorResponse = new UploadResponse(
+                "Processing error: " + e.getMessage(),
+                null,
+                0
             );
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
 
+    static ResponseEntity<UploadResponse> acceptedResponse(IngestionJob job, int documentCount) {
+        UploadResponse response = new UploadResponse(
+            String.format("Accepted %d document(s) for processing", documentCount),
+            null,
+            documentCount
+        );
+        response.setJobId(job.getId());
+        response.setStatusUrl("/jobs/" + job.getId());
+        
+        logger.info("✅ Upload accepted: job {}", job.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header(HttpHeaders.LOCATION, response.getStatusUrl())
+            .body(response);
+    }
+
+    /**
+     * Status, per-stage progress and result of an ingestion job
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<IngestionJob> getJob(@PathVariable("id") String id) {
+        IngestionJob job = ingestionJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Server-sent events for an ingestion job: pages rendered and OCR'd, chunks created and stored,
+     * then a final completed or failed event carrying the job
+     */
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJobEvents(@PathVariable("id") String id) {
+        IngestionJob job = ingestionJobService.getJob(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(eventBroadcaster.subscribe(job));
+    }
+
+    /**
+     * Upload single PDF document (backward compatibility)
+     */
+    @PostMapping(value = "/upload-single", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> uploadSingleDocument(@RequestParam("file") MultipartFile file,
+                                                                                      @RequestParam(value = "replace", defaultValue = "false") boolean replace,
+                                                                                      @RequestHeader(value = TenantIdentity.TENANT_HEADER, required = false) String tenantId,
+                                                                                      @RequestHeader(value = TenantIdentity.API_KEY_HEADER, required = false) String apiKey) {
+        return bulkheads.supply(Bulkheads.INTERACTIVE, () -> {
+            try {
+                logger.info("📄 Received single file upload: {}", file.getOriginalFilename());
+            
+                List<MultipartFile> files = List.of(file);
+                UploadResponse response = documentService.processDocuments(files, IngestionProgressListener.NONE, replace,
+                    TenantIdentity.resolve(tenantId, apiKey));
+            
+                // Convert to single document response format
+                UploadResponse.DocumentInfo doc = response.getDocuments().get(0);
+                if (doc.isFailed()) {
+                    throw new RuntimeException("Failed to process " + doc.getFilename() + ": " + doc.getError());
+                }
+                Map<String, Object> singleResponse = Map.of(
+                    "message", (doc.isDuplicate() ? "Already ingested " : "Successfully processed ") + doc.getFilename(),
+                    "document_id", doc.getDocumentId(),
+                    "status", doc.getStatus(),
+                    "chunks_created", doc.getChunksCreated(),
+                    "text_length", doc.getTextLength()
+                );
+            
+                return ResponseEntity.ok(singleResponse);
+            
+            } catch (Exception e) {
+                logger.error("❌ Single upload failed: {}", e.getMessage());
+                Map<String, Object> errorResponse = Map.of(
+                    "message", "Processing error: " + e.getMessage()
+                );
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            }
+        });
+    }
+
     /**
      * Query documents with cross-document analysis
      */
     @PostMapping("/query")
-    public ResponseEntity<QueryResponse> queryDocuments(@Valid @RequestBody QueryRequest request) {
-        try {
-            logger.info("🔍 Received query: {}", request.getQuery().substring(0, Math.min(100, request.getQuery().length())));
+    public CompletableFuture<ResponseEntity<QueryResponse>> queryDocuments(@Valid @RequestBody QueryRequest request) {
+        return bulkheads.supply(Bulkheads.QUERY, () -> {
+            try {
+                logger.info("🔍 Received query: {}", request.getQuery().substring(0, Math.min(100, request.getQuery().length())));
             
-            QueryResponse response = documentService.queryDocuments(request.getQuery());
+                QueryResponse response = documentService.queryDocuments(request.getQuery());
             
-            logger.info("✅ Query processed successfully");
-            return ResponseEntity.ok(response);
+                logger.info("✅ Query processed successfully");
+                return ResponseEntity.ok(response);
             
-        } catch (Exception e) {
-            logger.error("❌ Query failed: {}", e.getMessage());
-            QueryResponse errorResponse = new QueryResponse(
-                "Query failed",
-                "An error occurred while processing your query: " + e.getMessage(),
-                null,
-                null
-            );
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+            } catch (Exception e) {
+                logger.error("❌ Query failed: {}", e.getMessage());
+                QueryResponse errorResponse = new QueryResponse(
+                    "Query failed",
+                    "An error occurred while processing your query: " + e.getMessage(),
+                    null,
+                    null
+                );
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            }
+        });
     }
 
     /**
      * Ask AI to analyze content with context
      */
     @PostMapping("/ask")
-    public ResponseEntity<Map<String, Object>> askAI(@Valid @RequestBody Map<String, String> request) {
-        try {
-            String query = request.get("query");
-            String context = request.get("context");
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> askAI(@Valid @RequestBody Map<String, String> request) {
+        return bulkheads.supply(Bulkheads.QUERY, () -> {
+            try {
+                String query = request.get("query");
+                String context = request.get("context");
+            
+                logger.info("🤖 Received AI ask request: {}", query != null ? query.substring(0, Math.min(100, query.length())) : "null");
+            
+                if (query == null || query.trim().isEmpty()) {
+                    Map<String, Object> errorResponse = Map.of(
+                        "response", "Query cannot be empty",
+                        "reasoning", List.of("No query provided"),
+                        "success", false
+                    );
+                    return ResponseEntity.badRequest().body(errorResponse);
+                }
+            
+                // Use the Gemini service to generate AI response
+                String aiResponse = documentService.generateAIResponse(query, context != null ? context : "");
+            
+                Map<String, Object> response = Map.of(
+                    "response", aiResponse,
+                    "reasoning", List.of("AI analysis completed", "Used provided context", "Generated structured response"),
+                    "success", true
+                );
             
-            logger.info("🤖 Received AI ask request: {}", query != null ? query.substring(0, Math.min(100, query.length())) : "null");
+                logger.info("✅ AI ask processed successfully: {} characters", aiResponse.length());
+                return ResponseEntity.ok(response);
             
-            if (query == null || query.trim().isEmpty()) {
+            } catch (Exception e) {
+                logger.error("❌ AI ask failed: {}", e.getMessage());
                 Map<String, Object> errorResponse = Map.of(
-                    "response", "Query cannot be empty",
-                    "reasoning", List.of("No query provided"),
+                    "response", "AI analysis failed: " + e.getMessage(),
+                    "reasoning", List.of("Error occurred during AI processing", e.getMessage()),
                     "success", false
                 );
-                return ResponseEntity.badRequest().body(errorResponse);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
             }
-            
-            // Use the Gemini service to generate AI response
-            String aiResponse = documentService.generateAIResponse(query, context != null ? context : "");
-            
-            Map<String, Object> response = Map.of(
-                "response", aiResponse,
-                "reasoning", List.of("AI analysis completed", "Used provided context", "Generated structured response"),
-                "success", true
-            );
-            
-            logger.info("✅ AI ask processed successfully: {} characters", aiResponse.length());
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("❌ AI ask failed: {}", e.getMessage());
-            Map<String, Object> errorResponse = Map.of(
-                "response", "AI analysis failed: " + e.getMessage(),
-                "reasoning", List.of("Error occurred during AI processing", e.getMessage()),
-                "success", false
-            );
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+        });
     }
 
     /**
      * Get all uploaded documents
      */
     @GetMapping("/documents")
-    public ResponseEntity<Map<String, Object>> listDocuments() {
-        try {
-            Map<String, Object> response = documentService.getAllDocuments();
-            return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> listDocuments() {
+        return bulkheads.supply(Bulkheads.QUERY, () -> {
+            try {
+                Map<String, Object> response = documentService.getAllDocuments();
+                return ResponseEntity.ok(response);
             
-        } catch (Exception e) {
-            logger.error("❌ Failed to list documents: {}", e.getMessage());
-            Map<String, Object> errorResponse = Map.of(
-                "error", "Failed to retrieve document list: " + e.getMessage()
-            );
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+            } catch (Exception e) {
+                logger.error("❌ Failed to list documents: {}", e.getMessage());
+                Map<String, Object> errorResponse = Map.of(
+                    "error", "Failed to retrieve document list: " + e.getMessage()
+                );
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,304 @@
+package com.emulsify.ocrweaviate.controller;
+
+import com.emulsify.ocrweaviate.exception.AdmissionRejectedException;
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import com.emulsify.ocrweaviate.model.QueryRequest;
+import com.emulsify.ocrweaviate.model.QueryResponse;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import com.emulsify.ocrweaviate.service.BulkIngestionService;
+import com.emulsify.ocrweaviate.service.Bulkheads;
+import com.emulsify.ocrweaviate.service.DocumentProcessingService;
+import com.emulsify.ocrweaviate.service.IngestionJobService;
+import com.emulsify.ocrweaviate.service.SpooledUpload;
+import com.emulsify.ocrweaviate.service.TenantIdentity;
+import com.emulsify.ocrweaviate.service.UploadSpooler;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking variant of the document API, active when spring.main.web-application-type=reactive.
+ *
+ * Multipart bodies are consumed as part events and pushed into the upload spool as buffers
+ * arrive, without the temp file copies of the default part reader. Service calls run on the
+ * query scheduler and CPU work on the CPU scheduler, so the event loop never blocks.
+ */
+@RestController
+@RequestMapping("/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDocumentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveDocumentController.class);
+
+    private static final int MAX_FILES = 3;
+
+    private final DocumentProcessingService documentService;
+    private final IngestionJobService ingestionJobService;
+    private final UploadSpooler uploadSpooler;
+    private final BulkIngestionService bulkIngestionService;
+    private final Bulkheads bulkheads;
+    private final Scheduler queryScheduler;
+    private final Scheduler cpuScheduler;
+
+    @Autowired
+    public ReactiveDocumentController(DocumentProcessingService documentService, IngestionJobService ingestionJobService,
+                                      UploadSpooler uploadSpooler, BulkIngestionService bulkIngestionService,
+                                      Bulkheads bulkheads,
+                                      @Qualifier("queryScheduler") Scheduler queryScheduler,
+                                      @Qualifier("cpuScheduler") Scheduler cpuScheduler) {
+        this.documentService = documentService;
+        this.ingestionJobService = ingestionJobService;
+        this.uploadSpooler = uploadSpooler;
+        this.bulkIngestionService = bulkIngestionService;
+        this.bulkheads = bulkheads;
+        this.queryScheduler = queryScheduler;
+        this.cpuScheduler = cpuScheduler;
+    }
+
+    /**
+     * Detailed health check
+     */
+    @GetMapping("/health")
+    public Mono<ResponseEntity<Map<String, Object>>> health() {
+        return Mono.fromCallable(documentService::getHealthStatus)
+            .subscribeOn(queryScheduler)
+            .map(healthStatus -> {
+                boolean isHealthy = "healthy".equals(healthStatus.get("status"));
+                return ResponseEntity.status(isHealthy ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(healthStatus);
+            });
+    }
+
+    /**
+     * Processing statistics (cache hit rates, queue depths)
+     */
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<Map<String, Object>>> stats() {
+        return Mono.fromCallable(() -> {
+            Map<String, Object> stats = documentService.getProcessingStats();
+            stats.put("ingestion", ingestionJobService.getStats());
+            stats.put("bulk", bulkIngestionService.getStats());
+            stats.put("bulkheads", bulkheads.getStats());
+            return ResponseEntity.ok(stats);
+        });
+    }
+
+    /**
+     * Upload up to 3 documents for asynchronous processing; answers 202 with a job id like the servlet API
+     */
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<UploadResponse>> uploadDocuments(@RequestBody Flux<PartEvent> parts,
+                                                                @RequestParam(value = "replace", defaultValue = "false") boolean replace,
+                                                                @RequestParam(value = "view", required = false) String view,
+                                                                @RequestHeader(value = TenantIdentity.TENANT_HEADER, required = false) String tenantId,
+                                                                @RequestHeader(value = TenantIdentity.API_KEY_HEADER, required = false) String apiKey) {
+        String tenant = TenantIdentity.resolve(tenantId, apiKey);
+        UploadResponse.View shape;
+        try {
+            shape = UploadResponse.View.parse(view);
+        } catch (IllegalArgumentException e) {
+            return uploadError(e);
+        }
+        List<SpooledUpload> uploads = new ArrayList<>();
+
+        return parts.windowUntil(PartEvent::isLast)
+            .concatMap(part -> part.switchOnFirst((first, events) -> {
+                if (first.get() instanceof FilePartEvent filePart && "files".equals(filePart.name())) {
+                    if (uploads.size() >= MAX_FILES) {
+                        return Mono.error(new IllegalArgumentException("Maximum 3 files allowed"));
+                    }
+                    return spool(filePart, events);
+                }
+                // Other form fields are not used; drain them
+                return events.doOnNext(event -> DataBufferUtils.release(event.content())).then(Mono.empty());
+            }))
+            .doOnNext(uploads::add)
+            .then(Mono.fromCallable(() -> validate(uploads)))
+            .doOnError(e -> uploads.forEach(SpooledUpload::close))
+            .doOnCancel(() -> uploads.forEach(SpooledUpload::close))
+            .publishOn(cpuScheduler)
+            .map(spooled -> {
+                IngestionJob job = ingestionJobService.submitSpooled(spooled, tenant, replace, shape);
+                return DocumentController.acceptedResponse(job, spooled.size());
+            })
+            .onErrorResume(this::uploadError);
+    }
+
+    /**
+     * Status, per-stage progress and result of an ingestion job
+     */
+    @GetMapping("/jobs/{id}")
+    public Mono<ResponseEntity<IngestionJob>> getJob(@PathVariable("id") String id) {
+        IngestionJob job = ingestionJobService.getJob(id);
+        return Mono.just(job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Query documents with cross-document analysis
+     */
+    @PostMapping("/query")
+    public Mono<ResponseEntity<QueryResponse>> queryDocuments(@Valid @RequestBody QueryRequest request) {
+        logger.info("🔍 Received query: {}", request.getQuery().substring(0, Math.min(100, request.getQuery().length())));
+
+        return Mono.fromCallable(() -> documentService.queryDocuments(request.getQuery()))
+            .subscribeOn(queryScheduler)
+            .map(ResponseEntity::ok)
+            .doOnError(RejectedExecutionException.class, e -> bulkheads.recordRejection(Bulkheads.QUERY))
+            .onErrorResume(e -> !(e instanceof RejectedExecutionException), e -> {
+                logger.error("❌ Query failed: {}", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new QueryResponse(
+                    "Query failed",
+                    "An error occurred while processing your query: " + e.getMessage(),
+                    null,
+                    null
+                )));
+            });
+    }
+
+    /**
+     * Ask AI to analyze content with context
+     */
+    @PostMapping("/ask")
+    public Mono<ResponseEntity<Map<String, Object>>> askAI(@RequestBody Map<String, String> request) {
+        String query = request.get("query");
+        String context = request.get("context");
+
+        if (query == null || query.trim().isEmpty()) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "response", "Query cannot be empty",
+                "reasoning", List.of("No query provided"),
+                "success", false
+            )));
+        }
+
+        return Mono.fromCallable(() -> documentService.generateAIResponse(query, context != null ? context : ""))
+            .subscribeOn(queryScheduler)
+            .map(aiResponse -> ResponseEntity.ok(Map.<String, Object>of(
+                "response", aiResponse,
+                "reasoning", List.of("AI analysis completed", "Used provided context", "Generated structured response"),
+                "success", true
+            )))
+            .doOnError(RejectedExecutionException.class, e -> bulkheads.recordRejection(Bulkheads.QUERY))
+            .onErrorResume(e -> !(e instanceof RejectedExecutionException), e -> {
+                logger.error("❌ AI ask failed: {}", e.getMessage());
+                return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "response", "AI analysis failed: " + e.getMessage(),
+                    "reasoning", List.of("Error occurred during AI processing", String.valueOf(e.getMessage())),
+                    "success", false
+                )));
+            });
+    }
+
+    /**
+     * Get all uploaded documents
+     */
+    @GetMapping("/documents")
+    public Mono<ResponseEntity<Map<String, Object>>> listDocuments() {
+        return Mono.fromCallable(documentService::getAllDocuments)
+            .subscribeOn(queryScheduler)
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Exception handler for validation errors
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidationErrors(WebExchangeBindException ex) {
+        Map<String, Object> errorResponse = Map.of(
+            "error", "Validation failed",
+            "message", ex.getBindingResult().getFieldError().getDefaultMessage()
+        );
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
+    /**
+     * Push the buffers of one file part into the upload spool; disk writes happen off the event loop
+     */
+    private Mono<SpooledUpload> spool(FilePartEvent filePart, Flux<PartEvent> events) {
+        String filename = filePart.filename();
+        if (!DocumentController.isSupportedFileType(filename)) {
+            return Mono.error(new IllegalArgumentException(
+                "Unsupported file type: " + filename + ". Supported formats: PDF, JPG, JPEG, PNG, BMP, TIFF"));
+        }
+        MediaType contentType = filePart.headers().getContentType();
+
+        return Mono.using(
+            () -> uploadSpooler.open(filePart.name(), filename, contentType != null ? contentType.toString() : null),
+            sink -> events.map(PartEvent::content)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(buffer -> write(sink, buffer))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .then(Mono.fromCallable(sink::finish)),
+            sink -> {
+                try {
+                    sink.close();
+                } catch (IOException e) {
+                    logger.warn("⚠️ Failed to discard partial upload {}: {}", filename, e.getMessage());
+                }
+            });
+    }
+
+    private static void write(UploadSpooler.Sink sink, DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            sink.write(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static List<SpooledUpload> validate(List<SpooledUpload> uploads) {
+        if (uploads.isEmpty()) {
+            throw new IllegalArgumentException("At least 1 file required");
+        }
+        if (uploads.stream().anyMatch(SpooledUpload::isEmpty)) {
+            throw new IllegalArgumentException("Empty file detected");
+        }
+        return uploads;
+    }
+
+    private Mono<ResponseEntity<UploadResponse>> uploadError(Throwable e) {
+        if (e instanceof AdmissionRejectedException rejected) {
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()))
+                .body(new UploadResponse(rejected.getMessage(), null, 0)));
+        }
+        if (e instanceof RejectedExecutionException) {
+            bulkheads.recordRejection(Bulkheads.INGESTION);
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new UploadResponse("Server is busy processing other documents. Please retry shortly.", null, 0)));
+        }
+        if (e instanceof IllegalArgumentException) {
+            return Mono.just(ResponseEntity.badRequest().body(new UploadResponse(e.getMessage(), null, 0)));
+        }
+        logger.error("❌ Upload failed: {}", e.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+            .body(new UploadResponse("Processing error: " + e.getMessage(), null, 0)));
+    }
+}
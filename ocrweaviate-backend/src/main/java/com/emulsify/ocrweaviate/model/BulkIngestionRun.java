@@ -0,0 +1,185 @@
+package com.emulsify.ocrweaviate.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and throughput of a bulk ingestion run over a ZIP archive or directory
+ */
+public class BulkIngestionRun {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final String id;
+    private final String source;
+    private final int parallelism;
+    private final Instant startedAt;
+
+    private final AtomicInteger discovered = new AtomicInteger();
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger resumed = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger unsupported = new AtomicInteger();
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong chunksStored = new AtomicLong();
+    private final List<Map<String, String>> failures = new ArrayList<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile Instant completedAt;
+    private volatile String error;
+
+    public BulkIngestionRun(String source, int parallelism) {
+        this.id = UUID.randomUUID().toString();
+        this.source = source;
+        this.parallelism = parallelism;
+        this.startedAt = Instant.now();
+    }
+
+    public void entryDiscovered() {
+        discovered.incrementAndGet();
+    }
+
+    public void entryProcessed(int chunks) {
+        processed.incrementAndGet();
+        chunksStored.addAndGet(chunks);
+    }
+
+    public void entryDuplicate() {
+        duplicates.incrementAndGet();
+    }
+
+    public void entryResumed() {
+        resumed.incrementAndGet();
+    }
+
+    public void entryUnsupported() {
+        unsupported.incrementAndGet();
+    }
+
+    public void entryFailed(String filename, String error) {
+        failed.incrementAndGet();
+        synchronized (failures) {
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(Map.of("filename", filename, "error", error != null ? error : "unknown error"));
+            }
+        }
+    }
+
+    public void addPages(int count) {
+        pages.addAndGet(count);
+    }
+
+    public void markCompleted() {
+        this.completedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.completedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    /**
+     * One-line progress summary for logs and the command-line runner
+     */
+    public String summary() {
+        return String.format("%d/%d documents done (%d failed, %d resumed), %.1f docs/min, %.2f pages/s",
+            processed.get() + failed.get(), discovered.get() - resumed.get(), failed.get(), resumed.get(),
+            getDocumentsPerMinute(), getPagesPerSecond());
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Map<String, Number> getProgress() {
+        Map<String, Number> snapshot = new LinkedHashMap<>();
+        snapshot.put("discovered", discovered.get());
+        snapshot.put("processed", processed.get());
+        snapshot.put("failed", failed.get());
+        snapshot.put("resumed", resumed.get());
+        snapshot.put("duplicates", duplicates.get());
+        snapshot.put("unsupported", unsupported.get());
+        snapshot.put("pages", pages.get());
+        snapshot.put("chunks_stored", chunksStored.get());
+        return snapshot;
+    }
+
+    @JsonProperty("docs_per_minute")
+    public double getDocumentsPerMinute() {
+        double minutes = elapsedSeconds() / 60.0;
+        return minutes > 0 ? Math.round(processed.get() / minutes * 10) / 10.0 : 0;
+    }
+
+    @JsonProperty("pages_per_second")
+    public double getPagesPerSecond() {
+        double seconds = elapsedSeconds();
+        return seconds > 0 ? Math.round(pages.get() / seconds * 100) / 100.0 : 0;
+    }
+
+    public List<Map<String, String>> getFailures() {
+        synchronized (failures) {
+            return List.copyOf(failures);
+        }
+    }
+
+    @JsonProperty("started_at")
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    @JsonProperty("completed_at")
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    private double elapsedSeconds() {
+        Instant end = completedAt != null ? completedAt : Instant.now();
+        return Duration.between(startedAt, end).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.emulsify.ocrweaviate.model;
+
+/**
+ * Where a chunk comes from in its document: the pages it spans (1-based), its character
+ * offsets into the document text, and the union box of its OCR'd words on its first page as
+ * [x, y, width, height] in ten-thousandths of the page size, or null when the page had no word boxes
+ */
+public record ChunkProvenance(int page, int pageEnd, int startOffset, int endOffset, int[] bbox) {
+
+    /** Scale of the bbox coordinates: 10000 is the full page width or height */
+    public static final int BBOX_SCALE = 10_000;
+}
@@ -0,0 +1,164 @@
+package com.emulsify.ocrweaviate.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Status of an asynchronous document ingestion job
+ */
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final List<String> filenames;
+    private final Instant createdAt;
+    private final Map<String, AtomicInteger> progress = new ConcurrentHashMap<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String stage = "queued";
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile UploadResponse result;
+    private volatile String error;
+    private volatile double estimatedMegapixels;
+    private volatile String tenant;
+    private volatile UploadResponse.View view = UploadResponse.View.FULL;
+
+    public IngestionJob(List<String> filenames) {
+        this(UUID.randomUUID().toString(), filenames, Instant.now());
+    }
+
+    /**
+     * Job restored from the ingestion journal, keeping the id the client was given
+     */
+    public IngestionJob(String id, List<String> filenames, Instant createdAt) {
+        this.id = id;
+        this.filenames = List.copyOf(filenames);
+        this.createdAt = createdAt;
+    }
+
+    public void markRunning() {
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    public void markCompleted(UploadResponse result) {
+        this.result = result.withView(view);
+        this.stage = "completed";
+        this.completedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.stage = "failed";
+        this.completedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    public void setEstimatedMegapixels(double estimatedMegapixels) {
+        this.estimatedMegapixels = estimatedMegapixels;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    /**
+     * Shape the result is kept and returned in
+     */
+    public void setView(UploadResponse.View view) {
+        this.view = view != null ? view : UploadResponse.View.FULL;
+    }
+
+    public void setStage(String stage) {
+        this.stage = stage;
+    }
+
+    public int increment(String counter) {
+        return progress.computeIfAbsent(counter, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void add(String counter, int delta) {
+        progress.computeIfAbsent(counter, k -> new AtomicInteger()).addAndGet(delta);
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public List<String> getFilenames() {
+        return filenames;
+    }
+
+    public Map<String, Integer> getProgress() {
+        Map<String, Integer> snapshot = new LinkedHashMap<>();
+        progress.forEach((key, value) -> snapshot.put(key, value.get()));
+        return snapshot;
+    }
+
+    @JsonProperty("created_at")
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @JsonProperty("started_at")
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    @JsonProperty("completed_at")
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    @JsonProperty("estimated_megapixels")
+    public double getEstimatedMegapixels() {
+        return estimatedMegapixels;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    @JsonIgnore
+    public UploadResponse.View getView() {
+        return view;
+    }
+
+    public UploadResponse getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,18 +1,60 @@
 package com.emulsify.ocrweaviate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Response model for document upload operations
  */
 public class UploadResponse {
+
+    /**
+     * Response shape requested with ?view=: everything, the extracted text once per document,
+     * or only document ids, status and stats
+     */
+    public enum View {
+        FULL,
+        TEXT,
+        IDS;
+
+        /**
+         * @throws IllegalArgumentException for an unknown view
+         */
+        public static View parse(String value) {
+            if (value == null || value.isBlank()) {
+                return FULL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown view: " + value + ". Supported views: full, text, ids");
+            }
+        }
+    }
+
     private String message;
     private List<DocumentInfo> documents;
     
     @JsonProperty("total_documents")
     private int totalDocuments;
+    
+    @JsonProperty("failed_documents")
+    private int failedDocuments;
+    
+    @JsonProperty("duplicate_documents")
+    private int duplicateDocuments;
+    
+    @JsonProperty("job_id")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String jobId;
+    
+    @JsonProperty("status_url")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String statusUrl;
 
     public UploadResponse() {}
 
@@ -47,12 +89,74 @@ public class UploadResponse {
         this.totalDocuments = totalDocuments;
     }
 
+    public int getFailedDocuments() {
+        return failedDocuments;
+    }
+
+    public void setFailedDocuments(int failedDocuments) {
+        this.failedDocuments = failedDocuments;
+    }
+
+    public int getDuplicateDocuments() {
+        return duplicateDocuments;
+    }
+
+    public void setDuplicateDocuments(int duplicateDocuments) {
+        this.duplicateDocuments = duplicateDocuments;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatusUrl() {
+        return statusUrl;
+    }
+
+    public void setStatusUrl(String statusUrl) {
+        this.statusUrl = statusUrl;
+    }
+
+    /**
+     * Copy of this response in the given shape; IDS drops the document text
+     */
+    public UploadResponse withView(View view) {
+        if (view != View.IDS || documents == null) {
+            return this;
+        }
+
+        UploadResponse copy = new UploadResponse(message, documents.stream().map(DocumentInfo::withoutContent).toList(), totalDocuments);
+        copy.setFailedDocuments(failedDocuments);
+        copy.setDuplicateDocuments(duplicateDocuments);
+        copy.setJobId(jobId);
+        copy.setStatusUrl(statusUrl);
+        return copy;
+    }
+
     /**
      * Document information model
      */
     public static class DocumentInfo {
+        public static final String STATUS_PROCESSED = "processed";
+        public static final String STATUS_FAILED = "failed";
+        public static final String STATUS_DUPLICATE = "duplicate";
+        
+        @JsonProperty("document_id")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String documentId;
+        
         private String filename;
+        
+        @JsonInclude(JsonInclude.Include.NON_NULL)
         private String content; // Added content field for extracted text
+        private String status = STATUS_PROCESSED;
+        
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String error;
         
         @JsonProperty("chunks_created")
         private int chunksCreated;
@@ -75,7 +179,43 @@ public class UploadResponse {
             this.textLength = textLength;
         }
 
+        /**
+         * Result entry for a file that could not be processed
+         */
+        public static DocumentInfo failed(String filename, String error) {
+            DocumentInfo info = new DocumentInfo(filename, 0, 0);
+            info.setStatus(STATUS_FAILED);
+            info.setError(error);
+            return info;
+        }
+
+        /**
+         * Result entry for a re-upload resolved to an already ingested document
+         */
+        public static DocumentInfo duplicate(String filename, String documentId, String content, int chunks, int textLength) {
+            DocumentInfo info = new DocumentInfo(filename, content, chunks, textLength);
+            info.setStatus(STATUS_DUPLICATE);
+            info.setDocumentId(documentId);
+            return info;
+        }
+
+        DocumentInfo withoutContent() {
+            DocumentInfo copy = new DocumentInfo(filename, null, chunksCreated, textLength);
+            copy.setDocumentId(documentId);
+            copy.setStatus(status);
+            copy.setError(error);
+            return copy;
+        }
+
         // Getters and setters
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public void setDocumentId(String documentId) {
+            this.documentId = documentId;
+        }
+
         public String getFilename() {
             return filename;
         }
@@ -107,5 +247,31 @@ public class UploadResponse {
         public void setTextLength(int textLength) {
             this.textLength = textLength;
         }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        @JsonIgnore
+        public boolean isFailed() {
+            return STATUS_FAILED.equals(status);
+        }
+
+        @JsonIgnore
+        public boolean isDuplicate() {
+            return STATUS_DUPLICATE.equals(status);
+        }
     }
 }
\ No newline at end of file
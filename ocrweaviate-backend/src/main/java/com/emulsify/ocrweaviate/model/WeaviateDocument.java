@@ -1,5 +1,6 @@
 package com.emulsify.ocrweaviate.model;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -8,6 +9,10 @@ import java.util.Map;
 public class WeaviateDocument {
     private String content;
     private String source;
+    private String documentId;
+    private ChunkProvenance provenance;
+    private String duplicateOf;
+    private String duplicateOfDocument;
 
     public WeaviateDocument() {}
 
@@ -16,6 +21,12 @@ public class WeaviateDocument {
         this.source = source;
     }
 
+    public WeaviateDocument(String content, String source, String documentId) {
+        this.content = content;
+        this.source = source;
+        this.documentId = documentId;
+    }
+
     public String getContent() {
         return content;
     }
@@ -32,13 +43,67 @@ public class WeaviateDocument {
         this.source = source;
     }
 
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public ChunkProvenance getProvenance() {
+        return provenance;
+    }
+
+    public void setProvenance(ChunkProvenance provenance) {
+        this.provenance = provenance;
+    }
+
+    /**
+     * Object id of a stored near-identical chunk this one links to instead of being embedded, or null
+     */
+    public String getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    public void setDuplicateOf(String duplicateOf) {
+        this.duplicateOf = duplicateOf;
+    }
+
+    /**
+     * Document of the chunk this one links to, so the link can be embedded again when that document is deleted
+     */
+    public String getDuplicateOfDocument() {
+        return duplicateOfDocument;
+    }
+
+    public void setDuplicateOfDocument(String duplicateOfDocument) {
+        this.duplicateOfDocument = duplicateOfDocument;
+    }
+
     /**
-     * Convert to Map for Weaviate API
+     * Convert to Map for Weaviate API; provenance is stored as plain int properties next to the text
      */
     public Map<String, Object> toMap() {
-        return Map.of(
-            "content", content,
-            "source", source
-        );
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("content", content);
+        properties.put("source", source);
+        if (documentId != null) {
+            properties.put("document_id", documentId);
+        }
+        if (provenance != null) {
+            properties.put("page", provenance.page());
+            properties.put("page_end", provenance.pageEnd());
+            properties.put("start_offset", provenance.startOffset());
+            properties.put("end_offset", provenance.endOffset());
+            if (provenance.bbox() != null) {
+                properties.put("bbox", provenance.bbox());
+            }
+        }
+        if (duplicateOf != null) {
+            properties.put("duplicate_of", duplicateOf);
+            properties.put("duplicate_of_document", duplicateOfDocument);
+        }
+        return properties;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.exception.AdmissionRejectedException;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cost-aware admission control for uploads.
+ *
+ * Each upload is priced in megapixels of OCR work before it is accepted: page count
+ * times the page area rendered at the OCR DPI for PDFs, or the image size for photos.
+ * Work in flight is limited to a capacity budget; uploads beyond it are rejected with a
+ * Retry-After derived from how fast the backlog has been draining recently.
+ */
+@Service
+public class AdmissionControlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlService.class);
+
+    private static final int OCR_DPI = 300;
+    private static final long DRAIN_WINDOW_MILLIS = 60_000;
+
+    @Value("${ingestion.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ingestion.admission.capacity-megapixels:2000}")
+    private double capacityMegapixels;
+
+    @Value("${ingestion.admission.default-drain-megapixels-per-second:5}")
+    private double defaultDrainRate;
+
+    @Value("${ingestion.admission.max-retry-after-seconds:300}")
+    private long maxRetryAfterSeconds;
+
+    private double inFlightMegapixels;
+    private long admitted;
+    private long rejected;
+
+    // Completed work within the drain window: {completion time millis, megapixels}
+    private final Deque<double[]> completions = new ArrayDeque<>();
+
+    /**
+     * Estimate the OCR cost of a spooled upload in megapixels
+     */
+    public double estimateCost(SpooledUpload upload) {
+        String filename = upload.getOriginalFilename();
+        String lowerFilename = filename != null ? filename.toLowerCase() : "";
+        try {
+            if (lowerFilename.endsWith(".pdf")) {
+                return estimatePdfCost(upload);
+            }
+            return estimateImageCost(upload);
+        } catch (IOException e) {
+            // Unreadable files fail fast in the pipeline; price them as one page
+            logger.debug("Cost estimation failed for {}: {}", filename, e.getMessage());
+            return pageMegapixels(PDRectangle.A4);
+        }
+    }
+
+    /**
+     * Reserve capacity for an upload or reject it
+     *
+     * @throws AdmissionRejectedException when the capacity budget is exhausted
+     */
+    public synchronized void admit(double cost) {
+        if (!enabled) {
+            inFlightMegapixels += cost;
+            admitted++;
+            return;
+        }
+
+        // An idle node always takes work, however large
+        if (inFlightMegapixels > 0 && inFlightMegapixels + cost > capacityMegapixels) {
+            rejected++;
+            long retryAfter = retryAfterSeconds(inFlightMegapixels + cost - capacityMegapixels);
+            logger.warn("🚦 Upload rejected: {} MP requested, {} MP in flight, retry after {}s",
+                Math.round(cost), Math.round(inFlightMegapixels), retryAfter);
+            throw new AdmissionRejectedException("Server is at capacity. Please retry later.", retryAfter);
+        }
+
+        inFlightMegapixels += cost;
+        admitted++;
+    }
+
+    /**
+     * Reserve capacity without a budget check, for work accepted before a restart
+     */
+    public synchronized void admitRecovered(double cost) {
+        inFlightMegapixels += cost;
+        admitted++;
+    }
+
+    /**
+     * Return capacity once an upload has been processed (or failed)
+     */
+    public synchronized void release(double cost) {
+        inFlightMegapixels = Math.max(0, inFlightMegapixels - cost);
+        long now = System.currentTimeMillis();
+        completions.addLast(new double[] {now, cost});
+        pruneCompletions(now);
+    }
+
+    /**
+     * Return capacity reserved for an upload that was never queued. Unlike {@link #release},
+     * this does not count as drained work, so it does not shorten the Retry-After given to others.
+     */
+    public synchronized void unreserve(double cost) {
+        inFlightMegapixels = Math.max(0, inFlightMegapixels - cost);
+        admitted = Math.max(0, admitted - 1);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("capacity_megapixels", capacityMegapixels);
+        stats.put("in_flight_megapixels", Math.round(inFlightMegapixels * 10) / 10.0);
+        stats.put("drain_megapixels_per_second", Math.round(drainRate() * 100) / 100.0);
+        stats.put("admitted", admitted);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    private long retryAfterSeconds(double excessMegapixels) {
+        long seconds = (long) Math.ceil(excessMegapixels / drainRate());
+        return Math.max(1, Math.min(maxRetryAfterSeconds, seconds));
+    }
+
+    private double drainRate() {
+        pruneCompletions(System.currentTimeMillis());
+        if (completions.isEmpty()) {
+            return defaultDrainRate;
+        }
+        double drained = 0;
+        for (double[] completion : completions) {
+            drained += completion[1];
+        }
+        return Math.max(drained / (DRAIN_WINDOW_MILLIS / 1000.0), 0.01);
+    }
+
+    private void pruneCompletions(long now) {
+        Iterator<double[]> iterator = completions.iterator();
+        while (iterator.hasNext() && iterator.next()[0] < now - DRAIN_WINDOW_MILLIS) {
+            iterator.remove();
+        }
+    }
+
+    private double estimatePdfCost(SpooledUpload upload) throws IOException {
+        double total = 0;
+        try (PDDocument document = Loader.loadPDF(upload.openRandomAccess())) {
+            for (PDPage page : document.getPages()) {
+                total += pageMegapixels(page.getMediaBox());
+            }
+        }
+        return total;
+    }
+
+    private double estimateImageCost(SpooledUpload upload) throws IOException {
+        try (InputStream in = upload.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unknown image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // Each image goes through three OCR passes (original, enhanced, grayscale)
+                return 3.0 * reader.getWidth(0) * reader.getHeight(0) / 1_000_000.0;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static double pageMegapixels(PDRectangle box) {
+        double widthPixels = box.getWidth() / 72.0 * OCR_DPI;
+        double heightPixels = box.getHeight() / 72.0 * OCR_DPI;
+        return widthPixels * heightPixels / 1_000_000.0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only record of the documents a bulk source has already ingested, one SHA-256 per line.
+ * A rerun over the same archive or directory skips them, so an interrupted back-load resumes
+ * where it stopped. A torn last line is ignored.
+ */
+public class BulkIngestionLedger implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestionLedger.class);
+
+    private static final int HASH_LENGTH = 64;
+
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final FileChannel channel;
+
+    private BulkIngestionLedger(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static BulkIngestionLedger open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        BulkIngestionLedger ledger = new BulkIngestionLedger(
+            FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+
+        long validLength = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+            if (line.length() != HASH_LENGTH) {
+                break;
+            }
+            ledger.completed.add(line);
+            validLength += HASH_LENGTH + 1;
+        }
+        // Drop a torn last line so new hashes start on a fresh line
+        ledger.channel.truncate(validLength);
+        ledger.channel.position(validLength);
+        return ledger;
+    }
+
+    public boolean isCompleted(String contentHash) {
+        return completed.contains(contentHash);
+    }
+
+    public int size() {
+        return completed.size();
+    }
+
+    /**
+     * Durably record an ingested document
+     */
+    public synchronized void markCompleted(String contentHash) {
+        if (!completed.add(contentHash)) {
+            return;
+        }
+        try {
+            channel.write(ByteBuffer.wrap((contentHash + "\n").getBytes(StandardCharsets.US_ASCII)));
+            channel.force(false);
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to record bulk progress: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close bulk ledger: {}", e.getMessage());
+        }
+    }
+}
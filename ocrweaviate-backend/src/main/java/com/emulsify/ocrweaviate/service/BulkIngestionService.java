@@ -0,0 +1,384 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.BulkIngestionRun;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Back-loads large collections of scanned documents from a ZIP archive or a directory.
+ *
+ * Entries are streamed one at a time into the upload spool (never unpacked to disk as a
+ * whole) and run through the regular ingestion pipeline on the bulk executor, with at most
+ * `parallelism` documents in flight. Completed documents are recorded in a ledger per source,
+ * so rerunning an interrupted back-load skips what was already ingested.
+ */
+@Service
+public class BulkIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestionService.class);
+
+    private final DocumentProcessingService documentService;
+    private final UploadSpooler uploadSpooler;
+    private final ThreadPoolTaskExecutor bulkExecutor;
+
+    @Value("${ocr.temp.directory}")
+    private String tempDirectory;
+
+    @Value("${bulk.ingestion.default-parallelism:2}")
+    private int defaultParallelism;
+
+    @Value("${bulk.ingestion.progress-log-seconds:30}")
+    private long progressLogSeconds;
+
+    @Value("${bulk.ingestion.allowed-root:}")
+    private String allowedRoot;
+
+    @Value("${bulk.ingestion.max-archive-size:2GB}")
+    private DataSize maxArchiveSize;
+
+    @Value("${bulk.ingestion.retention-minutes:1440}")
+    private int retentionMinutes;
+
+    private final Map<String, BulkIngestionRun> runs = new ConcurrentHashMap<>();
+    private final Set<String> activeSources = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public BulkIngestionService(DocumentProcessingService documentService, UploadSpooler uploadSpooler,
+                                @Qualifier("bulkIngestionExecutor") ThreadPoolTaskExecutor bulkExecutor) {
+        this.documentService = documentService;
+        this.uploadSpooler = uploadSpooler;
+        this.bulkExecutor = bulkExecutor;
+    }
+
+    /**
+     * Source of documents for a bulk run
+     */
+    @FunctionalInterface
+    public interface EntrySource {
+        void forEachEntry(EntryHandler handler) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface EntryHandler {
+        void accept(String filename, InputStream content) throws IOException;
+    }
+
+    /**
+     * Entries of a ZIP archive, read sequentially from the stream
+     */
+    public static EntrySource zipSource(InputStream archive) {
+        return handler -> {
+            try (ZipInputStream zip = new ZipInputStream(archive)) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (!entry.isDirectory()) {
+                        handler.accept(entry.getName(), zip);
+                    }
+                    zip.closeEntry();
+                }
+            }
+        };
+    }
+
+    /**
+     * Regular files below a directory, in path order; ZIP archives are opened as a zip source
+     */
+    public static EntrySource pathSource(Path path) {
+        if (Files.isRegularFile(path) && path.getFileName().toString().toLowerCase().endsWith(".zip")) {
+            return handler -> {
+                try (InputStream in = Files.newInputStream(path)) {
+                    zipSource(in).forEachEntry(handler);
+                }
+            };
+        }
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Bulk source must be a directory or a .zip file: " + path);
+        }
+        return handler -> {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        handler.accept(path.relativize(file).toString().replace('\\', '/'), in);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Start a run over a server-side directory or ZIP file below bulk.ingestion.allowed-root in the background
+     */
+    public BulkIngestionRun startPath(String directory, Integer parallelism) {
+        if (allowedRoot == null || allowedRoot.isBlank()) {
+            throw new IllegalArgumentException("Server-side bulk sources are disabled (bulk.ingestion.allowed-root is not set)");
+        }
+        Path root = Paths.get(allowedRoot).toAbsolutePath().normalize();
+        Path path = root.resolve(directory).toAbsolutePath().normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Bulk source must be below " + root);
+        }
+        EntrySource source = pathSource(path);
+        return start(path.toAbsolutePath().normalize().toString(), source, parallelism, null);
+    }
+
+    /**
+     * Store an uploaded archive once (it is not unpacked) and ingest it in the background.
+     * The run is keyed by the SHA-256 of the archive, not its name: re-uploading the same
+     * archive resumes it, while different archives sent under the same (or no) name do not
+     * share a ledger or block each other.
+     *
+     * @throws IllegalArgumentException when the archive exceeds bulk.ingestion.max-archive-size
+     */
+    public BulkIngestionRun startArchive(String archiveName, InputStream body, Integer parallelism) throws IOException {
+        Path archiveDirectory = Paths.get(tempDirectory, "bulk", "archives");
+        Files.createDirectories(archiveDirectory);
+        Path archive = Files.createTempFile(archiveDirectory, "bulk_", ".zip");
+        try {
+            MessageDigest digest = ContentHashes.newSha256();
+            copyArchive(body, archive, digest);
+            String sourceName = "upload:" + HexFormat.of().formatHex(digest.digest());
+            logger.info("📦 Uploaded archive {} stored as {}", archiveName, sourceName);
+
+            EntrySource source = handler -> {
+                try (InputStream in = Files.newInputStream(archive)) {
+                    zipSource(in).forEachEntry(handler);
+                }
+            };
+            return start(sourceName, source, parallelism, archive);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+    }
+
+    /**
+     * Copy the archive body to disk, stopping as soon as it passes the maximum archive size
+     */
+    private void copyArchive(InputStream body, Path archive, MessageDigest digest) throws IOException {
+        long limit = maxArchiveSize.toBytes();
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(archive)) {
+            int count;
+            while ((count = body.read(buffer)) != -1) {
+                size += count;
+                if (size > limit) {
+                    throw new IllegalArgumentException("Archive exceeds the maximum size of " + maxArchiveSize.toMegabytes() + " MB");
+                }
+                digest.update(buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+        }
+    }
+
+    private BulkIngestionRun start(String sourceName, EntrySource source, Integer parallelism, Path cleanup) {
+        BulkIngestionRun run = newRun(sourceName, parallelism);
+        Thread coordinator = new Thread(() -> {
+            try {
+                execute(run, source);
+            } finally {
+                if (cleanup != null) {
+                    try {
+                        Files.deleteIfExists(cleanup);
+                    } catch (IOException e) {
+                        logger.warn("⚠️ Failed to remove bulk archive {}: {}", cleanup, e.getMessage());
+                    }
+                }
+            }
+        }, "bulk-" + run.getId().substring(0, 8));
+        coordinator.start();
+        return run;
+    }
+
+    /**
+     * Run a bulk ingestion on the calling thread and return when every entry is done
+     */
+    public BulkIngestionRun runPath(Path path, Integer parallelism) {
+        EntrySource source = pathSource(path);
+        BulkIngestionRun run = newRun(path.toAbsolutePath().normalize().toString(), parallelism);
+        execute(run, source);
+        return run;
+    }
+
+    public BulkIngestionRun getRun(String runId) {
+        return runs.get(runId);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "runs", runs.size(),
+            "active_runs", activeSources.size(),
+            "active_threads", bulkExecutor.getActiveCount(),
+            "queued", bulkExecutor.getThreadPoolExecutor().getQueue().size()
+        );
+    }
+
+    private BulkIngestionRun newRun(String sourceName, Integer parallelism) {
+        int maxParallelism = bulkExecutor.getMaxPoolSize();
+        int effectiveParallelism = Math.max(1, Math.min(parallelism != null ? parallelism : defaultParallelism, maxParallelism));
+
+        removeExpiredRuns();
+        if (!activeSources.add(sourceName)) {
+            throw new IllegalStateException("A bulk run over " + sourceName + " is already in progress");
+        }
+        BulkIngestionRun run = new BulkIngestionRun(sourceName, effectiveParallelism);
+        runs.put(run.getId(), run);
+        return run;
+    }
+
+    private void removeExpiredRuns() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        runs.values().removeIf(run -> run.isFinished() && run.getCompletedAt().isBefore(cutoff));
+    }
+
+    private void execute(BulkIngestionRun run, EntrySource source) {
+        logger.info("📦 Bulk ingestion {} started: {} (parallelism {})", run.getId(), run.getSource(), run.getParallelism());
+
+        Semaphore inFlight = new Semaphore(run.getParallelism());
+        AtomicLong lastProgressLog = new AtomicLong(System.currentTimeMillis());
+
+        try (BulkIngestionLedger ledger = BulkIngestionLedger.open(ledgerFile(run.getSource()))) {
+            if (ledger.size() > 0) {
+                logger.info("🔁 Resuming bulk ingestion: {} document(s) already ingested from this source", ledger.size());
+            }
+
+            source.forEachEntry((filename, content) -> {
+                if (!isSupportedFileType(filename)) {
+                    run.entryUnsupported();
+                    return;
+                }
+                run.entryDiscovered();
+
+                SpooledUpload upload;
+                try {
+                    upload = uploadSpooler.spool("file", filename, null, content);
+                } catch (IllegalArgumentException e) {
+                    run.entryFailed(filename, e.getMessage());
+                    return;
+                }
+                if (ledger.isCompleted(upload.getContentHash())) {
+                    run.entryResumed();
+                    upload.close();
+                    return;
+                }
+
+                // Reading ahead of the workers is bounded by the parallelism
+                inFlight.acquireUninterruptibly();
+                try {
+                    bulkExecutor.execute(() -> {
+                        try {
+                            ingestEntry(run, ledger, upload);
+                        } finally {
+                            upload.close();
+                            inFlight.release();
+                            logProgress(run, lastProgressLog);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    upload.close();
+                    throw e;
+                }
+            });
+
+            // Wait for the documents still in flight
+            inFlight.acquireUninterruptibly(run.getParallelism());
+            run.markCompleted();
+            logger.info("✅ Bulk ingestion {} completed: {}", run.getId(), run.summary());
+
+        } catch (Exception e) {
+            inFlight.acquireUninterruptibly(run.getParallelism());
+            run.markFailed(e.getMessage());
+            logger.error("❌ Bulk ingestion {} failed: {} ({})", run.getId(), e.getMessage(), run.summary());
+        } finally {
+            activeSources.remove(run.getSource());
+        }
+    }
+
+    private void ingestEntry(BulkIngestionRun run, BulkIngestionLedger ledger, SpooledUpload upload) {
+        AtomicInteger pages = new AtomicInteger();
+        IngestionProgressListener listener = new IngestionProgressListener() {
+            @Override
+            public void onPageOcrd(String filename, int page, int pageCount) {
+                pages.incrementAndGet();
+            }
+        };
+
+        try {
+            UploadResponse response = documentService.processDocuments(List.of(upload), listener);
+            UploadResponse.DocumentInfo doc = response.getDocuments().get(0);
+            // Images report no pages; count them as one
+            run.addPages(Math.max(pages.get(), 1));
+
+            if (doc.isFailed()) {
+                run.entryFailed(upload.getOriginalFilename(), doc.getError());
+            } else {
+                // Documents already in the registry (e.g. from another source) were not stored again
+                if (doc.isDuplicate()) {
+                    run.entryDuplicate();
+                }
+                ledger.markCompleted(upload.getContentHash());
+                run.entryProcessed(doc.isDuplicate() ? 0 : doc.getChunksCreated());
+            }
+        } catch (Exception e) {
+            run.entryFailed(upload.getOriginalFilename(), e.getMessage());
+        }
+    }
+
+    private void logProgress(BulkIngestionRun run, AtomicLong lastProgressLog) {
+        long now = System.currentTimeMillis();
+        long last = lastProgressLog.get();
+        if (now - last >= progressLogSeconds * 1000 && lastProgressLog.compareAndSet(last, now)) {
+            logger.info("📊 Bulk ingestion {}: {}", run.getId(), run.summary());
+        }
+    }
+
+    private Path ledgerFile(String sourceName) {
+        byte[] digest = ContentHashes.newSha256().digest(sourceName.getBytes(StandardCharsets.UTF_8));
+        return Paths.get(tempDirectory, "bulk", HexFormat.of().formatHex(digest, 0, 8) + ".ledger");
+    }
+
+    private boolean isSupportedFileType(String filename) {
+        String lowerFilename = filename.toLowerCase();
+        String name = lowerFilename.substring(lowerFilename.lastIndexOf('/') + 1);
+        if (name.startsWith(".") || lowerFilename.startsWith("__macosx/")) {
+            return false;
+        }
+        return lowerFilename.endsWith(".pdf") ||
+               lowerFilename.endsWith(".jpg") ||
+               lowerFilename.endsWith(".jpeg") ||
+               lowerFilename.endsWith(".png") ||
+               lowerFilename.endsWith(".bmp") ||
+               lowerFilename.endsWith(".tiff") ||
+               lowerFilename.endsWith(".tif");
+    }
+}
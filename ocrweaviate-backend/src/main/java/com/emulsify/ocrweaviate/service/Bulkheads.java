@@ -0,0 +1,100 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Routes each class of work to its own bounded executor and reports how saturated each one is.
+ *
+ * Request handlers hand their work to a bulkhead and return the future, which frees the
+ * servlet thread; a full bulkhead rejects immediately instead of borrowing another's threads.
+ */
+@Component
+public class Bulkheads {
+
+    public static final String INTERACTIVE = "interactive";
+    public static final String QUERY = "query";
+    public static final String INGESTION = "ingestion";
+    public static final String BULK = "bulk";
+    public static final String OCR = "ocr";
+
+    private static final Logger logger = LoggerFactory.getLogger(Bulkheads.class);
+
+    private final Map<String, ThreadPoolTaskExecutor> executors = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> rejections = new LinkedHashMap<>();
+
+    @Autowired
+    public Bulkheads(@Qualifier("interactiveExecutor") ThreadPoolTaskExecutor interactiveExecutor,
+                     @Qualifier("queryExecutor") ThreadPoolTaskExecutor queryExecutor,
+                     @Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor,
+                     @Qualifier("bulkIngestionExecutor") ThreadPoolTaskExecutor bulkIngestionExecutor,
+                     @Qualifier("ocrExecutor") ThreadPoolTaskExecutor ocrExecutor) {
+        executors.put(INTERACTIVE, interactiveExecutor);
+        executors.put(QUERY, queryExecutor);
+        executors.put(INGESTION, ingestionExecutor);
+        executors.put(BULK, bulkIngestionExecutor);
+        executors.put(OCR, ocrExecutor);
+        executors.keySet().forEach(name -> rejections.put(name, new AtomicLong()));
+    }
+
+    /**
+     * Run work on a bulkhead
+     *
+     * @throws RejectedExecutionException when the bulkhead's threads and queue are all taken
+     */
+    public <T> CompletableFuture<T> supply(String bulkhead, Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor(bulkhead));
+        } catch (RejectedExecutionException e) {
+            recordRejection(bulkhead);
+            throw e;
+        }
+    }
+
+    /**
+     * Count work a bulkhead turned away outside of {@link #supply}, e.g. a full ingestion queue
+     */
+    public void recordRejection(String bulkhead) {
+        rejections.get(bulkhead).incrementAndGet();
+        logger.warn("⚠️ {} bulkhead is saturated, request rejected", bulkhead);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        executors.forEach((name, executor) -> {
+            BlockingQueue<Runnable> queue = executor.getThreadPoolExecutor().getQueue();
+            int maxThreads = executor.getMaxPoolSize();
+            int active = executor.getActiveCount();
+
+            Map<String, Object> bulkheadStats = new LinkedHashMap<>();
+            bulkheadStats.put("max_threads", maxThreads);
+            bulkheadStats.put("active_threads", active);
+            bulkheadStats.put("queued", queue.size());
+            bulkheadStats.put("queue_capacity", queue.size() + queue.remainingCapacity());
+            bulkheadStats.put("saturation", maxThreads > 0 ? (double) active / maxThreads : 0.0);
+            bulkheadStats.put("rejected", rejections.get(name).get());
+            stats.put(name, bulkheadStats);
+        });
+        return stats;
+    }
+
+    private ThreadPoolTaskExecutor executor(String bulkhead) {
+        ThreadPoolTaskExecutor executor = executors.get(bulkhead);
+        if (executor == null) {
+            throw new IllegalArgumentException("Unknown bulkhead: " + bulkhead);
+        }
+        return executor;
+    }
+}
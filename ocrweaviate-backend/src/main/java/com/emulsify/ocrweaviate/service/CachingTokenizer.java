@@ -0,0 +1,60 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the token count of every word, so repeated words (drug names, dosages,
+ * letterhead text) are only tokenized once. The cache is cleared when it is full.
+ */
+public class CachingTokenizer implements Tokenizer {
+
+    private final Tokenizer delegate;
+    private final int maxEntries;
+
+    private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingTokenizer(Tokenizer delegate, int maxEntries) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public int countTokens(CharSequence word) {
+        String key = word.toString();
+        Integer cached = counts.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        int tokens = delegate.countTokens(key);
+        if (counts.size() >= maxEntries) {
+            counts.clear();
+        }
+        counts.put(key, tokens);
+        return tokens;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tokenizer", delegate.getName());
+        stats.put("cached_words", counts.size());
+        stats.put("cache_hits", hitCount);
+        stats.put("cache_misses", misses.get());
+        stats.put("cache_hit_rate", total > 0 ? (double) hitCount / total : 0.0);
+        return stats;
+    }
+}
@@ -0,0 +1,175 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.ChunkProvenance;
+import com.emulsify.ocrweaviate.model.WeaviateDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the chunks of a document to the vector store while OCR is still producing its text.
+ *
+ * Each document gets a {@link Stream}. Chunks are collected into batches of weaviate.batch.size,
+ * one request each, and every full batch is stored on the storage executor right away, so OCR
+ * of the next pages and indexing of the previous ones overlap. The batches of one document are
+ * written one after another, in order.
+ */
+@Component
+public class ChunkStoreWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkStoreWriter.class);
+
+    private final WeaviateService weaviateService;
+    private final Executor storageExecutor;
+
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong chunksWritten = new AtomicLong();
+    private final AtomicLong chunksWrittenDuringOcr = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+
+    @Autowired
+    public ChunkStoreWriter(WeaviateService weaviateService, @Qualifier("storageExecutor") Executor storageExecutor) {
+        this.weaviateService = weaviateService;
+        this.storageExecutor = storageExecutor;
+    }
+
+    /**
+     * Open the chunk stream of one document
+     */
+    public Stream open(String filename, String documentId, IngestionProgressListener listener) {
+        return new Stream(filename, documentId, listener);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "batch_size", weaviateService.getBatchSize(),
+            "batches_written", batchesWritten.get(),
+            "chunks_written", chunksWritten.get(),
+            "chunks_written_during_ocr", chunksWrittenDuringOcr.get(),
+            "batches_failed", batchesFailed.get()
+        );
+    }
+
+    /**
+     * Chunks of one document on their way to the vector store. Not thread-safe: one producer.
+     */
+    public class Stream {
+
+        private final String filename;
+        private final String documentId;
+        private final IngestionProgressListener listener;
+
+        private List<WeaviateDocument> batch = new ArrayList<>();
+        private CompletableFuture<Integer> written = CompletableFuture.completedFuture(0);
+        private final AtomicInteger stored = new AtomicInteger();
+        private boolean finishing;
+
+        private Stream(String filename, String documentId, IngestionProgressListener listener) {
+            this.filename = filename;
+            this.documentId = documentId;
+            this.listener = listener;
+        }
+
+        /**
+         * Queue a chunk; it is copied here because the text behind it is still being appended to
+         */
+        public void accept(CharSequence chunk) {
+            accept(chunk, null);
+        }
+
+        /**
+         * Queue a chunk with where it comes from in the document
+         */
+        public void accept(CharSequence chunk, ChunkProvenance provenance) {
+            WeaviateDocument document = new WeaviateDocument(chunk.toString(), filename, documentId);
+            document.setProvenance(provenance);
+            accept(document);
+        }
+
+        /**
+         * Queue a chunk already prepared by the caller, e.g. a link to a near-identical chunk
+         */
+        public void accept(WeaviateDocument document) {
+            batch.add(document);
+            if (batch.size() >= weaviateService.getBatchSize()) {
+                flush();
+            }
+        }
+
+        /**
+         * Store the last batch and wait until every batch is written
+         *
+         * @return number of chunks stored
+         */
+        public int finish() throws Exception {
+            finishing = true;
+            flush();
+            try {
+                return written.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Drop unwritten chunks and wait for batches already handed over, so the caller can remove
+         * what was stored
+         *
+         * @return number of chunks stored before the abort
+         */
+        public int abort() {
+            finishing = true;
+            batch.clear();
+            try {
+                written.get();
+            } catch (ExecutionException e) {
+                // Already reported by the write that failed
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return stored.get();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<WeaviateDocument> chunks = batch;
+            batch = new ArrayList<>();
+            boolean duringOcr = !finishing;
+            written = written.thenApplyAsync(total -> total + write(chunks, duringOcr), storageExecutor);
+        }
+
+        private int write(List<WeaviateDocument> chunks, boolean duringOcr) {
+            try {
+                int count = weaviateService.storeChunks(chunks);
+                stored.addAndGet(count);
+                batchesWritten.incrementAndGet();
+                chunksWritten.addAndGet(count);
+                if (duringOcr) {
+                    chunksWrittenDuringOcr.addAndGet(count);
+                }
+                listener.onChunksStored(filename, count);
+                return count;
+            } catch (RuntimeException e) {
+                batchesFailed.incrementAndGet();
+                logger.error("❌ Failed to store {} chunk(s) of {}: {}", chunks.size(), filename, e.getMessage());
+                throw e;
+            }
+        }
+    }
+}
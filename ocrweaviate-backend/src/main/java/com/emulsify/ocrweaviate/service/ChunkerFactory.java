@@ -0,0 +1,145 @@
+package com.emulsify.ocrweaviate.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Creates the chunker for an ingested document.
+ *
+ * With text.chunk.unit=chars chunks are text.chunk.size characters long. With
+ * text.chunk.unit=tokens they are filled up to text.chunk.tokens tokens of the embedding
+ * model, counted with its WordPiece vocabulary (or estimated when none is configured). With
+ * text.chunk.unit=structure prescriptions are cut at their sections and medication entries,
+ * into chunks of at most text.chunk.size characters.
+ */
+@Component
+public class ChunkerFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkerFactory.class);
+
+    static final String CHARS = "chars";
+    static final String TOKENS = "tokens";
+    static final String STRUCTURE = "structure";
+
+    @Value("${text.chunk.unit:chars}")
+    private String unit;
+
+    @Value("${text.chunk.size:500}")
+    private int chunkSize;
+
+    @Value("${text.chunk.overlap:50}")
+    private int chunkOverlap;
+
+    @Value("${text.min.chunk.length:30}")
+    private int minChunkLength;
+
+    @Value("${text.chunk.tokens:254}")
+    private int maxTokens;
+
+    @Value("${text.chunk.overlap-tokens:32}")
+    private int overlapTokens;
+
+    @Value("${text.tokenizer.vocab:}")
+    private String vocabulary;
+
+    @Value("${text.tokenizer.lowercase:true}")
+    private boolean lowercase;
+
+    @Value("${text.tokenizer.cache-size:50000}")
+    private int cacheSize;
+
+    private CachingTokenizer tokenizer;
+
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong tokensChunked = new AtomicLong();
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!CHARS.equals(unit) && !TOKENS.equals(unit) && !STRUCTURE.equals(unit)) {
+            throw new IllegalArgumentException("text.chunk.unit must be 'chars', 'tokens' or 'structure', not '" + unit + "'");
+        }
+        if (!TOKENS.equals(unit)) {
+            return;
+        }
+
+        Tokenizer delegate;
+        if (vocabulary == null || vocabulary.isBlank()) {
+            logger.warn("⚠️ No tokenizer vocabulary configured (text.tokenizer.vocab); estimating token counts");
+            delegate = Tokenizer.estimating();
+        } else {
+            WordPieceTokenizer wordPiece = WordPieceTokenizer.load(Path.of(vocabulary), lowercase);
+            logger.info("🔤 WordPiece vocabulary loaded: {} entries", wordPiece.getVocabularySize());
+            delegate = wordPiece;
+        }
+        tokenizer = new CachingTokenizer(delegate, cacheSize);
+    }
+
+    /**
+     * A new chunker for one document; chunks are spans over the text it retains
+     */
+    public TextChunker open(Consumer<TextSpan> chunkConsumer) {
+        documents.incrementAndGet();
+        if (STRUCTURE.equals(unit)) {
+            return new PrescriptionChunker(chunkSize, chunkOverlap, minChunkLength, chunkConsumer) {
+                private boolean counted;
+
+                @Override
+                public void finish() {
+                    super.finish();
+                    if (!counted) {
+                        counted = true;
+                        chunks.addAndGet(getChunksEmitted());
+                    }
+                }
+            };
+        }
+        if (tokenizer == null) {
+            return IncrementalChunker.retaining(chunkSize, chunkOverlap, chunkConsumer);
+        }
+        return new TokenBudgetChunker(tokenizer, maxTokens, overlapTokens, chunkConsumer) {
+            private boolean counted;
+
+            @Override
+            public void finish() {
+                super.finish();
+                if (!counted) {
+                    counted = true;
+                    chunks.addAndGet(getChunksEmitted());
+                    tokensChunked.addAndGet(getTokensEmitted());
+                }
+            }
+        };
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("unit", unit);
+        stats.put("documents", documents.get());
+        if (tokenizer != null) {
+            long chunkCount = chunks.get();
+            stats.put("max_tokens", maxTokens);
+            stats.put("overlap_tokens", overlapTokens);
+            stats.put("chunks", chunkCount);
+            stats.put("avg_tokens_per_chunk", chunkCount > 0 ? tokensChunked.get() / chunkCount : 0);
+            stats.putAll(tokenizer.getStats());
+        } else {
+            stats.put("chunk_size", chunkSize);
+            stats.put("overlap", chunkOverlap);
+            if (STRUCTURE.equals(unit)) {
+                stats.put("chunks", chunks.get());
+            }
+        }
+        return stats;
+    }
+}
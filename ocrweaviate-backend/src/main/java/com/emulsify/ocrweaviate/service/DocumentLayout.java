@@ -0,0 +1,133 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.ChunkProvenance;
+
+import java.util.Arrays;
+
+/**
+ * Pages and word boxes of one document as it is ingested, keyed by offsets into the document text.
+ *
+ * Pages are added in order with the offset their text starts at; a chunk, given as offsets into
+ * the same text, is then mapped to its pages and to the union box of its words in O(log n).
+ */
+public class DocumentLayout {
+
+    private int[] pageStarts = new int[8];
+    private int[] pageNumbers = new int[8];
+    private int[] pageWidths = new int[8];
+    private int[] pageHeights = new int[8];
+    private int pages;
+
+    // Word boxes of all pages: offsets into the document text, the page index, x, y, width, height
+    private int[] wordStarts = new int[256];
+    private int[] wordEnds = new int[256];
+    private int[] wordPages = new int[256];
+    private int[] wordBoxes = new int[1024];
+    private int words;
+
+    /**
+     * Add the next page, whose text starts at the given offset of the document text
+     */
+    public void addPage(OcrPage page, int textOffset) {
+        if (pages == pageStarts.length) {
+            pageStarts = Arrays.copyOf(pageStarts, pages * 2);
+            pageNumbers = Arrays.copyOf(pageNumbers, pages * 2);
+            pageWidths = Arrays.copyOf(pageWidths, pages * 2);
+            pageHeights = Arrays.copyOf(pageHeights, pages * 2);
+        }
+        pageStarts[pages] = textOffset;
+        pageNumbers[pages] = page.number();
+        pageWidths[pages] = page.width();
+        pageHeights[pages] = page.height();
+
+        int[] offsets = page.offsets();
+        int[] boxes = page.boxes();
+        for (int w = 0; w < page.wordCount(); w++) {
+            int start = textOffset + offsets[2 * w];
+            if (start < 0 || page.width() <= 0 || page.height() <= 0) {
+                // Trimmed away with the leading whitespace of the document, or no page size to scale by
+                continue;
+            }
+            if (words == wordStarts.length) {
+                wordStarts = Arrays.copyOf(wordStarts, words * 2);
+                wordEnds = Arrays.copyOf(wordEnds, words * 2);
+                wordPages = Arrays.copyOf(wordPages, words * 2);
+                wordBoxes = Arrays.copyOf(wordBoxes, words * 8);
+            }
+            wordStarts[words] = start;
+            wordEnds[words] = textOffset + offsets[2 * w + 1];
+            wordPages[words] = pages;
+            System.arraycopy(boxes, 4 * w, wordBoxes, 4 * words, 4);
+            words++;
+        }
+        pages++;
+    }
+
+    public int getPageCount() {
+        return pages;
+    }
+
+    /**
+     * Provenance of the chunk covering [start, end) of the document text
+     */
+    public ChunkProvenance locate(int start, int end) {
+        if (pages == 0) {
+            return new ChunkProvenance(1, 1, start, end, null);
+        }
+        int firstPage = pageAt(start);
+        int lastPage = pageAt(Math.max(start, end - 1));
+
+        // Union of the boxes of the chunk's words on its first page
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        for (int w = firstWordEndingAfter(start); w < words && wordStarts[w] < end && wordPages[w] == firstPage; w++) {
+            left = Math.min(left, wordBoxes[4 * w]);
+            top = Math.min(top, wordBoxes[4 * w + 1]);
+            right = Math.max(right, wordBoxes[4 * w] + wordBoxes[4 * w + 2]);
+            bottom = Math.max(bottom, wordBoxes[4 * w + 1] + wordBoxes[4 * w + 3]);
+        }
+
+        int[] bbox = null;
+        if (left <= right) {
+            int width = pageWidths[firstPage];
+            int height = pageHeights[firstPage];
+            bbox = new int[] {
+                scale(left, width), scale(top, height), scale(right - left, width), scale(bottom - top, height)
+            };
+        }
+        return new ChunkProvenance(pageNumbers[firstPage], pageNumbers[lastPage], start, end, bbox);
+    }
+
+    private int pageAt(int offset) {
+        int index = Arrays.binarySearch(pageStarts, 0, pages, offset);
+        if (index < 0) {
+            index = -index - 2;
+        } else {
+            // Pages without text share a start offset; take the last one
+            while (index + 1 < pages && pageStarts[index + 1] == offset) {
+                index++;
+            }
+        }
+        return Math.max(0, index);
+    }
+
+    private int firstWordEndingAfter(int offset) {
+        int low = 0;
+        int high = words;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (wordEnds[mid] <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int scale(int pixels, int size) {
+        return (int) Math.min(ChunkProvenance.BBOX_SCALE, (long) pixels * ChunkProvenance.BBOX_SCALE / size);
+    }
+}
@@ -2,6 +2,7 @@ package com.emulsify.ocrweaviate.service;
 
 import com.emulsify.ocrweaviate.model.QueryResponse;
 import com.emulsify.ocrweaviate.model.UploadResponse;
+import com.emulsify.ocrweaviate.model.WeaviateDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +11,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main service for document processing workflow
@@ -23,21 +27,36 @@ public class DocumentProcessingService {
     private final OCRService ocrService;
     private final WeaviateService weaviateService;
     private final GeminiService geminiService;
-    
-    @Value("${text.chunk.size:500}")
-    private int chunkSize;
-    
-    @Value("${text.chunk.overlap:50}")
-    private int chunkOverlap;
+    private final TemplateRegionCache templateRegionCache;
+    private final NearDuplicateImageIndex nearDuplicateImageIndex;
+    private final FairIngestionScheduler ingestionScheduler;
+    private final UploadSpooler uploadSpooler;
+    private final DocumentRegistry documentRegistry;
+    private final ChunkerFactory chunkerFactory;
+    private final ChunkStoreWriter chunkStoreWriter;
+    private final NearDuplicateChunkIndex nearDuplicateChunkIndex;
     
     @Value("${text.min.chunk.length:30}")
     private int minChunkLength;
 
     @Autowired
-    public DocumentProcessingService(OCRService ocrService, WeaviateService weaviateService, GeminiService geminiService) {
+    public DocumentProcessingService(OCRService ocrService, WeaviateService weaviateService, GeminiService geminiService,
+                                     TemplateRegionCache templateRegionCache, NearDuplicateImageIndex nearDuplicateImageIndex,
+                                     FairIngestionScheduler ingestionScheduler,
+                                     UploadSpooler uploadSpooler, DocumentRegistry documentRegistry,
+                                     ChunkerFactory chunkerFactory, ChunkStoreWriter chunkStoreWriter,
+                                     NearDuplicateChunkIndex nearDuplicateChunkIndex) {
         this.ocrService = ocrService;
         this.weaviateService = weaviateService;
         this.geminiService = geminiService;
+        this.templateRegionCache = templateRegionCache;
+        this.nearDuplicateImageIndex = nearDuplicateImageIndex;
+        this.ingestionScheduler = ingestionScheduler;
+        this.uploadSpooler = uploadSpooler;
+        this.documentRegistry = documentRegistry;
+        this.chunkerFactory = chunkerFactory;
+        this.chunkStoreWriter = chunkStoreWriter;
+        this.nearDuplicateChunkIndex = nearDuplicateChunkIndex;
     }
 
     /**
@@ -47,30 +66,16 @@ public class DocumentProcessingService {
         try {
             logger.info("📝 Attempting basic text extraction from: {}", file.getOriginalFilename());
             
-            // Create temp file
-            java.io.File tempFile = java.io.File.createTempFile("text_extract_", ".pdf");
-            file.transferTo(tempFile);
+            // Read the PDF text layer page by page, straight from the upload
+            StringBuilder extractedText = new StringBuilder();
+            ocrService.streamTextLayerFromPDF(file, extractedText::append);
             
-            try {
-                // Use PDFBox to extract text directly
-                org.apache.pdfbox.pdmodel.PDDocument document = org.apache.pdfbox.Loader.loadPDF(tempFile);
-                org.apache.pdfbox.text.PDFTextStripper textStripper = new org.apache.pdfbox.text.PDFTextStripper();
-                String extractedText = textStripper.getText(document);
-                document.close();
-                
-                if (extractedText != null && !extractedText.trim().isEmpty()) {
-                    logger.info("✅ Basic text extraction successful: {} characters", extractedText.length());
-                    return extractedText.trim();
-                } else {
-                    logger.warn("⚠️ No text found - PDF may contain only images");
-                    return "";
-                }
-                
-            } finally {
-                // Clean up temp file
-                if (tempFile.exists()) {
-                    tempFile.delete();
-                }
+            if (!extractedText.toString().isBlank()) {
+                logger.info("✅ Basic text extraction successful: {} characters", extractedText.length());
+                return extractedText.toString().trim();
+            } else {
+                logger.warn("⚠️ No text found - PDF may contain only images");
+                return "";
             }
             
         } catch (Exception e) {
@@ -106,29 +111,100 @@ public class DocumentProcessingService {
      * Process uploaded PDF documents
      */
     public UploadResponse processDocuments(List<MultipartFile> files) {
+        return processDocuments(files, IngestionProgressListener.NONE);
+    }
+
+    /**
+     * Process uploaded documents concurrently on the ingestion pool, reporting pipeline progress to the listener.
+     * A file that fails is reported in its own result entry and does not affect the others.
+     */
+    public UploadResponse processDocuments(List<MultipartFile> files, IngestionProgressListener listener) {
+        return processDocuments(files, listener, false);
+    }
+
+    /**
+     * Process uploaded documents. Files whose bytes were ingested before resolve to the existing
+     * document without OCR, unless replace is set, in which case the stored document is re-ingested.
+     */
+    public UploadResponse processDocuments(List<MultipartFile> files, IngestionProgressListener listener, boolean replace) {
+        return processDocuments(files, listener, replace, TenantIdentity.ANONYMOUS);
+    }
+
+    /**
+     * Process a tenant's uploaded documents; OCR results are only reused between images of the same tenant
+     */
+    public UploadResponse processDocuments(List<MultipartFile> files, IngestionProgressListener listener, boolean replace,
+                                           String tenant) {
         logger.info("📁 Processing {} document(s)", files.size());
         
-        List<UploadResponse.DocumentInfo> processedDocs = new ArrayList<>();
-        
+        List<FutureTask<UploadResponse.DocumentInfo>> tasks = new ArrayList<>();
         for (MultipartFile file : files) {
+            tasks.add(new FutureTask<>(() -> processFile(file, listener, replace, tenant)));
+        }
+        
+        // Queue every file but the first under the tenant, so they take its fair share and count against
+        // its in-flight limit; a full queue just leaves the file for this thread
+        for (int i = 1; i < tasks.size(); i++) {
             try {
-                UploadResponse.DocumentInfo docInfo = processSingleDocument(file);
-                processedDocs.add(docInfo);
-                
-            } catch (Exception e) {
-                logger.error("❌ Failed to process {}: {}", file.getOriginalFilename(), e.getMessage());
-                throw new RuntimeException("Failed to process " + file.getOriginalFilename() + ": " + e.getMessage());
+                ingestionScheduler.submit(tenant, 0, tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                logger.debug("Ingestion queue full, processing {} inline", files.get(i).getOriginalFilename());
             }
         }
         
-        return new UploadResponse(
-            String.format("Successfully processed %d document(s)", processedDocs.size()),
-            processedDocs,
-            processedDocs.size()
-        );
+        // Run every file not dispatched yet on this thread, so waiting never needs a free pool thread
+        for (FutureTask<UploadResponse.DocumentInfo> task : tasks) {
+            ingestionScheduler.withdraw(tenant, task);
+            task.run();
+        }
+        
+        List<UploadResponse.DocumentInfo> results = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(awaitResult(tasks.get(i), files.get(i).getOriginalFilename()));
+        }
+        
+        int failed = (int) results.stream().filter(UploadResponse.DocumentInfo::isFailed).count();
+        int duplicates = (int) results.stream().filter(UploadResponse.DocumentInfo::isDuplicate).count();
+        String message = failed == 0
+            ? String.format("Successfully processed %d document(s)", results.size())
+            : String.format("Processed %d of %d document(s), %d failed", results.size() - failed, results.size(), failed);
+        if (duplicates > 0) {
+            message += String.format(", %d already ingested", duplicates);
+        }
+        
+        UploadResponse response = new UploadResponse(message, results, results.size());
+        response.setFailedDocuments(failed);
+        response.setDuplicateDocuments(duplicates);
+        return response;
+    }
+
+    private UploadResponse.DocumentInfo processFile(MultipartFile file, IngestionProgressListener listener, boolean replace,
+                                                    String tenant) {
+        try {
+            UploadResponse.DocumentInfo docInfo = processSingleDocument(file, listener, replace, tenant);
+            listener.onDocumentCompleted(file.getOriginalFilename());
+            return docInfo;
+            
+        } catch (Exception e) {
+            listener.onDocumentFailed(file.getOriginalFilename(), e.getMessage());
+            logger.error("❌ Failed to process {}: {}", file.getOriginalFilename(), e.getMessage());
+            return UploadResponse.DocumentInfo.failed(file.getOriginalFilename(), e.getMessage());
+        }
     }
 
-    private UploadResponse.DocumentInfo processSingleDocument(MultipartFile file) throws Exception {
+    private UploadResponse.DocumentInfo awaitResult(FutureTask<UploadResponse.DocumentInfo> task, String filename) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return UploadResponse.DocumentInfo.failed(filename, "Processing was interrupted");
+        } catch (ExecutionException e) {
+            return UploadResponse.DocumentInfo.failed(filename, e.getCause().getMessage());
+        }
+    }
+
+    private UploadResponse.DocumentInfo processSingleDocument(MultipartFile file, IngestionProgressListener listener,
+                                                              boolean replace, String tenant) throws Exception {
         String filename = file.getOriginalFilename();
         logger.info("📄 Processing document: {}", filename);
         
@@ -147,42 +223,140 @@ public class DocumentProcessingService {
             throw new IllegalArgumentException("Unsupported file type: " + filename + ". Supported formats: PDF, JPG, JPEG, PNG, BMP, TIFF");
         }
         
-        // Extract text based on file type
-        String extractedText;
-        if (isPDF) {
-            logger.info("📄 Processing PDF document: {}", filename);
-            extractedText = ocrService.extractTextFromPDF(file);
-        } else {
-            logger.info("🖼️ Processing image document: {}", filename);
-            extractedText = ocrService.extractTextFromImage(file);
-        }
-        
-        if (extractedText == null || extractedText.trim().isEmpty()) {
-            throw new RuntimeException("No text could be extracted from: " + filename);
+        // Identify the document by the hash of its bytes before any OCR
+        SpooledUpload upload = uploadSpooler.spool(file);
+        String documentId = upload.getContentHash();
+        documentRegistry.acquire(documentId);
+        try {
+            DocumentRegistry.Entry existing = documentRegistry.find(documentId);
+            if (existing != null && !replace) {
+                documentRegistry.recordDuplicate(existing);
+                logger.info("♻️ {} was already ingested as {} ({}), skipping OCR", filename, documentId, existing.filename());
+                return UploadResponse.DocumentInfo.duplicate(filename, documentId, documentRegistry.loadContent(documentId),
+                    existing.chunks(), existing.textLength());
+            }
+            if (existing != null) {
+                logger.info("🔁 Replacing stored document {} ({})", documentId, existing.filename());
+                // Re-ingested chunks get the same object ids, so the old ones must go first.
+                // Unregister with them: if ingestion fails, a later upload must not be
+                // answered as a duplicate of a document that is no longer stored.
+                // Out of the index first, so no new chunk links to what is being deleted
+                nearDuplicateChunkIndex.removeDocument(documentId);
+                weaviateService.deleteDocument(documentId);
+                documentRegistry.remove(documentId);
+                documentRegistry.recordReplaced();
+            }
+            
+            UploadResponse.DocumentInfo docInfo = ingestDocument(upload, documentId, isPDF, listener, tenant);
+            documentRegistry.register(documentId, filename, docInfo.getChunksCreated(), docInfo.getContent());
+            return docInfo;
+        } finally {
+            documentRegistry.release(documentId);
+            if (upload != file) {
+                upload.close();
+            }
         }
+    }
+
+    private UploadResponse.DocumentInfo ingestDocument(SpooledUpload file, String documentId, boolean isPDF,
+                                                       IngestionProgressListener listener, String tenant) throws Exception {
+        String filename = file.getOriginalFilename();
         
-        // Split into chunks
-        List<String> chunks = ocrService.splitTextIntoChunks(extractedText, chunkSize, chunkOverlap);
-        
-        // Filter chunks by minimum length
-        chunks = chunks.stream()
-                .filter(chunk -> chunk.length() >= minChunkLength)
-                .collect(Collectors.toList());
+        // Extract text based on file type, chunking each page as soon as it is available.
+        // Finished chunks go to the vector store in batches while OCR continues; chunks that
+        // nearly repeat one of the tenant's stored chunks (boilerplate, footers) are stored for
+        // this document as links to that chunk, without being embedded.
+        ChunkStoreWriter.Stream store = chunkStoreWriter.open(filename, documentId, listener);
+        // Pages and word boxes, so each chunk is stored with the page and region it was read from
+        DocumentLayout layout = new DocumentLayout();
+        AtomicInteger chunkCount = new AtomicInteger();
+        AtomicInteger linkedCount = new AtomicInteger();
+        TextChunker chunker = chunkerFactory.open(chunk -> {
+            if (chunk.length() >= minChunkLength) {
+                listener.onChunkCreated(filename, chunkCount.incrementAndGet());
+                WeaviateDocument document = new WeaviateDocument(chunk.toString(), filename, documentId);
+                document.setProvenance(layout.locate(chunk.start(), chunk.end()));
+                NearDuplicateChunkIndex.Match duplicate = nearDuplicateChunkIndex.checkAndAdd(tenant, chunk, documentId,
+                    weaviateService.objectId(document));
+                if (duplicate != null) {
+                    document.setDuplicateOf(duplicate.objectId());
+                    document.setDuplicateOfDocument(duplicate.documentId());
+                    linkedCount.incrementAndGet();
+                    listener.onChunkLinked(filename, duplicate.documentId());
+                }
+                store.accept(document);
+            }
+        });
         
-        if (chunks.isEmpty()) {
-            throw new RuntimeException("No valid text chunks could be created from: " + filename);
+        int storedChunks;
+        try {
+            listener.onStageStarted(filename, "ocr");
+            if (isPDF) {
+                logger.info("📄 Processing PDF document: {}", filename);
+                ocrService.extractPagesFromPDF(file, page -> {
+                    if (chunker.getCharactersSeen() > 0) {
+                        chunker.appendPageBreak();
+                    }
+                    appendPage(chunker, layout, page);
+                }, listener);
+            } else {
+                logger.info("🖼️ Processing image document: {}", filename);
+                appendPage(chunker, layout, ocrService.extractPageFromImage(file, tenant));
+            }
+            chunker.finish();
+            
+            if (chunker.getText().length() == 0) {
+                throw new RuntimeException("No text could be extracted from: " + filename);
+            }
+            
+            logger.info("Created {} text chunks from {} characters", chunkCount.get(), chunker.getCharactersSeen());
+            
+            if (chunkCount.get() == 0) {
+                throw new RuntimeException("No valid text chunks could be created from: " + filename);
+            }
+            
+            // Wait for the batches still being written to Weaviate
+            listener.onStageStarted(filename, "storing");
+            storedChunks = store.finish();
+        } catch (Exception e) {
+            // Do not leave a partly indexed document behind. A batch that failed partway may
+            // have stored some of its objects, so delete even when none is counted as stored.
+            nearDuplicateChunkIndex.removeDocument(documentId);
+            store.abort();
+            weaviateService.deleteDocument(documentId);
+            throw e;
         }
         
-        // Store in Weaviate
-        int storedChunks = weaviateService.storeDocumentChunks(chunks, filename);
-        
         if (storedChunks == 0) {
             throw new RuntimeException("Failed to store any chunks for: " + filename);
         }
         
+        if (linkedCount.get() > 0) {
+            logger.info("🔗 Stored {} near-duplicate chunk(s) of {} as links instead of embedding them", linkedCount.get(), filename);
+        }
         logger.info("✅ Successfully processed {}: {} chunks stored", filename, storedChunks);
         
-        return new UploadResponse.DocumentInfo(filename, extractedText, storedChunks, extractedText.length());
+        String content = chunker.getText().toString();
+        UploadResponse.DocumentInfo docInfo = new UploadResponse.DocumentInfo(filename, content, storedChunks, content.length());
+        docInfo.setDocumentId(documentId);
+        return docInfo;
+    }
+
+    /**
+     * Append a page to the chunker, recording where its text starts in the document text first:
+     * chunks completed by this append are located while it runs
+     */
+    private void appendPage(TextChunker chunker, DocumentLayout layout, OcrPage page) {
+        long seen = chunker.getCharactersSeen();
+        // Leading whitespace of the document is not kept, so the first page may start before offset 0
+        int leading = 0;
+        if (seen == 0) {
+            while (leading < page.text().length() && page.text().charAt(leading) <= ' ') {
+                leading++;
+            }
+        }
+        layout.addPage(page, (int) seen - leading);
+        chunker.append(page.text());
     }
 
     /**
@@ -275,6 +449,10 @@ public class DocumentProcessingService {
      */
     public Map<String, Object> clearAllDocuments() {
         boolean success = weaviateService.clearAllDocuments();
+        if (success) {
+            documentRegistry.clear();
+            nearDuplicateChunkIndex.clear();
+        }
         
         if (success) {
             logger.info("✅ All documents cleared successfully");
@@ -311,6 +489,21 @@ public class DocumentProcessingService {
         return status;
     }
     
+    /**
+     * Processing statistics (caches, queues) for monitoring
+     */
+    public Map<String, Object> getProcessingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ocr_templates", templateRegionCache.getStats());
+        stats.put("image_dedup", nearDuplicateImageIndex.getStats());
+        stats.put("documents", documentRegistry.getStats());
+        stats.put("chunking", chunkerFactory.getStats());
+        stats.put("chunk_store", chunkStoreWriter.getStats());
+        stats.put("chunk_dedup", nearDuplicateChunkIndex.getStats());
+        stats.put("vector_store", weaviateService.getStats());
+        return stats;
+    }
+    
     /**
      * Generate AI response for given query and context
      */
@@ -0,0 +1,226 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed registry of ingested documents.
+ *
+ * A document is identified by the SHA-256 of its bytes, which is also its document id in
+ * the vector store. Re-uploads are resolved against the registry before any OCR. Entries
+ * are kept in an append-only JSON lines log so they survive restarts; the extracted text
+ * of each document is kept next to it so a duplicate upload can still return its content.
+ */
+@Component
+public class DocumentRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentRegistry.class);
+
+    private static final String LOG_FILE = "documents.jsonl";
+
+    @Value("${ocr.temp.directory}")
+    private String tempDirectory;
+
+    @Value("${ingestion.registry.enabled:true}")
+    private boolean enabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> inProgress = new ConcurrentHashMap<>();
+
+    private final AtomicLong duplicatesAvoided = new AtomicLong();
+    private final AtomicLong chunksAvoided = new AtomicLong();
+    private final AtomicLong replaced = new AtomicLong();
+
+    /**
+     * Registered document, or in the log a marker that it was removed
+     */
+    public record Entry(String documentId, String filename, int chunks, int textLength, Instant ingestedAt,
+                        @JsonInclude(JsonInclude.Include.NON_DEFAULT) boolean removed) {
+    }
+
+    @PostConstruct
+    void load() {
+        Path log = registryDirectory().resolve(LOG_FILE);
+        if (!enabled || !Files.exists(log)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    Entry entry = objectMapper.readValue(line, Entry.class);
+                    if (entry.removed()) {
+                        entries.remove(entry.documentId());
+                    } else {
+                        entries.put(entry.documentId(), entry);
+                    }
+                } catch (IOException e) {
+                    // Torn last line from a crash mid-write
+                    logger.debug("Skipping unreadable registry line: {}", e.getMessage());
+                }
+            }
+            logger.info("📚 Document registry loaded: {} document(s)", entries.size());
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to load document registry: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Entry find(String documentId) {
+        return enabled ? entries.get(documentId) : null;
+    }
+
+    /**
+     * Extracted text of a registered document, or null when it is not available
+     */
+    public String loadContent(String documentId) {
+        try {
+            Path file = registryDirectory().resolve(documentId + ".txt");
+            return Files.exists(file) ? Files.readString(file) : null;
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to read registered text of {}: {}", documentId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wait until no other upload of the same bytes is being ingested, then claim the document.
+     * Must be paired with {@link #release(String)}.
+     */
+    public void acquire(String documentId) {
+        CompletableFuture<Void> claim = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<Void> existing = inProgress.putIfAbsent(documentId, claim);
+            if (existing == null) {
+                return;
+            }
+            existing.join();
+        }
+    }
+
+    public void release(String documentId) {
+        CompletableFuture<Void> claim = inProgress.remove(documentId);
+        if (claim != null) {
+            claim.complete(null);
+        }
+    }
+
+    /**
+     * Count a re-upload that was resolved to an existing document
+     */
+    public void recordDuplicate(Entry entry) {
+        duplicatesAvoided.incrementAndGet();
+        chunksAvoided.addAndGet(entry.chunks());
+    }
+
+    public void recordReplaced() {
+        replaced.incrementAndGet();
+    }
+
+    /**
+     * Register an ingested document and its extracted text
+     */
+    public void register(String documentId, String filename, int chunks, String content) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = new Entry(documentId, filename, chunks, content.length(), Instant.now(), false);
+        try {
+            Files.createDirectories(registryDirectory());
+            Files.writeString(registryDirectory().resolve(documentId + ".txt"), content);
+            append(entry);
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to register document {}: {}", filename, e.getMessage());
+        }
+        entries.put(documentId, entry);
+    }
+
+    /**
+     * Forget a document whose chunks were deleted, so the next upload of its bytes is ingested
+     * again instead of being answered as a duplicate of content that no longer exists
+     */
+    public void remove(String documentId) {
+        if (!enabled || entries.remove(documentId) == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(registryDirectory().resolve(documentId + ".txt"));
+            append(new Entry(documentId, null, 0, 0, Instant.now(), true));
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to unregister document {}: {}", documentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Forget every registered document, e.g. after the vector store was cleared
+     */
+    public synchronized void clear() {
+        entries.clear();
+        if (!Files.isDirectory(registryDirectory())) {
+            return;
+        }
+        try {
+            Path log = registryDirectory().resolve(LOG_FILE);
+            if (Files.exists(log)) {
+                Files.write(log, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            try (var files = Files.newDirectoryStream(registryDirectory(), "*.txt")) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to clear document registry: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "enabled", enabled,
+            "documents", entries.size(),
+            "duplicates_avoided", duplicatesAvoided.get(),
+            "chunks_avoided", chunksAvoided.get(),
+            "replaced", replaced.get()
+        );
+    }
+
+    private synchronized void append(Entry entry) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(registryDirectory().resolve(LOG_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.write('\n');
+        }
+    }
+
+    private Path registryDirectory() {
+        return Paths.get(tempDirectory, "registry");
+    }
+}
@@ -0,0 +1,213 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Weighted fair queuing of ingestion jobs across tenants.
+ *
+ * Jobs wait in a queue per tenant and are handed to the ingestion executor only when a
+ * worker is free. The per-file work of a multi-file job is queued here too, under the
+ * job's tenant, so it counts against that tenant's share and in-flight limit; nothing
+ * else runs on the ingestion executor. Each job gets a virtual finish tag of start + cost / weight, where cost
+ * is the estimated OCR megapixels, and the eligible job with the smallest tag runs next.
+ * A tenant pushing a backlog therefore only gets its weighted share of OCR capacity, and
+ * never more than max-in-flight jobs at once. Configured weights only apply to tenants
+ * derived from an API key (see {@link TenantIdentity}). A tenant's queue is dropped once it
+ * has nothing queued or running, so the state stays bounded however many tenant ids
+ * clients send.
+ */
+@Component
+public class FairIngestionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairIngestionScheduler.class);
+
+    // Jobs that could not be priced still advance their tenant's virtual time
+    private static final double MIN_COST = 1.0;
+
+    private final ThreadPoolTaskExecutor ingestionExecutor;
+
+    @Value("${ingestion.tenants.weights:}")
+    private String weightsSpec;
+
+    @Value("${ingestion.tenants.default-weight:1}")
+    private double defaultWeight;
+
+    @Value("${ingestion.tenants.max-in-flight:2}")
+    private int maxInFlightPerTenant;
+
+    @Value("${ingestion.executor.queue-capacity:50}")
+    private int queueCapacity;
+
+    // All state below is guarded by this
+    private final Map<String, TenantQueue> tenants = new LinkedHashMap<>();
+    private Map<String, Double> weights;
+    private double virtualTime;
+    private int inFlight;
+    private int queued;
+
+    @Autowired
+    public FairIngestionScheduler(@Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor) {
+        this.ingestionExecutor = ingestionExecutor;
+    }
+
+    /**
+     * Queue a job for a tenant
+     *
+     * @throws RejectedExecutionException when the ingestion queue is full
+     */
+    public synchronized void submit(String tenant, double cost, Runnable job) {
+        if (queued >= queueCapacity) {
+            throw new RejectedExecutionException("Ingestion queue is full");
+        }
+
+        TenantQueue queue = tenants.computeIfAbsent(tenant, name -> new TenantQueue(name, weightOf(name)));
+        double start = Math.max(virtualTime, queue.lastFinish);
+        double finish = start + Math.max(cost, MIN_COST) / queue.weight;
+        queue.lastFinish = finish;
+        queue.pending.addLast(new PendingJob(job, start, finish, System.nanoTime()));
+        queued++;
+
+        dispatch();
+    }
+
+    /**
+     * Take a job back out of the queue, e.g. when the submitting thread runs it itself
+     *
+     * @return false when the job was already dispatched or never queued
+     */
+    public synchronized boolean withdraw(String tenant, Runnable job) {
+        TenantQueue queue = tenants.get(tenant);
+        if (queue == null || !queue.pending.removeIf(pending -> pending.job == job)) {
+            return false;
+        }
+        queued--;
+        if (queue.inFlight == 0 && queue.pending.isEmpty()) {
+            tenants.remove(queue.name);
+        }
+        return true;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        tenants.forEach((name, queue) -> {
+            Map<String, Object> tenantStats = new LinkedHashMap<>();
+            tenantStats.put("weight", queue.weight);
+            tenantStats.put("queued", queue.pending.size());
+            tenantStats.put("in_flight", queue.inFlight);
+            tenantStats.put("dispatched", queue.dispatched);
+            tenantStats.put("avg_wait_ms", queue.dispatched > 0 ? queue.totalWaitNanos / queue.dispatched / 1_000_000 : 0);
+            tenantStats.put("max_wait_ms", queue.maxWaitNanos / 1_000_000);
+            stats.put(name, tenantStats);
+        });
+        return stats;
+    }
+
+    private void dispatch() {
+        int workers = ingestionExecutor.getMaxPoolSize();
+        while (inFlight < workers) {
+            TenantQueue next = null;
+            for (TenantQueue queue : tenants.values()) {
+                if (queue.pending.isEmpty() || queue.inFlight >= maxInFlightPerTenant) {
+                    continue;
+                }
+                if (next == null || queue.pending.peekFirst().finish < next.pending.peekFirst().finish) {
+                    next = queue;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+
+            PendingJob pending = next.pending.pollFirst();
+            TenantQueue tenantQueue = next;
+            try {
+                ingestionExecutor.execute(() -> {
+                    try {
+                        pending.job.run();
+                    } finally {
+                        completed(tenantQueue);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Only when shutting down: no more jobs than workers are in flight, and the executor's
+                // queue holds one handed over while its worker is still finishing the previous one
+                next.pending.addFirst(pending);
+                logger.warn("⚠️ Ingestion executor refused a job, {} job(s) waiting", queued);
+                return;
+            }
+
+            long waitNanos = System.nanoTime() - pending.enqueuedNanos;
+            next.inFlight++;
+            next.dispatched++;
+            next.totalWaitNanos += waitNanos;
+            next.maxWaitNanos = Math.max(next.maxWaitNanos, waitNanos);
+            inFlight++;
+            queued--;
+            virtualTime = Math.max(virtualTime, pending.start);
+        }
+    }
+
+    private synchronized void completed(TenantQueue queue) {
+        queue.inFlight--;
+        inFlight--;
+        if (queue.inFlight == 0 && queue.pending.isEmpty()) {
+            // An idle tenant starts from the current virtual time anyway, so nothing is lost
+            tenants.remove(queue.name);
+        }
+        dispatch();
+    }
+
+    private double weightOf(String tenant) {
+        if (weights == null) {
+            weights = new LinkedHashMap<>();
+            if (weightsSpec != null && !weightsSpec.isBlank()) {
+                for (String entry : weightsSpec.split(",")) {
+                    String[] parts = entry.trim().split(":");
+                    if (parts.length != 2) {
+                        continue;
+                    }
+                    String name = parts[0].trim();
+                    if (TenantIdentity.isKeyTenant(name)) {
+                        weights.put(name, Double.parseDouble(parts[1].trim()));
+                    } else {
+                        logger.warn("⚠️ Ignoring weight for {}: weights apply to API key tenants (key-...) only", name);
+                    }
+                }
+            }
+        }
+        // A tenant named in a header can be claimed by anyone, so it never gets a configured weight
+        double weight = TenantIdentity.isKeyTenant(tenant) ? weights.getOrDefault(tenant, defaultWeight) : defaultWeight;
+        return Math.max(weight, 0.01);
+    }
+
+    private static class TenantQueue {
+        final String name;
+        final double weight;
+        final Deque<PendingJob> pending = new ArrayDeque<>();
+        double lastFinish;
+        int inFlight;
+        long dispatched;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        TenantQueue(String name, double weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    private record PendingJob(Runnable job, double start, double finish, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Push-based text chunker.
+ *
+ * Text is appended piece by piece (typically one page at a time) and every
+ * chunk is handed to the consumer as soon as the text following it is known.
+ * The chunk boundaries are identical to splitting the whole, trimmed text in one go.
+ *
+ * Chunks are cut as offsets into one backing text: boundaries are searched in place
+ * and a chunk is a {@link TextSpan} that is only copied when it is materialized. The String-consumer variant copies each chunk as it is emitted
+ * and drops consumed text, so only the current window is kept in memory; the span variants
+ * keep the whole text and never copy.
+ */
+public class IncrementalChunker implements TextChunker {
+
+    /** Chunks of this length or shorter are dropped, except for a text that fits in a single chunk */
+    private static final int MIN_EMIT_LENGTH = 30;
+
+    private final int chunkSize;
+    private final int overlap;
+    private final Consumer<TextSpan> spanConsumer;
+
+    // Appended text, or null when chunking a fixed text
+    private final StringBuilder buffer;
+    // Whether consumed text is dropped from the buffer
+    private final boolean compacting;
+    private final CharSequence text;
+
+    // Window and boundary state, as offsets into text
+    private int textEnd;
+    private int windowStart;
+
+    private boolean started;
+    private boolean finished;
+    private int windowsCut;
+    private int chunksEmitted;
+    private long charactersSeen;
+
+    public IncrementalChunker(int chunkSize, int overlap, Consumer<String> chunkConsumer) {
+        this(chunkSize, overlap, new StringBuilder(), true, span -> chunkConsumer.accept(span.toString()));
+    }
+
+    private IncrementalChunker(int chunkSize, int overlap, CharSequence text, boolean compacting,
+                               Consumer<TextSpan> spanConsumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+        this.spanConsumer = spanConsumer;
+        this.buffer = text instanceof StringBuilder builder ? builder : null;
+        this.compacting = compacting;
+        this.text = text;
+        this.textEnd = text.length();
+    }
+
+    /**
+     * Chunker that keeps all appended text and emits spans over it; {@link #getText()} is the trimmed text
+     */
+    public static IncrementalChunker retaining(int chunkSize, int overlap, Consumer<TextSpan> spanConsumer) {
+        return new IncrementalChunker(chunkSize, overlap, new StringBuilder(), false, spanConsumer);
+    }
+
+    /**
+     * Split a whole text into chunk spans over it, without copying any of it
+     */
+    public static List<TextSpan> split(CharSequence text, int chunkSize, int overlap) {
+        List<TextSpan> spans = new ArrayList<>();
+        IncrementalChunker chunker = new IncrementalChunker(chunkSize, overlap, text, false, spans::add);
+        while (chunker.windowStart < text.length() && text.charAt(chunker.windowStart) <= ' ') {
+            chunker.windowStart++;
+        }
+        chunker.started = true;
+        chunker.charactersSeen = text.length() - chunker.windowStart;
+        chunker.finish();
+        return spans;
+    }
+
+    @Override
+    public void append(CharSequence piece) {
+        if (finished) {
+            throw new IllegalStateException("Chunker already finished");
+        }
+        if (buffer == null) {
+            throw new IllegalStateException("Cannot append to a fixed text");
+        }
+        if (piece == null || piece.length() == 0) {
+            return;
+        }
+
+        int from = 0;
+        if (!started) {
+            // Leading whitespace of the whole text is trimmed, like String.trim()
+            while (from < piece.length() && piece.charAt(from) <= ' ') {
+                from++;
+            }
+            if (from == piece.length()) {
+                return;
+            }
+            started = true;
+        }
+
+        buffer.append(piece, from, piece.length());
+        textEnd = buffer.length();
+        charactersSeen += piece.length() - from;
+
+        // A window can only be cut once non-whitespace text exists beyond it,
+        // otherwise trailing whitespace would change where the text ends
+        while (lastSignificantIndex() - windowStart >= chunkSize) {
+            cutWindow(true);
+        }
+
+        if (compacting && windowStart > 0 && windowStart >= buffer.length() / 2) {
+            compact();
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+
+        textEnd = lastSignificantIndex() + 1;
+        if (buffer != null) {
+            buffer.setLength(textEnd);
+        }
+        if (textEnd == windowStart) {
+            return;
+        }
+
+        if (windowsCut == 0 && textEnd - windowStart <= chunkSize) {
+            // Short texts are kept as a single chunk regardless of length
+            emit(windowStart, textEnd);
+            windowStart = textEnd;
+            return;
+        }
+
+        while (textEnd > windowStart) {
+            cutWindow(textEnd - windowStart > chunkSize);
+        }
+    }
+
+    /**
+     * Only available from retaining chunkers
+     */
+    @Override
+    public CharSequence getText() {
+        if (compacting) {
+            throw new IllegalStateException("Text is not retained by this chunker");
+        }
+        return text;
+    }
+
+    public int getChunksEmitted() {
+        return chunksEmitted;
+    }
+
+    @Override
+    public long getCharactersSeen() {
+        return charactersSeen;
+    }
+
+    private void cutWindow(boolean moreTextFollows) {
+        int end = Math.min(windowStart + chunkSize, textEnd);
+
+        // Try to break at sentence or word boundary
+        if (moreTextFollows) {
+            int boundary = findBoundary(end);
+            if (boundary >= 0) {
+                end = boundary;
+            }
+        }
+
+        int start = windowStart;
+        int trimmedEnd = end;
+        while (start < trimmedEnd && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (trimmedEnd > start && text.charAt(trimmedEnd - 1) <= ' ') {
+            trimmedEnd--;
+        }
+        if (trimmedEnd - start > MIN_EMIT_LENGTH) {
+            emit(start, trimmedEnd);
+        }
+
+        int next = Math.max(chunkSize - overlap, end - windowStart);
+        windowStart = Math.min(windowStart + next, textEnd);
+        windowsCut++;
+    }
+
+    /**
+     * Offset just past the last period, else the offset of the last space, in the second half of the
+     * window ending at the given offset; -1 when neither exists. Only that half can hold a boundary,
+     * so the search stops there instead of scanning back to the window start.
+     */
+    private int findBoundary(int end) {
+        int floor = windowStart + chunkSize / 2;
+        int space = -1;
+        for (int i = end; i > floor; i--) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                return i + 1;
+            }
+            if (c == ' ' && space < 0) {
+                space = i;
+            }
+        }
+        return space;
+    }
+
+    /**
+     * Drop consumed text; the buffer is only shifted once half of it is consumed, so appends stay linear
+     */
+    private void compact() {
+        int shift = windowStart;
+        buffer.delete(0, shift);
+        textEnd -= shift;
+        windowStart = 0;
+    }
+
+    private void emit(int start, int end) {
+        chunksEmitted++;
+        spanConsumer.accept(new TextSpan(text, start, end));
+    }
+
+    private int lastSignificantIndex() {
+        int i = textEnd - 1;
+        while (i >= windowStart && text.charAt(i) <= ' ') {
+            i--;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,357 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.exception.AdmissionRejectedException;
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Runs document ingestion asynchronously on the ingestion executor and tracks job status
+ */
+@Service
+public class IngestionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJobService.class);
+
+    private static final long REPLAY_RETRY_MILLIS = 1000;
+
+    private final DocumentProcessingService documentService;
+    private final ThreadPoolTaskExecutor ingestionExecutor;
+    private final JobEventBroadcaster eventBroadcaster;
+    private final AdmissionControlService admissionControl;
+    private final UploadSpooler uploadSpooler;
+    private final FairIngestionScheduler scheduler;
+    private final IngestionJournal journal;
+
+    @Value("${ingestion.jobs.retention-minutes:60}")
+    private int retentionMinutes;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IngestionJobService(DocumentProcessingService documentService,
+                               @Qualifier("ingestionExecutor") ThreadPoolTaskExecutor ingestionExecutor,
+                               JobEventBroadcaster eventBroadcaster,
+                               AdmissionControlService admissionControl,
+                               UploadSpooler uploadSpooler,
+                               FairIngestionScheduler scheduler,
+                               IngestionJournal journal) {
+        this.documentService = documentService;
+        this.ingestionExecutor = ingestionExecutor;
+        this.eventBroadcaster = eventBroadcaster;
+        this.admissionControl = admissionControl;
+        this.uploadSpooler = uploadSpooler;
+        this.scheduler = scheduler;
+        this.journal = journal;
+    }
+
+    /**
+     * Accept files for ingestion. The uploads are read out of the request before it completes
+     * and wait for their turn on disk.
+     *
+     * @throws AdmissionRejectedException when the upload would exceed the capacity budget
+     * @param tenant client the job is scheduled under, see {@link TenantIdentity}
+     * @param replace re-ingest documents whose bytes were ingested before instead of resolving them
+     * @param view shape the job result is kept and returned in
+     * @throws RejectedExecutionException when the ingestion queue is full
+     */
+    public IngestionJob submit(List<MultipartFile> files, String tenant, boolean replace, UploadResponse.View view) throws IOException {
+        List<SpooledUpload> uploads = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                uploads.add(uploadSpooler.spool(file));
+            }
+        } catch (IOException | RuntimeException e) {
+            uploads.forEach(SpooledUpload::close);
+            throw e;
+        }
+        return submitSpooled(uploads, tenant, replace, view);
+    }
+
+    /**
+     * Accept uploads that were already spooled, e.g. streamed from a raw request body
+     */
+    public IngestionJob submitSpooled(List<SpooledUpload> uploads, String tenant, boolean replace, UploadResponse.View view) {
+        removeExpiredJobs();
+
+        List<String> filenames = new ArrayList<>();
+        uploads.forEach(upload -> filenames.add(upload.getOriginalFilename()));
+        IngestionJob job = new IngestionJob(filenames);
+        job.setTenant(tenant);
+        job.setView(view);
+
+        enqueue(job, uploads, replace, false);
+
+        logger.info("📥 Ingestion job {} queued with {} file(s) for tenant {}", job.getId(), uploads.size(), tenant);
+        return job;
+    }
+
+    /**
+     * Re-queue jobs that were accepted but not finished before the last shutdown.
+     * Runs in the background so a long backlog does not delay startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void replayJournal() {
+        List<IngestionJournal.JournalRecord> pendingJobs = journal.pendingJobs();
+        if (pendingJobs.isEmpty()) {
+            return;
+        }
+
+        Thread replay = new Thread(() -> pendingJobs.forEach(this::replay), "journal-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    private void replay(IngestionJournal.JournalRecord record) {
+        List<String> filenames = record.payloads().stream().map(IngestionJournal.Payload::filename).toList();
+        IngestionJob job = new IngestionJob(record.jobId(), filenames, record.acceptedAt());
+        job.setTenant(record.tenant());
+        job.setView(record.view());
+
+        while (true) {
+            List<SpooledUpload> uploads = new ArrayList<>();
+            try {
+                for (IngestionJournal.Payload payload : record.payloads()) {
+                    try (InputStream in = Files.newInputStream(journal.payloadPath(payload))) {
+                        uploads.add(uploadSpooler.spool(payload.name(), payload.filename(), payload.contentType(), in));
+                    }
+                }
+                enqueue(job, uploads, record.replace(), true);
+                logger.info("🔁 Ingestion job {} replayed from the journal", job.getId());
+                return;
+            } catch (RejectedExecutionException e) {
+                // The queue is full of replayed work; wait for it to drain
+                try {
+                    Thread.sleep(REPLAY_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                uploads.forEach(SpooledUpload::close);
+                logger.error("❌ Failed to replay ingestion job {}: {}", job.getId(), e.getMessage());
+                journal.recordFinished(job.getId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Admit, journal and schedule a job. Recovered jobs are already journaled and always admitted.
+     */
+    private void enqueue(IngestionJob job, List<SpooledUpload> uploads, boolean replace, boolean recovered) {
+        boolean admitted = false;
+        boolean journaled = false;
+        List<SpooledUpload> queued = uploads;
+        try {
+            double cost = 0;
+            for (SpooledUpload upload : uploads) {
+                cost += admissionControl.estimateCost(upload);
+            }
+            job.setEstimatedMegapixels(cost);
+
+            if (recovered) {
+                admissionControl.admitRecovered(cost);
+            } else {
+                admissionControl.admit(cost);
+            }
+            admitted = true;
+
+            if (!recovered) {
+                journal.recordAccepted(job, uploads, replace);
+                journaled = true;
+            }
+
+            queued = moveOffHeap(job, uploads);
+            List<SpooledUpload> jobUploads = queued;
+            jobs.put(job.getId(), job);
+            scheduler.submit(job.getTenant(), cost, () -> runJob(job, jobUploads, replace));
+        } catch (RuntimeException e) {
+            if (admitted) {
+                admissionControl.unreserve(job.getEstimatedMegapixels());
+            }
+            if (journaled) {
+                journal.recordFinished(job.getId());
+            }
+            jobs.remove(job.getId());
+            uploads.forEach(SpooledUpload::close);
+            queued.forEach(SpooledUpload::close);
+            throw e;
+        }
+    }
+
+    /**
+     * Uploads wait in the queue on disk rather than on the heap: read from the journal payloads
+     * when the job is journaled, or from a spill file otherwise
+     */
+    private List<SpooledUpload> moveOffHeap(IngestionJob job, List<SpooledUpload> uploads) {
+        List<Path> payloads = journal.payloadFiles(job.getId());
+        List<SpooledUpload> moved = new ArrayList<>(uploads.size());
+        try {
+            for (int i = 0; i < uploads.size(); i++) {
+                SpooledUpload upload = uploads.get(i);
+                if (!upload.isInMemory()) {
+                    moved.add(upload);
+                } else if (payloads != null) {
+                    // The journal deletes its payloads when the job finishes
+                    moved.add(upload.onFile(payloads.get(i), false));
+                } else {
+                    moved.add(uploadSpooler.spill(upload));
+                }
+            }
+            return moved;
+        } catch (IOException e) {
+            moved.forEach(SpooledUpload::close);
+            throw new UncheckedIOException("Failed to spool uploads of job " + job.getId(), e);
+        }
+    }
+
+    public IngestionJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active_threads", ingestionExecutor.getActiveCount());
+        stats.put("pool_size", ingestionExecutor.getPoolSize());
+        stats.put("queued", ingestionExecutor.getThreadPoolExecutor().getQueue().size());
+        stats.put("tracked_jobs", jobs.size());
+        stats.put("tenants", scheduler.getStats());
+        stats.put("events", eventBroadcaster.getStats());
+        stats.put("admission", admissionControl.getStats());
+        stats.put("upload_spool", uploadSpooler.getStats());
+        stats.put("journal", journal.getStats());
+        return stats;
+    }
+
+    private void runJob(IngestionJob job, List<SpooledUpload> uploads, boolean replace) {
+        job.markRunning();
+        eventBroadcaster.publish(job.getId(), "started", Map.of("job_id", job.getId()));
+        logger.info("⚙️ Ingestion job {} started", job.getId());
+
+        UploadResponse response = null;
+        String error = null;
+        try {
+            response = documentService.processDocuments(new ArrayList<>(uploads),
+                new JobProgressListener(job, eventBroadcaster), replace, job.getTenant());
+            if (response.getTotalDocuments() > 0 && response.getFailedDocuments() == response.getTotalDocuments()) {
+                // Nothing was ingested; partial failures still complete with per-file results
+                error = response.getDocuments().stream()
+                    .map(doc -> doc.getFilename() + ": " + doc.getError())
+                    .collect(Collectors.joining("; "));
+            }
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+        } finally {
+            // Released before the job reports finished, so a finished job holds no spill files or budget
+            admissionControl.release(job.getEstimatedMegapixels());
+            uploads.forEach(SpooledUpload::close);
+            journal.recordFinished(job.getId());
+        }
+
+        if (error == null) {
+            job.markCompleted(response);
+            eventBroadcaster.complete(job.getId(), "completed", job);
+            logger.info("✅ Ingestion job {} completed: {} document(s), {} failed",
+                job.getId(), response.getTotalDocuments(), response.getFailedDocuments());
+        } else {
+            job.markFailed(error);
+            eventBroadcaster.complete(job.getId(), "failed", job);
+            logger.error("❌ Ingestion job {} failed: {}", job.getId(), error);
+        }
+    }
+
+    private void removeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Records pipeline progress on the job and pushes it to event stream subscribers
+     */
+    private static class JobProgressListener implements IngestionProgressListener {
+        private final IngestionJob job;
+        private final JobEventBroadcaster eventBroadcaster;
+
+        JobProgressListener(IngestionJob job, JobEventBroadcaster eventBroadcaster) {
+            this.job = job;
+            this.eventBroadcaster = eventBroadcaster;
+        }
+
+        @Override
+        public void onStageStarted(String filename, String stage) {
+            job.setStage(stage);
+            eventBroadcaster.publish(job.getId(), "stage", Map.of("filename", filename, "stage", stage));
+        }
+
+        @Override
+        public void onPageRendered(String filename, int page, int pageCount) {
+            job.increment("pages_rendered");
+            eventBroadcaster.publish(job.getId(), "page_rendered", pageEvent(filename, page, pageCount));
+        }
+
+        @Override
+        public void onPageOcrd(String filename, int page, int pageCount) {
+            job.increment("pages_ocrd");
+            eventBroadcaster.publish(job.getId(), "page_ocrd", pageEvent(filename, page, pageCount));
+        }
+
+        @Override
+        public void onChunkCreated(String filename, int chunksSoFar) {
+            job.increment("chunks_created");
+            eventBroadcaster.publish(job.getId(), "chunk_created", Map.of("filename", filename, "chunks", chunksSoFar));
+        }
+
+        @Override
+        public void onChunksStored(String filename, int storedChunks) {
+            job.add("chunks_stored", storedChunks);
+            eventBroadcaster.publish(job.getId(), "chunks_stored", Map.of("filename", filename, "chunks", storedChunks));
+        }
+
+        @Override
+        public void onChunkLinked(String filename, String duplicateOfDocumentId) {
+            job.increment("chunks_linked");
+        }
+
+        @Override
+        public void onDocumentCompleted(String filename) {
+            job.increment("documents_completed");
+            eventBroadcaster.publish(job.getId(), "document_completed", Map.of("filename", filename));
+        }
+
+        @Override
+        public void onDocumentFailed(String filename, String error) {
+            job.increment("documents_failed");
+            eventBroadcaster.publish(job.getId(), "document_failed",
+                Map.of("filename", filename, "error", error != null ? error : "unknown error"));
+        }
+
+        private static Map<String, Object> pageEvent(String filename, int page, int pageCount) {
+            return Map.of("filename", filename, "page", page, "page_count", pageCount);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable queue of accepted uploads, so a deploy or crash does not lose work a client was
+ * already told was accepted.
+ *
+ * Accepted jobs are appended to a journal of fixed-size, memory-mapped segment files under
+ * ocr.temp.directory/journal, and their files are kept beside it until the job finishes.
+ * On startup the segments are scanned and jobs without a finished record are handed back
+ * for replay. Sealed segments are compacted in the background: records of jobs still
+ * pending are copied into the active segment and the old segment is deleted.
+ *
+ * Record layout: length (int), CRC32 of the payload (int), JSON payload. A zero length marks
+ * the end of a segment; a torn or corrupt record ends the scan of its segment.
+ */
+@Component
+public class IngestionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    static final String ACCEPTED = "accepted";
+    static final String FINISHED = "finished";
+
+    @Value("${ocr.temp.directory}")
+    private String tempDirectory;
+
+    @Value("${ingestion.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ingestion.journal.segment-size:4MB}")
+    private DataSize segmentSize;
+
+    @Value("${ingestion.journal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${ingestion.journal.compaction-interval-seconds:60}")
+    private long compactionIntervalSeconds;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    // All state below is guarded by this
+    private final Map<String, JournalRecord> pending = new LinkedHashMap<>();
+    private final Map<String, Long> pendingSegment = new LinkedHashMap<>();
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private long activeSequence;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private long appended;
+    private long compactedSegments;
+
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Journal entry for an accepted job, or the finished marker of one
+     */
+    public record JournalRecord(String type, String jobId, String tenant, boolean replace,
+                                Instant acceptedAt, List<Payload> payloads, UploadResponse.View view) {
+    }
+
+    /**
+     * One uploaded file of a journaled job, stored under the journal's payload directory
+     */
+    public record Payload(String name, String filename, String contentType, String file) {
+    }
+
+    @PostConstruct
+    void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(payloadDirectory());
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ingestion journal", e);
+        }
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactQuietly, compactionIntervalSeconds, compactionIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+        closeActiveSegment();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Persist an accepted job and its files. Returns once both are durable.
+     */
+    public void recordAccepted(IngestionJob job, List<SpooledUpload> uploads, boolean replace) {
+        if (!enabled) {
+            return;
+        }
+
+        List<Payload> payloads = new ArrayList<>();
+        try {
+            for (int i = 0; i < uploads.size(); i++) {
+                SpooledUpload upload = uploads.get(i);
+                String file = job.getId() + "-" + i;
+                writePayload(upload, payloadDirectory().resolve(file));
+                payloads.add(new Payload(upload.getName(), upload.getOriginalFilename(), upload.getContentType(), file));
+            }
+
+            JournalRecord record = new JournalRecord(ACCEPTED, job.getId(), job.getTenant(), replace, job.getCreatedAt(), payloads, job.getView());
+            synchronized (this) {
+                append(record);
+                pending.put(job.getId(), record);
+                pendingSegment.put(job.getId(), activeSequence);
+            }
+        } catch (IOException e) {
+            deletePayloads(payloads);
+            throw new UncheckedIOException("Failed to journal ingestion job " + job.getId(), e);
+        }
+    }
+
+    /**
+     * Mark a job as finished, successfully or not, and drop its stored files
+     */
+    public void recordFinished(String jobId) {
+        if (!enabled) {
+            return;
+        }
+
+        JournalRecord record;
+        synchronized (this) {
+            record = pending.remove(jobId);
+            pendingSegment.remove(jobId);
+            if (record == null) {
+                return;
+            }
+            try {
+                append(new JournalRecord(FINISHED, jobId, null, false, null, null, null));
+            } catch (IOException e) {
+                // The job will be replayed after a restart; the document registry resolves it as a duplicate
+                logger.warn("⚠️ Failed to journal completion of job {}: {}", jobId, e.getMessage());
+            }
+        }
+        deletePayloads(record.payloads());
+    }
+
+    /**
+     * Jobs that were accepted but had not finished when the journal was opened or since
+     */
+    public synchronized List<JournalRecord> pendingJobs() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Files holding the uploads of a pending job, in upload order, or null when the job is not journaled
+     */
+    public synchronized List<Path> payloadFiles(String jobId) {
+        JournalRecord record = pending.get(jobId);
+        return record != null ? record.payloads().stream().map(this::payloadPath).toList() : null;
+    }
+
+    public Path payloadPath(Payload payload) {
+        return payloadDirectory().resolve(payload.file());
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.size());
+        stats.put("active_segment", activeSequence);
+        stats.put("pending_jobs", pending.size());
+        stats.put("records_appended", appended);
+        stats.put("segments_compacted", compactedSegments);
+        return stats;
+    }
+
+    /**
+     * Move the records of pending jobs out of sealed segments and delete those segments
+     */
+    synchronized void compact() throws IOException {
+        for (Map.Entry<Long, Path> segment : new ArrayList<>(segments.headMap(activeSequence).entrySet())) {
+            long sequence = segment.getKey();
+            for (Map.Entry<String, Long> job : pendingSegment.entrySet()) {
+                if (job.getValue() == sequence) {
+                    append(pending.get(job.getKey()));
+                    job.setValue(activeSequence);
+                }
+            }
+
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(sequence);
+                compactedSegments++;
+                logger.debug("Compacted journal segment {}", sequence);
+            } catch (IOException e) {
+                // Still mapped on some platforms; retried on the next pass
+                logger.debug("Journal segment {} not deleted yet: {}", sequence, e.getMessage());
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("⚠️ Journal compaction failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Scan all segments, rebuild the pending jobs and continue appending to the last segment
+     */
+    private synchronized void recover() throws IOException {
+        Set<String> finished = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDirectory(), SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.put(sequenceOf(file), file);
+            }
+        }
+
+        int endOfLast = 0;
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                endOfLast = readRecords(buffer, segment.getKey(), finished);
+            }
+        }
+        finished.forEach(jobId -> {
+            pending.remove(jobId);
+            pendingSegment.remove(jobId);
+        });
+
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            activeSequence = segments.lastKey();
+            mapActiveSegment(segments.lastEntry().getValue(), endOfLast);
+        }
+
+        if (!pending.isEmpty()) {
+            logger.info("📒 Ingestion journal has {} unfinished job(s) to replay", pending.size());
+        }
+    }
+
+    private int readRecords(MappedByteBuffer buffer, long sequence, Set<String> finished) {
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc != checksum(payload)) {
+                logger.warn("⚠️ Corrupt record in journal segment {} at offset {}, ignoring the rest", sequence, start);
+                buffer.position(start);
+                break;
+            }
+
+            try {
+                JournalRecord record = objectMapper.readValue(payload, JournalRecord.class);
+                if (ACCEPTED.equals(record.type())) {
+                    pending.put(record.jobId(), record);
+                    pendingSegment.put(record.jobId(), sequence);
+                    finished.remove(record.jobId());
+                } else if (FINISHED.equals(record.type())) {
+                    finished.add(record.jobId());
+                }
+            } catch (IOException e) {
+                logger.warn("⚠️ Unreadable journal record in segment {}: {}", sequence, e.getMessage());
+            }
+        }
+        return buffer.position();
+    }
+
+    private void append(JournalRecord record) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(record);
+        int recordBytes = RECORD_HEADER_BYTES + payload.length;
+        if (recordBytes + RECORD_HEADER_BYTES > segmentSize.toBytes()) {
+            throw new IOException("Journal record of " + recordBytes + " bytes does not fit in a segment");
+        }
+        // Keep room for the zero length that ends the segment
+        if (activeBuffer.remaining() < recordBytes + RECORD_HEADER_BYTES) {
+            openSegment(activeSequence + 1);
+        }
+
+        int start = activeBuffer.position();
+        activeBuffer.putInt(payload.length);
+        activeBuffer.putInt(checksum(payload));
+        activeBuffer.put(payload);
+        if (fsync) {
+            activeBuffer.force(start, recordBytes);
+        }
+        appended++;
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        closeActiveSegment();
+        Path file = journalDirectory().resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        segments.put(sequence, file);
+        activeSequence = sequence;
+        mapActiveSegment(file, 0);
+    }
+
+    private void mapActiveSegment(Path file, int position) throws IOException {
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize.toBytes());
+        // Zero a torn record after the last valid one so it is never read back
+        if (activeBuffer.limit() - position >= RECORD_HEADER_BYTES && activeBuffer.getInt(position) != 0) {
+            long tornEnd = Math.min(activeBuffer.limit(), (long) position + RECORD_HEADER_BYTES + Math.max(0, activeBuffer.getInt(position)));
+            for (int i = position; i < tornEnd; i++) {
+                activeBuffer.put(i, (byte) 0);
+            }
+        }
+        activeBuffer.position(position);
+    }
+
+    private void closeActiveSegment() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            activeBuffer.force();
+            activeChannel.close();
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to close journal segment {}: {}", activeSequence, e.getMessage());
+        }
+        activeChannel = null;
+        activeBuffer = null;
+    }
+
+    private static void writePayload(SpooledUpload upload, Path target) throws IOException {
+        try (InputStream in = upload.getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private void deletePayloads(List<Payload> payloads) {
+        for (Payload payload : payloads) {
+            try {
+                Files.deleteIfExists(payloadPath(payload));
+            } catch (IOException e) {
+                logger.warn("⚠️ Failed to delete journaled file {}: {}", payload.file(), e.getMessage());
+            }
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private Path journalDirectory() {
+        return Paths.get(tempDirectory, "journal");
+    }
+
+    private Path payloadDirectory() {
+        return journalDirectory().resolve("payloads");
+    }
+}
@@ -0,0 +1,34 @@
+package com.emulsify.ocrweaviate.service;
+
+/**
+ * Callbacks raised while a document moves through the ingestion pipeline
+ */
+public interface IngestionProgressListener {
+
+    IngestionProgressListener NONE = new IngestionProgressListener() {
+    };
+
+    default void onStageStarted(String filename, String stage) {
+    }
+
+    default void onPageRendered(String filename, int page, int pageCount) {
+    }
+
+    default void onPageOcrd(String filename, int page, int pageCount) {
+    }
+
+    default void onChunkCreated(String filename, int chunksSoFar) {
+    }
+
+    default void onChunksStored(String filename, int storedChunks) {
+    }
+
+    default void onChunkLinked(String filename, String duplicateOfDocumentId) {
+    }
+
+    default void onDocumentCompleted(String filename) {
+    }
+
+    default void onDocumentFailed(String filename, String error) {
+    }
+}
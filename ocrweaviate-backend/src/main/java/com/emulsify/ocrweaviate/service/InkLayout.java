@@ -0,0 +1,420 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Text blocks of an image region found from its ink, each with a small ink map for
+ * comparing two prints of the same text.
+ *
+ * A region is cut into text lines at blank pixel rows and each line into blocks at wide
+ * blank gaps, so a letterhead splits into its clinic name, address, doctor and date. Every
+ * block is deskewed and scaled to {@link #ROWS} rows of square cells holding its darkness
+ * against the paper. Two blocks are compared window by window, a window being about one
+ * character wide: re-encoding or re-scanning moves a little ink in every window, a different
+ * character changes one window a lot.
+ */
+public final class InkLayout {
+
+    private static final int ROWS = 16;
+    private static final int MAX_COLUMNS = 256;
+    private static final int WINDOW = 8;
+
+    // Images with more blocks than this are not mapped, their layout is never matched
+    private static final int MAX_BLOCKS = 160;
+
+    // Pixels darker than this are ink
+    private static final int INK_THRESHOLD = 128;
+    private static final double PAPER_GRAIN_SIGMAS = 3;
+
+    // Steepest baseline corrected, about one degree
+    private static final double MAX_SLOPE = 0.02;
+
+    // Blank rows within a line (i dots, accents) and specks that are not text
+    private static final int MAX_ROW_GAP = 2;
+    private static final int MIN_BLOCK_INK = 12;
+
+    // A blank run this many line heights wide separates two blocks of one line
+    private static final double BLOCK_GAP = 1.5;
+
+    // Mean cell value of a block's ink map
+    private static final int NORMALIZED_MEAN = 64;
+
+    // Largest difference of the column counts of two blocks of the same text, as a share
+    private static final double ASPECT_TOLERANCE = 0.1;
+
+    /** Distance of blocks or layouts that cannot be the same text */
+    public static final int MAX_DISTANCE = 255;
+
+    /**
+     * One block of text: its bounds in image pixels and its ink map, row by row
+     */
+    public record Block(int x, int y, int width, int height, int columns, byte[] cells) {
+    }
+
+    private InkLayout() {
+    }
+
+    /**
+     * Blocks of a region in reading order, line by line; null when the region holds too many to map
+     */
+    public static List<Block> blocks(BufferedImage image, int x, int y, int width, int height) {
+        BitSet ink = new BitSet(width * height);
+        int[] rowInk = new int[height];
+        int[] row = new int[width];
+        for (int py = 0; py < height; py++) {
+            image.getRGB(x, y + py, width, 1, row, 0, width);
+            for (int px = 0; px < width; px++) {
+                if (luminance(row[px]) < INK_THRESHOLD) {
+                    ink.set(py * width + px);
+                    rowInk[py]++;
+                }
+            }
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        int py = 0;
+        while (py < height) {
+            if (rowInk[py] == 0) {
+                py++;
+                continue;
+            }
+            int top = py;
+            int bottom = py;
+            for (py++; py < height && py - bottom <= MAX_ROW_GAP + 1; py++) {
+                if (rowInk[py] > 0) {
+                    bottom = py;
+                }
+            }
+            if (!addLine(image, ink, width, top, bottom + 1, x, y, blocks)) {
+                return null;
+            }
+            py = bottom + 1;
+        }
+        return blocks;
+    }
+
+    /**
+     * Largest difference of two blocks' ink in any window, 0 to {@link #MAX_DISTANCE}
+     */
+    public static int distance(Block a, Block b) {
+        return distance(a, b, MAX_DISTANCE);
+    }
+
+    /**
+     * Block distance, computed only until it exceeds the limit
+     */
+    public static int distance(Block a, Block b, int limit) {
+        int widest = Math.max(a.columns(), b.columns());
+        if (Math.abs(a.columns() - b.columns()) > Math.max(2, widest * ASPECT_TOLERANCE)) {
+            return MAX_DISTANCE;
+        }
+
+        int distance = 0;
+        for (int start = 0; start < a.columns(); start += WINDOW / 2) {
+            int end = Math.min(a.columns(), start + WINDOW);
+            int best = MAX_DISTANCE;
+            // Columns of the two maps may be out of step by one after rounding, rows by two after framing
+            for (int shift = -1; shift <= 1; shift++) {
+                for (int rowShift = -2; rowShift <= 2; rowShift++) {
+                    best = Math.min(best, windowDifference(a, b, start, end, shift, rowShift));
+                }
+            }
+            distance = Math.max(distance, best);
+            if (distance > limit || end == a.columns()) {
+                break;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Largest block distance of two layouts; {@link #MAX_DISTANCE} when their blocks do not pair up
+     */
+    public static int distance(List<Block> a, List<Block> b) {
+        return distance(a, b, MAX_DISTANCE);
+    }
+
+    /**
+     * Layout distance, computed only until it exceeds the limit
+     */
+    public static int distance(List<Block> a, List<Block> b, int limit) {
+        if (a == null || b == null || a.size() != b.size() || a.isEmpty()) {
+            return MAX_DISTANCE;
+        }
+        int distance = 0;
+        for (int i = 0; i < a.size() && distance <= limit; i++) {
+            distance = Math.max(distance, distance(a.get(i), b.get(i), limit));
+        }
+        return distance;
+    }
+
+    /**
+     * Cut a line into blocks at wide blank column runs
+     *
+     * @return false when the region holds too many blocks
+     */
+    private static boolean addLine(BufferedImage image, BitSet ink, int width, int top, int bottom, int originX, int originY, List<Block> blocks) {
+        int[] columnInk = new int[width];
+        for (int py = top; py < bottom; py++) {
+            for (int px = ink.nextSetBit(py * width); px >= 0 && px < (py + 1) * width; px = ink.nextSetBit(px + 1)) {
+                columnInk[px - py * width]++;
+            }
+        }
+
+        int minGap = (int) Math.max(8, BLOCK_GAP * (bottom - top));
+        int px = 0;
+        while (px < width) {
+            if (columnInk[px] == 0) {
+                px++;
+                continue;
+            }
+            int left = px;
+            int right = px;
+            int inkPixels = 0;
+            while (px < width && px - right < minGap) {
+                if (columnInk[px] > 0) {
+                    right = px;
+                    inkPixels += columnInk[px];
+                }
+                px++;
+            }
+            if (inkPixels < MIN_BLOCK_INK) {
+                continue;
+            }
+            if (blocks.size() == MAX_BLOCKS) {
+                return false;
+            }
+            blocks.add(block(image, ink, width, left, right + 1, top, bottom, originX, originY));
+        }
+        return true;
+    }
+
+    private static Block block(BufferedImage image, BitSet ink, int width, int left, int right, int top, int bottom, int originX, int originY) {
+        // The line's rows may include taller neighbours; fit the block to its own ink
+        int blockTop = bottom;
+        int blockBottom = top;
+        for (int py = top; py < bottom; py++) {
+            int next = ink.nextSetBit(py * width + left);
+            if (next >= 0 && next < py * width + right) {
+                blockTop = Math.min(blockTop, py);
+                blockBottom = py + 1;
+            }
+        }
+
+        int blockWidth = right - left;
+        int blockHeight = blockBottom - blockTop;
+        double[][] darkness = darkness(image, originX + left, originY + blockTop, blockWidth, blockHeight);
+
+        double[] columnSums = new double[blockWidth];
+        double total = 0;
+        for (int py = 0; py < blockHeight; py++) {
+            for (int px = 0; px < blockWidth; px++) {
+                columnSums[px] += darkness[py][px];
+            }
+        }
+        for (double sum : columnSums) {
+            total += sum;
+        }
+        if (total == 0) {
+            return new Block(originX + left, originY + blockTop, blockWidth, blockHeight, 1, new byte[ROWS]);
+        }
+
+        // A page scanned slightly rotated shifts a long block's rows from one end to the other;
+        // the slope between the centres of its two halves undoes that
+        double middle = quantile(columnSums, total, 0.5);
+        double[] halfX = new double[2];
+        double[] halfY = new double[2];
+        double[] halfSum = new double[2];
+        for (int py = 0; py < blockHeight; py++) {
+            for (int px = 0; px < blockWidth; px++) {
+                int half = px + 0.5 < middle ? 0 : 1;
+                halfX[half] += (px + 0.5) * darkness[py][px];
+                halfY[half] += (py + 0.5) * darkness[py][px];
+                halfSum[half] += darkness[py][px];
+            }
+        }
+        double slope = 0;
+        if (halfSum[0] > 0 && halfSum[1] > 0) {
+            double run = halfX[1] / halfSum[1] - halfX[0] / halfSum[0];
+            if (run > 0) {
+                slope = (halfY[1] / halfSum[1] - halfY[0] / halfSum[0]) / run;
+                slope = Math.max(-MAX_SLOPE, Math.min(MAX_SLOPE, slope));
+            }
+        }
+
+        // The map covers the block's darkness, not its thresholded outline, so faint pixels at
+        // the edges (serifs, descenders, a comma) that come and go between prints do not move it:
+        // vertically two standard deviations around the centre, horizontally 1% to 99% of it
+        double mean = 0;
+        for (int py = 0; py < blockHeight; py++) {
+            for (int px = 0; px < blockWidth; px++) {
+                mean += (py + 0.5 - slope * (px + 0.5 - middle)) * darkness[py][px];
+            }
+        }
+        mean /= total;
+        double variance = 0;
+        for (int py = 0; py < blockHeight; py++) {
+            for (int px = 0; px < blockWidth; px++) {
+                double dy = py + 0.5 - slope * (px + 0.5 - middle) - mean;
+                variance += dy * dy * darkness[py][px];
+            }
+        }
+        double spread = Math.max(1, 2 * Math.sqrt(variance / total));
+        double frameTop = mean - spread;
+        double frameHeight = 2 * spread;
+        double frameLeft = quantile(columnSums, total, 0.01);
+        double frameWidth = Math.max(1, quantile(columnSums, total, 0.99) - frameLeft);
+
+        // Every pixel's darkness is spread over the four cells around its centre
+        int columns = (int) Math.max(1, Math.min(MAX_COLUMNS, Math.round(ROWS * frameWidth / frameHeight)));
+        double[] shares = new double[ROWS * columns];
+        for (int py = 0; py < blockHeight; py++) {
+            for (int px = 0; px < blockWidth; px++) {
+                double value = darkness[py][px];
+                if (value == 0) {
+                    continue;
+                }
+                double v = (py + 0.5 - slope * (px + 0.5 - middle) - frameTop) * ROWS / frameHeight - 0.5;
+                double u = (px + 0.5 - frameLeft) * columns / frameWidth - 0.5;
+                int r = (int) Math.floor(v);
+                int c = (int) Math.floor(u);
+                double fv = v - r;
+                double fu = u - c;
+                splat(shares, columns, r, c, value * (1 - fv) * (1 - fu));
+                splat(shares, columns, r, c + 1, value * (1 - fv) * fu);
+                splat(shares, columns, r + 1, c, value * fv * (1 - fu));
+                splat(shares, columns, r + 1, c + 1, value * fv * fu);
+            }
+        }
+        total = 0;
+        for (double share : shares) {
+            total += share;
+        }
+
+        shares = blur(blur(blur(shares, columns), columns), columns);
+
+        // Relative to the block's mean, so strokes printed or thresholded thicker do not count as a change
+        double scale = total == 0 ? 0 : NORMALIZED_MEAN * shares.length / total;
+        byte[] cells = new byte[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            cells[i] = (byte) Math.min(255, Math.round(shares[i] * scale));
+        }
+        return new Block(originX + left, originY + blockTop, blockWidth, blockHeight, columns, cells);
+    }
+
+    /**
+     * Darkness of each pixel against the paper, estimated from the pixels that are not ink.
+     * Unlike a count of thresholded pixels, blur from scanning, scaling or compression moves
+     * darkness around but keeps its sum.
+     */
+    private static double[][] darkness(BufferedImage image, int x, int y, int width, int height) {
+        int[][] luminance = new int[height][width];
+        int[] row = new int[width];
+        long paperSum = 0;
+        long paperSquares = 0;
+        int paperPixels = 0;
+        for (int py = 0; py < height; py++) {
+            image.getRGB(x, y + py, width, 1, row, 0, width);
+            for (int px = 0; px < width; px++) {
+                luminance[py][px] = luminance(row[px]);
+                if (luminance[py][px] >= INK_THRESHOLD) {
+                    paperSum += luminance[py][px];
+                    paperSquares += (long) luminance[py][px] * luminance[py][px];
+                    paperPixels++;
+                }
+            }
+        }
+        double paper = paperPixels == 0 ? 255 : (double) paperSum / paperPixels;
+        double grain = paperPixels == 0 ? 0
+                : Math.sqrt(Math.max(0, (double) paperSquares / paperPixels - paper * paper));
+        // Paper grain and sensor noise would otherwise add a faint floor of darkness everywhere
+        double floor = paper - PAPER_GRAIN_SIGMAS * grain;
+
+        double[][] darkness = new double[height][width];
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                darkness[py][px] = Math.max(0, floor - luminance[py][px]);
+            }
+        }
+        return darkness;
+    }
+
+    /**
+     * Position below which the given share of the darkness lies
+     */
+    private static double quantile(double[] sums, double total, double share) {
+        double seen = 0;
+        for (int i = 0; i < sums.length; i++) {
+            if (seen + sums[i] >= share * total) {
+                return i + (share * total - seen) / sums[i];
+            }
+            seen += sums[i];
+        }
+        return sums.length;
+    }
+
+    private static void splat(double[] shares, int columns, int row, int column, double value) {
+        if (row >= 0 && row < ROWS && column >= 0 && column < columns) {
+            shares[row * columns + column] += value;
+        }
+    }
+
+    /**
+     * 3x3 binomial blur, so ink moved by part of a cell shows up in both cells it touches
+     */
+    private static double[] blur(double[] shares, int columns) {
+        double[] blurred = new double[shares.length];
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < columns; c++) {
+                double sum = 0;
+                double weights = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int rr = r + dr;
+                        int cc = c + dc;
+                        if (rr >= 0 && rr < ROWS && cc >= 0 && cc < columns) {
+                            double weight = (2 - Math.abs(dr)) * (2 - Math.abs(dc));
+                            sum += weight * shares[rr * columns + cc];
+                            weights += weight;
+                        }
+                    }
+                }
+                blurred[r * columns + c] = sum / weights;
+            }
+        }
+        return blurred;
+    }
+
+    /**
+     * Mean difference of the cells of a's columns [start, end) and the matching columns of b
+     */
+    private static int windowDifference(Block a, Block b, int start, int end, int shift, int rowShift) {
+        long sum = 0;
+        int cells = 0;
+        for (int c = start; c < end; c++) {
+            int other = (int) Math.round((double) c * b.columns() / a.columns()) + shift;
+            if (other < 0 || other >= b.columns()) {
+                continue;
+            }
+            for (int r = 0; r < ROWS; r++) {
+                int otherRow = r + rowShift;
+                if (otherRow < 0 || otherRow >= ROWS) {
+                    continue;
+                }
+                sum += Math.abs((a.cells()[r * a.columns() + c] & 0xFF) - (b.cells()[otherRow * b.columns() + other] & 0xFF));
+                cells++;
+            }
+        }
+        return cells == 0 ? MAX_DISTANCE : (int) (sum / cells);
+    }
+
+    private static int luminance(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        return (299 * r + 587 * g + 114 * b) / 1000;
+    }
+}
@@ -0,0 +1,149 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes ingestion job progress to clients over server-sent events
+ */
+@Component
+public class JobEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobEventBroadcaster.class);
+
+    @Value("${ingestion.events.timeout-minutes:10}")
+    private long timeoutMinutes;
+
+    @Value("${ingestion.events.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    void startHeartbeat() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Comment lines keep idle connections open through proxies and client read timeouts
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stopHeartbeat() {
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Open an event stream for a job. The current status is sent first; a finished job
+     * gets its final event and the stream is closed straight away.
+     */
+    public SseEmitter subscribe(IngestionJob job) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        emitters.compute(job.getId(), (id, jobEmitters) -> {
+            List<SseEmitter> subscribed = jobEmitters != null ? jobEmitters : new CopyOnWriteArrayList<>();
+            subscribed.add(emitter);
+            return subscribed;
+        });
+
+        emitter.onCompletion(() -> remove(job.getId(), emitter));
+        emitter.onTimeout(() -> remove(job.getId(), emitter));
+        emitter.onError(error -> remove(job.getId(), emitter));
+
+        send(job.getId(), emitter, "status", job);
+        if (job.isFinished()) {
+            send(job.getId(), emitter, job.getStatus() == IngestionJob.Status.COMPLETED ? "completed" : "failed", job);
+            emitter.complete();
+            remove(job.getId(), emitter);
+        }
+        return emitter;
+    }
+
+    /**
+     * Send an event to every subscriber of a job
+     */
+    public void publish(String jobId, String event, Object data) {
+        List<SseEmitter> jobEmitters = emitters.get(jobId);
+        if (jobEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : jobEmitters) {
+            send(jobId, emitter, event, data);
+        }
+    }
+
+    /**
+     * Send the final event of a job and close its streams
+     */
+    public void complete(String jobId, String event, Object data) {
+        List<SseEmitter> jobEmitters = emitters.remove(jobId);
+        if (jobEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : jobEmitters) {
+            send(jobId, emitter, event, data);
+            emitter.complete();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int subscribers = emitters.values().stream().mapToInt(List::size).sum();
+        return Map.of(
+            "jobs", emitters.size(),
+            "subscribers", subscribers,
+            "events_sent", eventsSent.get()
+        );
+    }
+
+    private void send(String jobId, SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            eventsSent.incrementAndGet();
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("SSE client for job {} went away: {}", jobId, e.getMessage());
+            remove(jobId, emitter);
+        }
+    }
+
+    /**
+     * Forget a closed stream, and the job once it has no streams left
+     */
+    private void remove(String jobId, SseEmitter emitter) {
+        emitters.computeIfPresent(jobId, (id, jobEmitters) -> {
+            jobEmitters.remove(emitter);
+            return jobEmitters.isEmpty() ? null : jobEmitters;
+        });
+    }
+
+    private void sendHeartbeat() {
+        emitters.forEach((jobId, jobEmitters) -> {
+            for (SseEmitter emitter : jobEmitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(jobId, emitter);
+                }
+            }
+        });
+    }
+}
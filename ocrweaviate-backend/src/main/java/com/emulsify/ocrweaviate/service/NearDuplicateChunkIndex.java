@@ -0,0 +1,232 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of stored chunks keyed by MinHash signature, used to avoid embedding near-duplicate chunks again.
+ *
+ * Prescriptions and policy documents repeat boilerplate (disclaimers, pharmacy footers,
+ * safety text) that would otherwise be embedded again for every document. The signature of
+ * a chunk is the minimum of 64 hash functions over its word 3-shingles; the share of equal
+ * positions estimates the Jaccard similarity of two chunks. Signatures are indexed in 16
+ * bands of 4 positions, so a lookup only compares chunks that share a band.
+ *
+ * A near-duplicate is stored as a link to the earlier chunk with its own document, source
+ * and text, but without a vector, so it neither costs an embedding nor crowds search
+ * results (see {@link WeaviateService}). Deleting the earlier document embeds its links
+ * again, so nothing is lost, and chunks are only matched within a tenant.
+ */
+@Component
+public class NearDuplicateChunkIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateChunkIndex.class);
+
+    static final int SIGNATURE_SIZE = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = SIGNATURE_SIZE / BANDS;
+    private static final int SHINGLE_WORDS = 3;
+
+    @Value("${text.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${text.dedup.min-similarity:0.8}")
+    private double minSimilarity;
+
+    @Value("${text.dedup.min-words:8}")
+    private int minWords;
+
+    @Value("${text.dedup.max-entries:50000}")
+    private int maxEntries;
+
+    private final List<Map<Long, List<Entry>>> bands = new ArrayList<>();
+
+    // Insertion order, used to drop the oldest half when the index is full
+    private final Deque<Entry> insertionOrder = new ArrayDeque<>();
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong linked = new AtomicLong();
+    private final AtomicLong charactersLinked = new AtomicLong();
+
+    private record Entry(int[] signature, String tenant, String documentId, String objectId) {
+    }
+
+    /**
+     * Indexed chunk a new chunk nearly repeats
+     */
+    public record Match(String documentId, String objectId) {
+    }
+
+    public NearDuplicateChunkIndex() {
+        for (int band = 0; band < BANDS; band++) {
+            bands.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Check a chunk about to be stored against the tenant's chunks. A new chunk is indexed under
+     * its document and object id; for a near-duplicate the indexed chunk is returned.
+     *
+     * @return near-identical chunk of the tenant, or null when the chunk needs its own embedding
+     */
+    public synchronized Match checkAndAdd(String tenant, CharSequence chunk, String documentId, String objectId) {
+        if (!enabled) {
+            return null;
+        }
+        int[] signature = minHash(chunk, minWords);
+        if (signature == null) {
+            // Too short for a meaningful signature
+            return null;
+        }
+        checked.incrementAndGet();
+
+        for (int band = 0; band < BANDS; band++) {
+            for (Entry entry : bands.get(band).getOrDefault(bandKey(signature, band), List.of())) {
+                if (Objects.equals(entry.tenant(), tenant) && similarity(entry.signature(), signature) >= minSimilarity) {
+                    linked.incrementAndGet();
+                    charactersLinked.addAndGet(chunk.length());
+                    return new Match(entry.documentId(), entry.objectId());
+                }
+            }
+        }
+
+        if (insertionOrder.size() >= maxEntries) {
+            evictOldestHalf();
+        }
+        Entry entry = new Entry(signature, tenant, documentId, objectId);
+        insertionOrder.addLast(entry);
+        index(entry);
+        return null;
+    }
+
+    /**
+     * Forget the chunks of a document that was deleted from the vector store, so the next
+     * document with the same boilerplate is embedded and indexed again
+     */
+    public synchronized void removeDocument(String documentId) {
+        if (insertionOrder.removeIf(entry -> entry.documentId().equals(documentId))) {
+            rebuild();
+        }
+    }
+
+    public synchronized void clear() {
+        insertionOrder.clear();
+        bands.forEach(Map::clear);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "enabled", enabled,
+            "min_similarity", minSimilarity,
+            "indexed_chunks", indexedChunks(),
+            "chunks_checked", checked.get(),
+            "near_duplicates_linked", linked.get(),
+            "characters_linked", charactersLinked.get()
+        );
+    }
+
+    /**
+     * MinHash signature of the lowercased word 3-shingles; null when the text has fewer than minWords words
+     */
+    static int[] minHash(CharSequence text, int minWords) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        long[] window = new long[SHINGLE_WORDS];
+        int words = 0;
+
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == text.length()) {
+                break;
+            }
+            long wordHash = 0xcbf29ce484222325L;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                wordHash = (wordHash ^ Character.toLowerCase(text.charAt(i))) * 0x100000001b3L;
+                i++;
+            }
+
+            window[words % SHINGLE_WORDS] = wordHash;
+            words++;
+            if (words >= SHINGLE_WORDS) {
+                long shingle = 0;
+                for (int w = words - SHINGLE_WORDS; w < words; w++) {
+                    shingle = shingle * 31 + window[w % SHINGLE_WORDS];
+                }
+                for (int h = 0; h < SIGNATURE_SIZE; h++) {
+                    int value = (int) mix(shingle + h * 0x9e3779b97f4a7c15L);
+                    if (value < signature[h]) {
+                        signature[h] = value;
+                    }
+                }
+            }
+        }
+
+        return words < Math.max(minWords, SHINGLE_WORDS) ? null : signature;
+    }
+
+    static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int h = 0; h < SIGNATURE_SIZE; h++) {
+            if (a[h] == b[h]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    /**
+     * SplitMix64 finalizer, gives an independent hash function per signature position
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 0x100000001b3L + signature[row];
+        }
+        return key;
+    }
+
+    private void index(Entry entry) {
+        for (int band = 0; band < BANDS; band++) {
+            bands.get(band).computeIfAbsent(bandKey(entry.signature(), band), key -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    private synchronized int indexedChunks() {
+        return insertionOrder.size();
+    }
+
+    private void evictOldestHalf() {
+        int evict = insertionOrder.size() / 2;
+        for (int i = 0; i < evict; i++) {
+            insertionOrder.pollFirst();
+        }
+        rebuild();
+        logger.debug("Chunk index full, evicted {} oldest signatures", evict);
+    }
+
+    private void rebuild() {
+        bands.forEach(Map::clear);
+        insertionOrder.forEach(this::index);
+    }
+}
@@ -0,0 +1,219 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of previous image OCR results keyed by ink layout, kept separately per tenant.
+ *
+ * The same page often arrives again re-encoded, with its metadata stripped or photographed
+ * and scanned once more (messaging apps, re-saved scans). An earlier image is reused when
+ * it has as many text blocks and every block is within the configured ink distance of
+ * this image's (see {@link InkLayout}): a re-scan moves a little ink everywhere, another
+ * patient's name or dose on the same printed form changes a block a lot. Images are
+ * bucketed by their block count, so a lookup only compares layouts that can match, and
+ * are never reused across tenants. The layouts kept are bounded in total; the least
+ * recently active tenants' indexes are dropped first.
+ */
+@Component
+public class NearDuplicateImageIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateImageIndex.class);
+
+    // Object headers and bounds of a block besides its cells, roughly
+    private static final int BLOCK_OVERHEAD_BYTES = 64;
+
+    @Value("${ocr.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ocr.dedup.max-ink-distance:15}")
+    private int maxInkDistance;
+
+    // Per tenant
+    @Value("${ocr.dedup.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${ocr.dedup.max-tenants:1000}")
+    private int maxTenants;
+
+    // All tenants together
+    @Value("${ocr.dedup.max-layout-size:256MB}")
+    private DataSize maxLayoutSize;
+
+    // Least recently used tenant first, so the index of an idle tenant is dropped when there are too many
+    private final LinkedHashMap<String, TenantIndex> tenants = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong rejectedCandidates = new AtomicLong();
+    private long layoutBytes;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Find the OCR text of an earlier image of the tenant with the same text, or null
+     *
+     * @param layout ink layout of the whole image, see {@link InkLayout#blocks}
+     */
+    public synchronized String findNearDuplicate(String tenant, List<InkLayout.Block> layout) {
+        lookups.incrementAndGet();
+        TenantIndex index = tenants.get(tenant);
+        if (index == null || layout == null || layout.isEmpty()) {
+            return null;
+        }
+        Deque<Entry> candidates = index.byBlockCount.get(layout.size());
+        if (candidates == null) {
+            return null;
+        }
+
+        boolean candidateSeen = false;
+        // Newest first
+        for (Iterator<Entry> it = candidates.descendingIterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            int distance = InkLayout.distance(entry.layout, layout, maxInkDistance);
+            if (distance <= maxInkDistance) {
+                hits.incrementAndGet();
+                logger.info("♻️ Duplicate image found (ink distance {}), reusing previous OCR result", distance);
+                return entry.text;
+            }
+            if (distance < InkLayout.MAX_DISTANCE) {
+                candidateSeen = true;
+            }
+        }
+
+        if (candidateSeen) {
+            // Same arrangement of text, e.g. the same printed form, but the content differs
+            rejectedCandidates.incrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * Index the OCR text of a tenant's image
+     */
+    public synchronized void add(String tenant, List<InkLayout.Block> layout, String text) {
+        if (layout == null || layout.isEmpty()) {
+            // Nothing a later image could be verified against
+            return;
+        }
+        TenantIndex index = tenants.computeIfAbsent(tenant, key -> new TenantIndex());
+        if (tenants.size() > maxTenants) {
+            dropEldestTenant();
+        }
+        layoutBytes += index.add(new Entry(layout, text), maxEntries);
+
+        while (layoutBytes > maxLayoutSize.toBytes()) {
+            if (tenants.size() > 1) {
+                dropEldestTenant();
+            } else {
+                layoutBytes -= index.removeOldest();
+            }
+        }
+    }
+
+    private void dropEldestTenant() {
+        String eldest = tenants.keySet().iterator().next();
+        layoutBytes -= tenants.remove(eldest).bytes;
+    }
+
+    public Map<String, Object> getStats() {
+        long lookupCount = lookups.get();
+        long hitCount = hits.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("hit_rate", lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount);
+        stats.put("rejected_candidates", rejectedCandidates.get());
+        synchronized (this) {
+            stats.put("tenants", tenants.size());
+            stats.put("entries", tenants.values().stream().mapToInt(index -> index.insertionOrder.size()).sum());
+            stats.put("layout_bytes", layoutBytes);
+        }
+        return stats;
+    }
+
+    /**
+     * One tenant's images, by block count and in insertion order
+     */
+    private static class TenantIndex {
+        private final Map<Integer, Deque<Entry>> byBlockCount = new HashMap<>();
+        private final Deque<Entry> insertionOrder = new ArrayDeque<>();
+        private long bytes;
+
+        /**
+         * @return change of the layout bytes held
+         */
+        long add(Entry entry, int maxEntries) {
+            long before = bytes;
+            Deque<Entry> same = byBlockCount.getOrDefault(entry.layout.size(), new ArrayDeque<>());
+            for (Iterator<Entry> it = same.iterator(); it.hasNext(); ) {
+                Entry existing = it.next();
+                if (InkLayout.distance(existing.layout, entry.layout, 0) == 0) {
+                    // Same image, keep the newest result
+                    it.remove();
+                    insertionOrder.remove(existing);
+                    bytes -= existing.bytes;
+                    break;
+                }
+            }
+            while (insertionOrder.size() >= maxEntries) {
+                removeOldest();
+            }
+
+            byBlockCount.computeIfAbsent(entry.layout.size(), key -> new ArrayDeque<>()).addLast(entry);
+            insertionOrder.addLast(entry);
+            bytes += entry.bytes;
+            return bytes - before;
+        }
+
+        /**
+         * @return layout bytes freed
+         */
+        long removeOldest() {
+            Entry oldest = insertionOrder.pollFirst();
+            if (oldest == null) {
+                return 0;
+            }
+            // The oldest entry of the index is also the oldest of its bucket
+            Deque<Entry> bucket = byBlockCount.get(oldest.layout.size());
+            bucket.removeFirst();
+            if (bucket.isEmpty()) {
+                byBlockCount.remove(oldest.layout.size());
+            }
+            bytes -= oldest.bytes;
+            return oldest.bytes;
+        }
+    }
+
+    private static class Entry {
+        private final List<InkLayout.Block> layout;
+        private final String text;
+        private final long bytes;
+
+        Entry(List<InkLayout.Block> layout, String text) {
+            this.layout = layout;
+            this.text = text;
+            long cells = 0;
+            for (InkLayout.Block block : layout) {
+                cells += block.cells().length;
+            }
+            this.bytes = cells + (long) BLOCK_OVERHEAD_BYTES * layout.size();
+        }
+    }
+}
@@ -6,21 +6,23 @@ import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Service for OCR text extraction from PDF documents
@@ -36,13 +38,34 @@ public class OCRService {
     @Value("${ocr.tesseract.language:eng}")
     private String tesseractLanguage;
     
-    @Value("${ocr.temp.directory}")
-    private String tempDirectory;
-
-    private final Tesseract tesseract;
+    // Line breaks are kept in cleaned text only for the structure chunker, which cuts at lines
+    @Value("${text.chunk.unit:chars}")
+    private String chunkUnit;
+    
+    // Ask Tesseract for TSV output, which carries the box of every word along with the text
+    private final boolean wordBoxes;
+    
+    // Tesseract instances are not thread-safe; each OCR thread gets its own
+    private final ThreadLocal<Tesseract> tesseract = ThreadLocal.withInitial(this::createTesseract);
+    private String resolvedDataPath;
+    private String resolvedLanguage;
+    private final TemplateRegionCache templateRegionCache;
+    private final NearDuplicateImageIndex nearDuplicateImageIndex;
+    private final OcrCheckpointStore checkpointStore;
+    private final UploadSpooler uploadSpooler;
+    private final OcrCpuPool ocrCpuPool;
 
-    public OCRService() {
-        this.tesseract = new Tesseract();
+    @Autowired
+    public OCRService(TemplateRegionCache templateRegionCache, NearDuplicateImageIndex nearDuplicateImageIndex,
+                      OcrCheckpointStore checkpointStore, UploadSpooler uploadSpooler, OcrCpuPool ocrCpuPool,
+                      @Value("${ocr.word-boxes.enabled:true}") boolean wordBoxes) {
+        // Set before configureTesseract(), which creates the first Tesseract instance
+        this.wordBoxes = wordBoxes;
+        this.templateRegionCache = templateRegionCache;
+        this.nearDuplicateImageIndex = nearDuplicateImageIndex;
+        this.checkpointStore = checkpointStore;
+        this.uploadSpooler = uploadSpooler;
+        this.ocrCpuPool = ocrCpuPool;
         configureTesseract();
     }
 
@@ -77,27 +100,19 @@ public class OCRService {
             }
             
             if (validDataPath != null) {
-                tesseract.setDatapath(validDataPath);
+                resolvedDataPath = validDataPath;
                 logger.info("🎯 Tesseract datapath set to: {}", validDataPath);
             } else {
                 logger.warn("⚠️ No valid Tesseract data path found. Using default path...");
                 // Try the most common installation path anyway
                 String defaultPath = "C:\\Program Files\\Tesseract-OCR\\tessdata";
-                tesseract.setDatapath(defaultPath);
+                resolvedDataPath = defaultPath;
                 logger.info("🔄 Attempting default path: {}", defaultPath);
             }
             
             // Set language (default to English if not specified)
             String language = (tesseractLanguage != null && !tesseractLanguage.trim().isEmpty()) ? tesseractLanguage : "eng";
-            tesseract.setLanguage(language);
-            
-            // Configure OCR settings for better accuracy
-            tesseract.setPageSegMode(6); // Uniform block of text
-            tesseract.setOcrEngineMode(1); // Neural nets LSTM engine only
-            
-            // Additional settings for better medical text recognition
-            tesseract.setTessVariable("tessedit_char_whitelist", 
-                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789.,;:()[]{}/-+= \n\t");
+            resolvedLanguage = language;
             
             logger.info("✅ Tesseract OCR configured successfully");
             logger.info("📝 Language: {}", language);
@@ -113,6 +128,27 @@ public class OCRService {
         }
     }
     
+    /**
+     * Create a Tesseract instance with the resolved data path, language and OCR settings
+     */
+    private Tesseract createTesseract() {
+        Tesseract instance = new Tesseract();
+        if (resolvedDataPath != null) {
+            instance.setDatapath(resolvedDataPath);
+        }
+        instance.setLanguage(resolvedLanguage != null ? resolvedLanguage : "eng");
+        
+        // Configure OCR settings for better accuracy
+        instance.setPageSegMode(6); // Uniform block of text
+        instance.setOcrEngineMode(1); // Neural nets LSTM engine only
+        
+        // Additional settings for better medical text recognition
+        instance.setTessVariable("tessedit_char_whitelist", 
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789.,;:()[]{}/-+= \n\t");
+        instance.setVariable("tessedit_create_tsv", wordBoxes ? "1" : "0");
+        return instance;
+    }
+    
     /**
      * Test if Tesseract is working properly
      */
@@ -131,7 +167,7 @@ public class OCRService {
             g2d.dispose();
             
             // Test OCR on the image
-            String result = tesseract.doOCR(testImage);
+            String result = tesseract.get().doOCR(testImage);
             
             if (result != null && result.toLowerCase().contains("test")) {
                 logger.info("✅ Tesseract test successful! Result: '{}'", result.trim());
@@ -148,36 +184,63 @@ public class OCRService {
      * Extract text from PDF using OCR
      */
     public String extractTextFromPDF(MultipartFile file) throws IOException, TesseractException {
+        StringBuilder text = new StringBuilder();
+        extractTextFromPDF(file, pageText -> {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(pageText);
+        });
+        return text.toString().trim();
+    }
+
+    /**
+     * Extract text from PDF page by page, handing each page's text to the consumer as soon as it is available.
+     * Falls back to the PDF text layer when OCR yields nothing.
+     *
+     * @return number of characters delivered to the consumer
+     */
+    public long extractTextFromPDF(MultipartFile file, Consumer<String> pageConsumer) throws IOException, TesseractException {
+        return extractTextFromPDF(file, pageConsumer, IngestionProgressListener.NONE);
+    }
+
+    /**
+     * Extract text from PDF page by page, reporting rendered and OCR'd pages to the listener
+     */
+    public long extractTextFromPDF(MultipartFile file, Consumer<String> pageConsumer,
+                                   IngestionProgressListener listener) throws IOException, TesseractException {
+        return extractPagesFromPDF(file, page -> pageConsumer.accept(page.text()), listener);
+    }
+
+    /**
+     * Extract PDF pages with the boxes of their OCR'd words, handing each page to the consumer as soon as it is done
+     */
+    public long extractPagesFromPDF(MultipartFile file, Consumer<OcrPage> pageConsumer,
+                                    IngestionProgressListener listener) throws IOException, TesseractException {
+        String filename = file.getOriginalFilename();
         logger.info("📄 Starting OCR extraction for: {}", file.getOriginalFilename());
         
-        // Create temp directory if it doesn't exist
-        Path tempDir = Paths.get(tempDirectory);
-        if (!Files.exists(tempDir)) {
-            Files.createDirectories(tempDir);
-        }
-        
-        // Save uploaded file temporarily
-        File tempFile = File.createTempFile("ocr_", ".pdf", tempDir.toFile());
-        file.transferTo(tempFile);
+        // Read the upload once, in memory unless it is large; spooled uploads are used as they are
+        SpooledUpload upload = uploadSpooler.spool(file);
         
         try {
             // Try OCR extraction first
             try {
-                String ocrText = extractTextFromPDFFile(tempFile);
-                if (ocrText != null && !ocrText.trim().isEmpty()) {
-                    logger.info("✅ OCR extraction successful: {} characters", ocrText.length());
-                    return ocrText;
+                long ocrChars = extractTextFromPDFUpload(upload, pageConsumer, filename, listener);
+                if (ocrChars > 0) {
+                    logger.info("✅ OCR extraction successful: {} characters", ocrChars);
+                    return ocrChars;
                 }
             } catch (Exception ocrException) {
                 logger.warn("⚠️ OCR failed: {}, trying basic text extraction...", ocrException.getMessage());
             }
             
             // Fallback to basic PDF text extraction
-            try {
-                String basicText = extractBasicTextFromPDF(tempFile);
-                if (basicText != null && !basicText.trim().isEmpty()) {
-                    logger.info("✅ Basic text extraction successful: {} characters", basicText.length());
-                    return basicText;
+            try (PDDocument document = Loader.loadPDF(upload.openRandomAccess())) {
+                long basicChars = streamTextLayer(document, (pageText, page) -> pageConsumer.accept(OcrPage.of(page, pageText)));
+                if (basicChars > 0) {
+                    logger.info("✅ Basic text extraction successful: {} characters", basicChars);
+                    return basicChars;
                 }
             } catch (Exception basicException) {
                 logger.warn("⚠️ Basic text extraction failed: {}", basicException.getMessage());
@@ -185,12 +248,14 @@ public class OCRService {
             
             // Final fallback
             logger.warn("❌ All text extraction methods failed");
-            return "Unable to extract text from document. The document may contain only images or the text may not be machine-readable.";
+            String fallback = "Unable to extract text from document. The document may contain only images or the text may not be machine-readable.";
+            pageConsumer.accept(OcrPage.of(1, fallback));
+            return fallback.length();
             
         } finally {
-            // Clean up temp file
-            if (tempFile.exists()) {
-                tempFile.delete();
+            // Only remove the spill file of an upload spooled here
+            if (upload != file) {
+                upload.close();
             }
         }
     }
@@ -198,28 +263,67 @@ public class OCRService {
     /**
      * Basic text extraction from PDF (for text-based PDFs)
      */
-    private String extractBasicTextFromPDF(File pdfFile) throws IOException {
-        logger.info("📝 Attempting basic text extraction...");
+    public String extractBasicTextFromPDF(File pdfFile) throws IOException {
         StringBuilder text = new StringBuilder();
-        
+        streamTextLayerFromPDF(pdfFile, text::append);
+        return text.toString().trim();
+    }
+
+    /**
+     * Read the PDF text layer one page at a time, so only a single page of text is held at once
+     *
+     * @return number of characters delivered to the consumer
+     */
+    public long streamTextLayerFromPDF(File pdfFile, Consumer<String> pageConsumer) throws IOException {
         try (PDDocument document = Loader.loadPDF(pdfFile)) {
-            // Try to extract text directly from PDF
-            org.apache.pdfbox.text.PDFTextStripper textStripper = new org.apache.pdfbox.text.PDFTextStripper();
-            String extractedText = textStripper.getText(document);
+            return streamTextLayer(document, (pageText, page) -> pageConsumer.accept(pageText));
+        }
+    }
+
+    /**
+     * Read the PDF text layer of an upload without copying it to a temp file
+     *
+     * @return number of characters delivered to the consumer
+     */
+    public long streamTextLayerFromPDF(MultipartFile file, Consumer<String> pageConsumer) throws IOException {
+        SpooledUpload upload = uploadSpooler.spool(file);
+        try (PDDocument document = Loader.loadPDF(upload.openRandomAccess())) {
+            return streamTextLayer(document, (pageText, page) -> pageConsumer.accept(pageText));
+        } finally {
+            if (upload != file) {
+                upload.close();
+            }
+        }
+    }
+
+    private long streamTextLayer(PDDocument document, ObjIntConsumer<String> pageConsumer) throws IOException {
+        logger.info("📝 Attempting basic text extraction...");
+        long totalChars = 0;
+        
+        PDFTextStripper textStripper = new PDFTextStripper();
+        int pageCount = document.getNumberOfPages();
+        
+        for (int page = 1; page <= pageCount; page++) {
+            textStripper.setStartPage(page);
+            textStripper.setEndPage(page);
+            String pageText = textStripper.getText(document);
             
-            if (extractedText != null && !extractedText.trim().isEmpty()) {
-                text.append(extractedText);
-                logger.info("📄 Basic extraction found {} characters", extractedText.length());
+            if (pageText != null && !pageText.isBlank()) {
+                pageConsumer.accept(pageText, page);
+                totalChars += pageText.length();
             }
         }
         
-        return text.toString().trim();
+        logger.info("📄 Basic extraction found {} characters", totalChars);
+        return totalChars;
     }
 
-    private String extractTextFromPDFFile(File pdfFile) throws IOException, TesseractException {
-        StringBuilder extractedText = new StringBuilder();
+    private long extractTextFromPDFUpload(SpooledUpload upload, Consumer<OcrPage> pageConsumer, String filename,
+                                          IngestionProgressListener listener) throws IOException, TesseractException {
+        long totalChars = 0;
         
-        try (PDDocument document = Loader.loadPDF(pdfFile)) {
+        try (PDDocument document = Loader.loadPDF(upload.openRandomAccess());
+             OcrCheckpointStore.Checkpoint checkpoint = checkpointStore.open(upload.getContentHash())) {
             PDFRenderer pdfRenderer = new PDFRenderer(document);
             int pageCount = document.getNumberOfPages();
             
@@ -229,14 +333,32 @@ public class OCRService {
                 logger.debug("Processing page {}/{}", page + 1, pageCount);
                 
                 try {
-                    // Render PDF page as image
-                    BufferedImage pageImage = pdfRenderer.renderImageWithDPI(page, 300, ImageType.RGB);
+                    // Pages finished before a restart come from the checkpoint, without word boxes
+                    String checkpointed = checkpoint.completedPage(page);
+                    OcrPage ocrPage;
                     
-                    // Extract text using Tesseract
-                    String pageText = tesseract.doOCR(pageImage);
+                    if (checkpointed == null) {
+                        int pageIndex = page;
+                        ocrPage = ocrCpuPool.call(() -> {
+                            // Render PDF page as image
+                            BufferedImage pageImage = pdfRenderer.renderImageWithDPI(pageIndex, 300, ImageType.RGB);
+                            listener.onPageRendered(filename, pageIndex + 1, pageCount);
+                            
+                            // Extract text using Tesseract
+                            OcrText ocr = ocrPage(pageImage);
+                            return OcrPage.align(pageIndex + 1, cleanExtractedText(ocr.text()), ocr.words(),
+                                pageImage.getWidth(), pageImage.getHeight());
+                        });
+                        checkpoint.append(page, ocrPage.text());
+                    } else {
+                        ocrPage = OcrPage.of(page + 1, checkpointed);
+                    }
+                    listener.onPageOcrd(filename, page + 1, pageCount);
                     
-                    if (pageText != null && !pageText.trim().isEmpty()) {
-                        extractedText.append(pageText).append(" ");
+                    String pageText = ocrPage.text();
+                    if (!pageText.isEmpty()) {
+                        pageConsumer.accept(ocrPage);
+                        totalChars += pageText.length();
                         logger.debug("Extracted {} characters from page {}", pageText.length(), page + 1);
                     }
                     
@@ -244,33 +366,100 @@ public class OCRService {
                     logger.warn("Failed to process page {}: {}", page + 1, e.getMessage());
                 }
             }
+            
+            checkpoint.complete();
         }
         
-        String finalText = cleanExtractedText(extractedText.toString());
-        logger.info("✅ OCR extraction completed. Total characters: {}", finalText.length());
+        logger.info("✅ OCR extraction completed. Total characters: {}", totalChars);
         
-        return finalText;
+        return totalChars;
     }
 
     /**
-     * Clean and normalize extracted text
+     * OCR a rendered page, reusing cached text for letterhead regions that match a known template.
+     * Only the variable body region is always OCR'd.
      */
-    private String cleanExtractedText(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return "";
+    private OcrText ocrPage(BufferedImage pageImage) throws TesseractException {
+        int width = pageImage.getWidth();
+        int height = pageImage.getHeight();
+        int headerHeight = (int) (height * templateRegionCache.getHeaderFraction());
+        int footerHeight = (int) (height * templateRegionCache.getFooterFraction());
+        int bodyHeight = height - headerHeight - footerHeight;
+        
+        if (!templateRegionCache.isEnabled() || bodyHeight <= 0) {
+            return toOcrText(recognize(pageImage, null));
         }
         
-        // Remove excessive whitespace
-        text = Pattern.compile("\\s+").matcher(text).replaceAll(" ");
+        OcrText headerText = ocrTemplateRegion(pageImage, TemplateRegionCache.Region.HEADER,
+            new Rectangle(0, 0, width, headerHeight));
+        OcrText bodyText = toOcrText(recognize(pageImage, new Rectangle(0, headerHeight, width, bodyHeight)));
+        OcrText footerText = ocrTemplateRegion(pageImage, TemplateRegionCache.Region.FOOTER,
+            new Rectangle(0, height - footerHeight, width, footerHeight));
         
-        // Remove page number patterns
-        text = Pattern.compile("\\bpage\\s*\\d+\\b", Pattern.CASE_INSENSITIVE).matcher(text).replaceAll("");
+        return headerText.followedBy(bodyText).followedBy(footerText);
+    }
+    
+    /**
+     * OCR a letterhead region block by block. Blocks matching a cached one reuse its raw output,
+     * with word boxes moved to where the block is on this page; the others, such as a date or
+     * patient name, are OCR'd on their own and cached.
+     */
+    private OcrText ocrTemplateRegion(BufferedImage image, TemplateRegionCache.Region region, Rectangle rect) throws TesseractException {
+        if (rect.height <= 0) {
+            return OcrText.of("");
+        }
         
-        // Remove common OCR artifacts
-        text = text.replaceAll("[\\u0000-\\u001F\\u007F]", ""); // Control characters
-        text = text.replaceAll("\\s*\\n\\s*", " "); // Normalize line breaks
+        List<InkLayout.Block> blocks = InkLayout.blocks(image, rect.x, rect.y, rect.width, rect.height);
+        if (blocks == null) {
+            // Too busy to be a letterhead
+            return toOcrText(recognize(image, rect));
+        }
         
-        return text.trim();
+        OcrText text = null;
+        for (InkLayout.Block block : blocks) {
+            OcrText blockText;
+            TemplateRegionCache.Match cached = templateRegionCache.lookup(region, block);
+            if (cached != null) {
+                blockText = toOcrText(cached.text()).translate(cached.offsetX(), cached.offsetY());
+            } else {
+                long startTime = System.nanoTime();
+                String output = recognize(image, blockRect(block, rect));
+                templateRegionCache.store(region, block, output, (System.nanoTime() - startTime) / 1_000_000);
+                blockText = toOcrText(output);
+            }
+            text = text == null ? blockText : text.followedBy(blockText);
+        }
+        return text != null ? text : OcrText.of("");
+    }
+    
+    /**
+     * A block's bounds with a margin of half its height, so Tesseract sees the glyph edges, within the region
+     */
+    private static Rectangle blockRect(InkLayout.Block block, Rectangle region) {
+        int margin = Math.max(2, block.height() / 2);
+        Rectangle rect = new Rectangle(block.x() - margin, block.y() - margin,
+            block.width() + 2 * margin, block.height() + 2 * margin);
+        return rect.intersection(region);
+    }
+    
+    /**
+     * Run Tesseract on the image or a region of it; the output is TSV when word boxes are enabled
+     */
+    private String recognize(BufferedImage image, Rectangle rect) throws TesseractException {
+        Tesseract instance = tesseract.get();
+        String output = rect != null ? instance.doOCR(image, null, List.of(rect)) : instance.doOCR(image);
+        return output != null ? output : "";
+    }
+    
+    private OcrText toOcrText(String output) {
+        return wordBoxes ? OcrText.parseTsv(output) : OcrText.of(output);
+    }
+
+    /**
+     * Clean and normalize extracted text
+     */
+    private String cleanExtractedText(String text) {
+        return TextNormalizer.cleanPageText(text, keepLineBreaks());
     }
 
     /**
@@ -279,43 +468,15 @@ public class OCRService {
     public List<String> splitTextIntoChunks(String text, int chunkSize, int overlap) {
         List<String> chunks = new ArrayList<>();
         
-        if (text == null || text.trim().isEmpty()) {
+        if (text == null) {
             return chunks;
         }
         
-        String cleanText = text.trim();
-        int textLength = cleanText.length();
-        
-        if (textLength <= chunkSize) {
-            chunks.add(cleanText);
-            return chunks;
+        for (TextSpan span : IncrementalChunker.split(text, chunkSize, overlap)) {
+            chunks.add(span.toString());
         }
         
-        int start = 0;
-        while (start < textLength) {
-            int end = Math.min(start + chunkSize, textLength);
-            
-            // Try to break at sentence or word boundary
-            if (end < textLength) {
-                int lastPeriod = cleanText.lastIndexOf('.', end);
-                int lastSpace = cleanText.lastIndexOf(' ', end);
-                
-                if (lastPeriod > start + chunkSize / 2) {
-                    end = lastPeriod + 1;
-                } else if (lastSpace > start + chunkSize / 2) {
-                    end = lastSpace;
-                }
-            }
-            
-            String chunk = cleanText.substring(start, end).trim();
-            if (chunk.length() > 30) { // Minimum chunk length
-                chunks.add(chunk);
-            }
-            
-            start = Math.max(start + chunkSize - overlap, end);
-        }
-        
-        logger.info("Created {} text chunks from {} characters", chunks.size(), textLength);
+        logger.info("Created {} text chunks from {} characters", chunks.size(), text.length());
         return chunks;
     }
 
@@ -326,7 +487,7 @@ public class OCRService {
         try {
             // Test with a simple image
             BufferedImage testImage = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
-            tesseract.doOCR(testImage);
+            tesseract.get().doOCR(testImage);
             return true;
         } catch (Exception e) {
             logger.error("OCR not available: {}", e.getMessage());
@@ -338,91 +499,113 @@ public class OCRService {
      * Extract text from image files using OCR
      */
     public String extractTextFromImage(MultipartFile file) throws IOException, TesseractException {
+        return extractPageFromImage(file).text();
+    }
+    
+    /**
+     * Extract the text of an image file with the boxes of its OCR'd words
+     */
+    public OcrPage extractPageFromImage(MultipartFile file) throws IOException, TesseractException {
+        return extractPageFromImage(file, TenantIdentity.ANONYMOUS);
+    }
+    
+    /**
+     * Extract the text of a tenant's image file; only that tenant's earlier images are reused
+     */
+    public OcrPage extractPageFromImage(MultipartFile file, String tenant) throws IOException, TesseractException {
         logger.info("🖼️ Starting OCR extraction for image: {}", file.getOriginalFilename());
         
-        // Create temp file
-        java.io.File tempFile = java.io.File.createTempFile("ocr_image_", getFileExtension(file.getOriginalFilename()));
-        file.transferTo(tempFile);
+        // Decode straight from the upload; no temp file copy
+        BufferedImage originalImage;
+        try (InputStream imageStream = file.getInputStream()) {
+            originalImage = javax.imageio.ImageIO.read(imageStream);
+        }
         
-        try {
-            // Read image file
-            BufferedImage originalImage = javax.imageio.ImageIO.read(tempFile);
-            
-            if (originalImage == null) {
-                throw new IOException("Unable to read image file: " + file.getOriginalFilename());
-            }
-            
-            logger.info("📸 Processing image: {}x{} pixels", originalImage.getWidth(), originalImage.getHeight());
-            
-            // Try multiple OCR approaches for better results
-            String bestResult = null;
-            int bestScore = 0;
-            
-            // Approach 1: Original image
-            String result1 = extractTextFromProcessedImage(originalImage, "Original");
-            int score1 = scoreOCRResult(result1);
-            if (score1 > bestScore) {
-                bestResult = result1;
-                bestScore = score1;
-            }
-            
-            // Approach 2: Enhanced image (contrast, brightness)
-            BufferedImage enhancedImage = enhanceImageForOCR(originalImage);
-            String result2 = extractTextFromProcessedImage(enhancedImage, "Enhanced");
-            int score2 = scoreOCRResult(result2);
-            if (score2 > bestScore) {
-                bestResult = result2;
-                bestScore = score2;
-            }
-            
-            // Approach 3: Grayscale conversion
-            BufferedImage grayImage = convertToGrayscale(originalImage);
-            String result3 = extractTextFromProcessedImage(grayImage, "Grayscale");
-            int score3 = scoreOCRResult(result3);
-            if (score3 > bestScore) {
-                bestResult = result3;
-                bestScore = score3;
-            }
-            
-            if (bestResult != null && !bestResult.trim().isEmpty() && bestScore > 10) {
-                String cleanText = cleanAndValidateText(bestResult);
-                logger.info("✅ OCR extraction successful: {} characters extracted (score: {})", cleanText.length(), bestScore);
-                logger.info("📝 Extracted text preview: {}", cleanText.substring(0, Math.min(100, cleanText.length())));
-                return cleanText;
-            } else {
-                logger.warn("⚠️ Poor OCR results. Best score: {}, Text: '{}'", bestScore, bestResult);
-                return generateFallbackText(file.getOriginalFilename());
+        if (originalImage == null) {
+            throw new IOException("Unable to read image file: " + file.getOriginalFilename());
+        }
+        
+        logger.info("📸 Processing image: {}x{} pixels", originalImage.getWidth(), originalImage.getHeight());
+        
+        // The same page uploaded again (re-encoded, metadata stripped, scanned once more) reuses its OCR result
+        List<InkLayout.Block> layout = null;
+        if (nearDuplicateImageIndex.isEnabled()) {
+            layout = InkLayout.blocks(originalImage, 0, 0, originalImage.getWidth(), originalImage.getHeight());
+            String previousText = nearDuplicateImageIndex.findNearDuplicate(tenant, layout);
+            if (previousText != null) {
+                return OcrPage.of(1, previousText);
             }
-            
-        } finally {
-            // Clean up temp file
-            if (tempFile.exists()) {
-                tempFile.delete();
+        }
+        
+        // Try multiple OCR approaches for better results
+        OcrText bestResult = null;
+        int bestScore = 0;
+        
+        // Approach 1: Original image
+        OcrText result1 = extractTextFromProcessedImage(originalImage, "Original");
+        int score1 = scoreOCRResult(result1.text());
+        if (score1 > bestScore) {
+            bestResult = result1;
+            bestScore = score1;
+        }
+        
+        // Approach 2: Enhanced image (contrast, brightness)
+        BufferedImage enhancedImage = enhanceImageForOCR(originalImage);
+        OcrText result2 = extractTextFromProcessedImage(enhancedImage, "Enhanced");
+        int score2 = scoreOCRResult(result2.text());
+        if (score2 > bestScore) {
+            bestResult = result2;
+            bestScore = score2;
+        }
+        
+        // Approach 3: Grayscale conversion
+        BufferedImage grayImage = convertToGrayscale(originalImage);
+        OcrText result3 = extractTextFromProcessedImage(grayImage, "Grayscale");
+        int score3 = scoreOCRResult(result3.text());
+        if (score3 > bestScore) {
+            bestResult = result3;
+            bestScore = score3;
+        }
+        
+        if (bestResult != null && !bestResult.text().trim().isEmpty() && bestScore > 10) {
+            String cleanText = cleanAndValidateText(bestResult.text());
+            logger.info("✅ OCR extraction successful: {} characters extracted (score: {})", cleanText.length(), bestScore);
+            logger.info("📝 Extracted text preview: {}", cleanText.substring(0, Math.min(100, cleanText.length())));
+            if (nearDuplicateImageIndex.isEnabled()) {
+                nearDuplicateImageIndex.add(tenant, layout, cleanText);
             }
+            return OcrPage.align(1, cleanText, bestResult.words(), originalImage.getWidth(), originalImage.getHeight());
+        } else {
+            logger.warn("⚠️ Poor OCR results. Best score: {}, Text: '{}'", bestScore,
+                bestResult != null ? bestResult.text() : null);
+            return OcrPage.of(1, generateFallbackText(file.getOriginalFilename()));
         }
     }
     
     /**
      * Extract text from a processed image
      */
-    private String extractTextFromProcessedImage(BufferedImage image, String approach) {
+    private OcrText extractTextFromProcessedImage(BufferedImage image, String approach) {
         try {
-            // Try different page segmentation modes for medical documents
-            tesseract.setPageSegMode(6); // Uniform block of text
-            String result = tesseract.doOCR(image);
-            
-            if (result == null || result.trim().length() < 10) {
-                // Try alternative segmentation mode
-                tesseract.setPageSegMode(8); // Single word
-                result = tesseract.doOCR(image);
-            }
+            OcrText result = ocrCpuPool.call(() -> {
+                // Try different page segmentation modes for medical documents
+                tesseract.get().setPageSegMode(6); // Uniform block of text
+                OcrText text = toOcrText(recognize(image, null));
+                
+                if (text.text().trim().length() < 10) {
+                    // Try alternative segmentation mode
+                    tesseract.get().setPageSegMode(8); // Single word
+                    text = toOcrText(recognize(image, null));
+                }
+                return text;
+            });
             
-            logger.debug("🔍 {} approach result: {} characters", approach, result != null ? result.length() : 0);
-            return result != null ? result : "";
+            logger.debug("🔍 {} approach result: {} characters", approach, result.text().length());
+            return result;
             
         } catch (Exception e) {
             logger.warn("❌ {} approach failed: {}", approach, e.getMessage());
-            return "";
+            return OcrText.of("");
         }
     }
     
@@ -516,16 +699,11 @@ public class OCRService {
      * Clean and validate extracted text
      */
     private String cleanAndValidateText(String text) {
-        if (text == null) return "";
-        
-        // Remove excessive whitespace and clean up
-        String cleaned = text.replaceAll("\\s+", " ").trim();
-        
-        // Remove common OCR artifacts
-        cleaned = cleaned.replaceAll("[|\\\\/_]+", " ");
-        cleaned = cleaned.replaceAll("\\s+", " ");
-        
-        return cleaned;
+        return TextNormalizer.cleanImageText(text, keepLineBreaks());
+    }
+
+    private boolean keepLineBreaks() {
+        return ChunkerFactory.STRUCTURE.equals(chunkUnit);
     }
     
     /**
@@ -548,14 +726,4 @@ public class OCRService {
             filename
         );
     }
-    
-    /**
-     * Helper method to get file extension
-     */
-    private String getFileExtension(String filename) {
-        if (filename == null || !filename.contains(".")) {
-            return ".tmp";
-        }
-        return filename.substring(filename.lastIndexOf("."));
-    }
 }
\ No newline at end of file
@@ -0,0 +1,238 @@
+package com.emulsify.ocrweaviate.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe page checkpoints for long OCR jobs.
+ *
+ * Every completed page is appended to a small log under ocr.temp.directory,
+ * keyed by the SHA-256 of the document. If the JVM restarts mid-document, the
+ * next run over the same bytes replays the log and only OCRs the missing pages.
+ * The log is removed when the document completes.
+ *
+ * Record layout: page (int), text length (int), UTF-8 text, CRC32 of page and text (long).
+ * A torn record at the end of the log is ignored.
+ */
+@Component
+public class OcrCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrCheckpointStore.class);
+
+    private static final String SUFFIX = ".ckpt";
+
+    @Value("${ocr.temp.directory}")
+    private String tempDirectory;
+
+    @Value("${ocr.checkpoint.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ocr.checkpoint.max-age-hours:24}")
+    private int maxAgeHours;
+
+    // Documents currently being OCR'd; a second job for the same bytes runs without a checkpoint
+    private final Set<String> openDocuments = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void removeStaleCheckpoints() {
+        Path dir = checkpointDirectory();
+        if (!enabled || !Files.isDirectory(dir)) {
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(Duration.ofHours(maxAgeHours));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(file);
+                    logger.info("🧹 Removed stale OCR checkpoint: {}", file.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to clean OCR checkpoints: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Open the checkpoint for a document, loading pages completed by an earlier run
+     */
+    public Checkpoint open(String documentHash) {
+        if (!enabled || documentHash == null || !openDocuments.add(documentHash)) {
+            return new Checkpoint(null, null, new HashMap<>());
+        }
+
+        Path file = checkpointDirectory().resolve(documentHash + SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            Map<Integer, String> pages = new HashMap<>();
+            long validLength = readCompletedPages(file, pages);
+            if (!pages.isEmpty()) {
+                logger.info("🔁 Resuming OCR from checkpoint: {} page(s) already done", pages.size());
+            }
+
+            FileOutputStream fileOut = new FileOutputStream(file.toFile(), true);
+            if (fileOut.getChannel().size() > validLength) {
+                // Drop a torn record so new pages are appended after the last valid one
+                fileOut.getChannel().truncate(validLength);
+            }
+            return new Checkpoint(documentHash, file, pages, fileOut);
+        } catch (IOException e) {
+            logger.warn("⚠️ OCR checkpoint unavailable, continuing without: {}", e.getMessage());
+            openDocuments.remove(documentHash);
+            return new Checkpoint(null, null, new HashMap<>());
+        }
+    }
+
+    private Path checkpointDirectory() {
+        return Paths.get(tempDirectory, "checkpoints");
+    }
+
+    /**
+     * Load valid records into pages and return the length of the valid prefix of the log
+     */
+    private long readCompletedPages(Path file, Map<Integer, String> pages) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            long fileSize = Files.size(file);
+            while (true) {
+                int page = in.readInt();
+                int length = in.readInt();
+                if (length < 0 || length > fileSize) {
+                    break;
+                }
+                byte[] text = new byte[length];
+                in.readFully(text);
+                long crc = in.readLong();
+                if (crc != checksum(page, text)) {
+                    break;
+                }
+                pages.put(page, new String(text, StandardCharsets.UTF_8));
+                validLength += 16 + length;
+            }
+        } catch (EOFException e) {
+            // Torn last record from a crash mid-write
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to read OCR checkpoint {}: {}", file.getFileName(), e.getMessage());
+        }
+        return validLength;
+    }
+
+    private static long checksum(int page, byte[] text) {
+        CRC32 crc = new CRC32();
+        crc.update(page >>> 24);
+        crc.update(page >>> 16);
+        crc.update(page >>> 8);
+        crc.update(page);
+        crc.update(text);
+        return crc.getValue();
+    }
+
+    /**
+     * Checkpoint log of one document
+     */
+    public class Checkpoint implements AutoCloseable {
+        private final String documentHash;
+        private final Path file;
+        private final Map<Integer, String> completedPages;
+        private final DataOutputStream out;
+        private final FileOutputStream fileOut;
+
+        private Checkpoint(String documentHash, Path file, Map<Integer, String> completedPages) {
+            this(documentHash, file, completedPages, null);
+        }
+
+        private Checkpoint(String documentHash, Path file, Map<Integer, String> completedPages, FileOutputStream fileOut) {
+            this.documentHash = documentHash;
+            this.file = file;
+            this.completedPages = completedPages;
+            this.fileOut = fileOut;
+            this.out = fileOut != null ? new DataOutputStream(new BufferedOutputStream(fileOut)) : null;
+        }
+
+        /**
+         * Text of a page completed by an earlier run, or null
+         */
+        public String completedPage(int page) {
+            return completedPages.get(page);
+        }
+
+        public int getCompletedPageCount() {
+            return completedPages.size();
+        }
+
+        /**
+         * Durably record a completed page
+         */
+        public void append(int page, String text) {
+            if (out == null) {
+                return;
+            }
+            try {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(page);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeLong(checksum(page, bytes));
+                out.flush();
+                fileOut.getChannel().force(false);
+            } catch (IOException e) {
+                logger.warn("⚠️ Failed to checkpoint page {}: {}", page + 1, e.getMessage());
+            }
+        }
+
+        /**
+         * The document finished; the checkpoint is no longer needed
+         */
+        public void complete() {
+            close();
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("⚠️ Failed to remove OCR checkpoint {}: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close OCR checkpoint: {}", e.getMessage());
+                }
+            }
+            if (documentHash != null) {
+                openDocuments.remove(documentHash);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs CPU-bound rendering and OCR on the platform-thread OCR pool when the caller is on
+ * virtual threads. Tesseract's native calls would otherwise pin the carrier threads, and a
+ * per-thread Tesseract instance would be created for every virtual thread.
+ *
+ * With platform threads the caller is already a bounded worker, so work runs inline.
+ */
+@Component
+public class OcrCpuPool {
+
+    private final ThreadPoolTaskExecutor ocrExecutor;
+    private final boolean dispatch;
+
+    @Autowired
+    public OcrCpuPool(@Qualifier("ocrExecutor") ThreadPoolTaskExecutor ocrExecutor, Environment environment) {
+        this(ocrExecutor, Threading.VIRTUAL.isActive(environment));
+    }
+
+    OcrCpuPool(ThreadPoolTaskExecutor ocrExecutor, boolean dispatch) {
+        this.ocrExecutor = ocrExecutor;
+        this.dispatch = dispatch;
+    }
+
+    /**
+     * Run work on the OCR pool and wait for its result, rethrowing whatever it threw
+     */
+    public <T> T call(Callable<T> work) throws Exception {
+        if (!dispatch) {
+            return work.call();
+        }
+
+        Future<T> future = ocrExecutor.submit(work);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    public boolean isDispatching() {
+        return dispatch;
+    }
+}
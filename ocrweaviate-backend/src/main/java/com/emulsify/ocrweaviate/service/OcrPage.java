@@ -0,0 +1,84 @@
+package com.emulsify.ocrweaviate.service;
+
+import net.sourceforge.tess4j.Word;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cleaned text of one page with the positions of its OCR'd words.
+ *
+ * Word i covers text[offsets[2i], offsets[2i+1]) and has the box boxes[4i..4i+3] (x, y, width,
+ * height) in pixels of a page that is width x height pixels. Pages read from the PDF text layer or
+ * from an OCR checkpoint carry no words.
+ */
+public record OcrPage(int number, String text, int width, int height, int[] offsets, int[] boxes) {
+
+    // How far ahead of the previous word the next one is looked for in the cleaned text
+    private static final int MAX_WORD_GAP = 32;
+
+    public static OcrPage of(int number, String text) {
+        return new OcrPage(number, text, 0, 0, new int[0], new int[0]);
+    }
+
+    /**
+     * Locate the recognised words in the cleaned page text. Words are matched in reading order;
+     * a word that cleaning removed or changed (page markers, artifacts) is left out.
+     */
+    public static OcrPage align(int number, String cleanedText, List<Word> words, int width, int height) {
+        int[] offsets = new int[words.size() * 2];
+        int[] boxes = new int[words.size() * 4];
+        int count = 0;
+        int cursor = 0;
+        int skipped = 0;
+
+        for (Word word : words) {
+            String wordText = word.getText();
+            int found = indexOf(cleanedText, wordText, cursor, cursor + MAX_WORD_GAP + skipped);
+            if (found < 0) {
+                // The next word may then be further ahead
+                skipped += wordText.length() + 1;
+                continue;
+            }
+            skipped = 0;
+            Rectangle box = word.getBoundingBox();
+            offsets[2 * count] = found;
+            offsets[2 * count + 1] = found + wordText.length();
+            boxes[4 * count] = box.x;
+            boxes[4 * count + 1] = box.y;
+            boxes[4 * count + 2] = box.width;
+            boxes[4 * count + 3] = box.height;
+            count++;
+            cursor = found + wordText.length();
+        }
+        return new OcrPage(number, cleanedText, width, height,
+            Arrays.copyOf(offsets, 2 * count), Arrays.copyOf(boxes, 4 * count));
+    }
+
+    public int wordCount() {
+        return offsets.length / 2;
+    }
+
+    private static int indexOf(String text, String word, int from, int lastStart) {
+        if (word.isEmpty()) {
+            return -1;
+        }
+        int last = Math.min(lastStart, text.length() - word.length());
+        for (int i = from; i <= last; i++) {
+            if (text.startsWith(word, i) && !joinsWord(text, i - 1, word.charAt(0))
+                    && !joinsWord(text, i + word.length(), word.charAt(word.length() - 1))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the text character at index continues the word edge, i.e. the match is inside a longer word
+     */
+    private static boolean joinsWord(String text, int index, char edge) {
+        return index >= 0 && index < text.length()
+            && Character.isLetterOrDigit(text.charAt(index)) && Character.isLetterOrDigit(edge);
+    }
+}
@@ -0,0 +1,105 @@
+package com.emulsify.ocrweaviate.service;
+
+import net.sourceforge.tess4j.Word;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Raw OCR output of an image or region: its text and the words Tesseract recognised, with
+ * their bounding boxes in image pixels
+ */
+public record OcrText(String text, List<Word> words) {
+
+    private static final int LEVEL = 0;
+    private static final int BLOCK = 2;
+    private static final int PARAGRAPH = 3;
+    private static final int LINE = 4;
+    private static final int LEFT = 6;
+    private static final int TOP = 7;
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 9;
+    private static final int CONFIDENCE = 10;
+    private static final int TEXT = 11;
+    private static final String WORD_LEVEL = "5";
+
+    /**
+     * Text without word boxes, e.g. from the PDF text layer or an OCR result cached as text
+     */
+    public static OcrText of(String text) {
+        return new OcrText(text != null ? text : "", List.of());
+    }
+
+    /**
+     * Parse Tesseract's TSV output. Words of a line are joined by spaces, lines by line breaks
+     * and blocks or paragraphs by a blank line, as in its plain text output.
+     */
+    public static OcrText parseTsv(String tsv) {
+        if (tsv == null || tsv.isEmpty()) {
+            return of("");
+        }
+        StringBuilder text = new StringBuilder(tsv.length() / 4);
+        List<Word> words = new ArrayList<>();
+        String previousParagraph = null;
+        String previousLine = null;
+
+        for (String row : tsv.split("\n")) {
+            String[] fields = row.split("\t", -1);
+            if (fields.length <= TEXT || !WORD_LEVEL.equals(fields[LEVEL]) || fields[TEXT].isBlank()) {
+                // Header, page/block/line rows and empty words
+                continue;
+            }
+            String paragraph = fields[BLOCK] + '.' + fields[PARAGRAPH];
+            String line = paragraph + '.' + fields[LINE];
+            if (previousLine != null) {
+                if (!paragraph.equals(previousParagraph)) {
+                    text.append("\n\n");
+                } else if (!line.equals(previousLine)) {
+                    text.append('\n');
+                } else {
+                    text.append(' ');
+                }
+            }
+            previousParagraph = paragraph;
+            previousLine = line;
+
+            String word = fields[TEXT].strip();
+            text.append(word);
+            try {
+                words.add(new Word(word, Float.parseFloat(fields[CONFIDENCE]), new Rectangle(
+                    Integer.parseInt(fields[LEFT]), Integer.parseInt(fields[TOP]),
+                    Integer.parseInt(fields[WIDTH]), Integer.parseInt(fields[HEIGHT]))));
+            } catch (NumberFormatException e) {
+                // Keep the text even when its box is unreadable
+            }
+        }
+        return new OcrText(text.toString(), words);
+    }
+
+    /**
+     * This text followed by a line break and the next region's text
+     */
+    public OcrText followedBy(OcrText next) {
+        List<Word> joined = new ArrayList<>(words.size() + next.words().size());
+        joined.addAll(words);
+        joined.addAll(next.words());
+        return new OcrText(text + "\n" + next.text(), joined);
+    }
+
+    /**
+     * The same text with its word boxes moved by the given offset
+     */
+    public OcrText translate(int dx, int dy) {
+        if ((dx == 0 && dy == 0) || words.isEmpty()) {
+            return this;
+        }
+        List<Word> moved = new ArrayList<>(words.size());
+        for (Word word : words) {
+            Rectangle box = new Rectangle(word.getBoundingBox());
+            box.translate(dx, dy);
+            moved.add(new Word(word.getText(), word.getConfidence(), box));
+        }
+        return new OcrText(text, moved);
+    }
+}
@@ -0,0 +1,379 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Chunker that cuts along the structure of a prescription instead of at a character count.
+ *
+ * Each complete line is classified by its first word: header, patient block, medication
+ * entry, instructions or signature. Lines that do not start a section continue the unit
+ * before them, so a medication entry keeps its dose and frequency lines. Every medication
+ * entry is a unit of its own; the other sections are one unit each. Units of the same section
+ * are packed into chunks of up to chunkSize characters and are never split, except for a
+ * single line longer than that, which is cut like {@link IncrementalChunker} does. Chunks
+ * shorter than the minimum length are merged into a neighbour rather than dropped. Text without
+ * recognised structure is packed line by line, ending a chunk at blank lines where it can.
+ */
+public class PrescriptionChunker implements TextChunker {
+
+    enum Section {
+        HEADER, PATIENT, MEDICATION, INSTRUCTIONS, SIGNATURE, OTHER
+    }
+
+    private static final Map<String, Section> FIRST_WORDS = new HashMap<>();
+
+    static {
+        for (String word : new String[] {"tab", "tabs", "tablet", "cap", "caps", "capsule", "syp", "syrup", "susp",
+                "inj", "injection", "drop", "drops", "oint", "ointment", "cream", "gel", "lotion", "sachet",
+                "inhaler", "rx", "rx1", "t", "c"}) {
+            FIRST_WORDS.put(word, Section.MEDICATION);
+        }
+        for (String word : new String[] {"name", "patient", "pt", "age", "sex", "gender", "uhid", "mrn", "opd", "ipd",
+                "dob", "address", "weight", "wt", "diagnosis", "dx", "complaints", "co", "history", "findings", "bp",
+                "pulse", "temp", "spo2"}) {
+            FIRST_WORDS.put(word, Section.PATIENT);
+        }
+        for (String word : new String[] {"advice", "advised", "advise", "instructions", "instruction", "follow",
+                "review", "diet", "note", "notes", "investigations", "investigation", "precautions", "avoid", "next"}) {
+            FIRST_WORDS.put(word, Section.INSTRUCTIONS);
+        }
+        for (String word : new String[] {"signature", "sign", "signed", "stamp", "seal"}) {
+            FIRST_WORDS.put(word, Section.SIGNATURE);
+        }
+        for (String word : new String[] {"dr", "doctor", "clinic", "hospital", "reg", "regd", "registration", "mbbs",
+                "md", "ms", "phone", "ph", "tel", "mob", "mobile", "email", "timings"}) {
+            FIRST_WORDS.put(word, Section.HEADER);
+        }
+        // Words that begin the dosing line of an entry, even when it has a strength in it
+        for (String word : new String[] {"take", "apply", "use", "give", "instil", "for", "after", "before", "with",
+                "then", "and", "x", "od", "bd", "bid", "tds", "tid", "qid", "hs", "sos", "once", "twice", "thrice",
+                "daily", "morning", "night", "at", "in", "to", "till", "until", "each", "every", "if", "when"}) {
+            FIRST_WORDS.put(word, Section.OTHER);
+        }
+    }
+
+    private final int chunkSize;
+    private final int overlap;
+    private final int minChunkLength;
+    private final Consumer<TextSpan> spanConsumer;
+
+    private final StringBuilder text = new StringBuilder();
+    private int scanned;
+    private boolean started;
+    private boolean finished;
+    private long charactersSeen;
+
+    // Unit being read, then the chunk it is packed into, then the last chunk cut, which is held
+    // back so a short final chunk can still be merged into it. Offsets are into text; -1 when empty.
+    private int unitStart = -1;
+    private int unitEnd;
+    private Section unitSection;
+    private int chunkStart = -1;
+    private int chunkEnd;
+    private Section chunkSection;
+    private int heldStart = -1;
+    private int heldEnd;
+    private boolean bodyStarted;
+
+    private int chunksEmitted;
+
+    public PrescriptionChunker(int chunkSize, int overlap, int minChunkLength, Consumer<TextSpan> spanConsumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+        this.minChunkLength = minChunkLength;
+        this.spanConsumer = spanConsumer;
+    }
+
+    @Override
+    public void append(CharSequence piece) {
+        if (finished) {
+            throw new IllegalStateException("Chunker already finished");
+        }
+        if (piece == null || piece.length() == 0) {
+            return;
+        }
+
+        int from = 0;
+        if (!started) {
+            while (from < piece.length() && piece.charAt(from) <= ' ') {
+                from++;
+            }
+            if (from == piece.length()) {
+                return;
+            }
+            started = true;
+        }
+
+        text.append(piece, from, piece.length());
+        charactersSeen += piece.length() - from;
+
+        // Only complete lines are classified; the last one may continue in the next piece
+        for (int newline = indexOfNewline(scanned); newline >= 0; newline = indexOfNewline(scanned)) {
+            readLine(scanned, newline);
+            scanned = newline + 1;
+        }
+    }
+
+    /**
+     * Pages start on a new line, so the first line of a page is classified on its own
+     */
+    @Override
+    public void appendPageBreak() {
+        append("\n");
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        readLine(scanned, text.length());
+        scanned = text.length();
+
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        text.setLength(end);
+
+        closeUnit();
+        if (chunkStart >= 0) {
+            if (chunkEnd - chunkStart < minChunkLength && heldStart >= 0) {
+                heldEnd = chunkEnd;
+            } else {
+                cut(chunkStart, chunkEnd);
+            }
+            chunkStart = -1;
+        }
+        if (heldStart >= 0) {
+            emit(heldStart, heldEnd);
+            heldStart = -1;
+        }
+    }
+
+    @Override
+    public CharSequence getText() {
+        return text;
+    }
+
+    @Override
+    public long getCharactersSeen() {
+        return charactersSeen;
+    }
+
+    public int getChunksEmitted() {
+        return chunksEmitted;
+    }
+
+    /**
+     * Section started by a line, or null when the line continues the unit before it
+     */
+    static Section classify(CharSequence line, Section current, boolean bodyStarted) {
+        int i = 0;
+        int length = line.length();
+
+        // Skip an enumerator such as "1." or "2)" in front of an entry
+        int digits = 0;
+        while (i < length && Character.isDigit(line.charAt(i))) {
+            i++;
+            digits++;
+        }
+        boolean enumerated = false;
+        if (digits > 0 && digits <= 2 && i < length && (line.charAt(i) == '.' || line.charAt(i) == ')')
+                && (i + 1 == length || !Character.isDigit(line.charAt(i + 1)))) {
+            enumerated = true;
+            i++;
+        } else if (digits > 0) {
+            // Lines starting with a number are doses, frequencies like 1-0-1 or dates
+            return null;
+        }
+        while (i < length && !Character.isLetter(line.charAt(i))) {
+            i++;
+        }
+
+        int wordStart = i;
+        StringBuilder word = new StringBuilder();
+        while (i < length && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '/')) {
+            if (line.charAt(i) != '/') {
+                word.append(line.charAt(i));
+            }
+            i++;
+        }
+        if (i == wordStart) {
+            return null;
+        }
+
+        Section section = FIRST_WORDS.get(word.toString().toLowerCase(Locale.ROOT));
+        if (section == Section.OTHER) {
+            return null;
+        }
+        // "t" and "c" only abbreviate tablet and capsule when a dose follows
+        if (section == Section.MEDICATION && word.length() == 1 && !hasDose(line)) {
+            section = null;
+        }
+        if (section == Section.HEADER && bodyStarted) {
+            // The doctor's name and registration at the bottom belong to the signature
+            section = Section.SIGNATURE;
+        }
+        if (section == null && current == Section.MEDICATION && (enumerated || hasDose(line))) {
+            // The next entry of the list, or a drug name followed by a strength such as "Amoxicillin 500 mg"
+            section = Section.MEDICATION;
+        } else if (section == null && enumerated && hasDose(line)) {
+            section = Section.MEDICATION;
+        }
+        return section;
+    }
+
+    /**
+     * Whether the line has a strength such as "500 mg", "5ml" or "0.5 %"
+     */
+    static boolean hasDose(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isDigit(line.charAt(i))) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < line.length() && (Character.isDigit(line.charAt(j)) || line.charAt(j) == '.')) {
+                j++;
+            }
+            while (j < line.length() && line.charAt(j) == ' ') {
+                j++;
+            }
+            int unitStart = j;
+            while (j < line.length() && Character.isLetter(line.charAt(j))) {
+                j++;
+            }
+            if (isDoseUnit(line, unitStart, j) || (j == unitStart && j < line.length() && line.charAt(j) == '%')) {
+                return true;
+            }
+            i = j;
+        }
+        return false;
+    }
+
+    private static boolean isDoseUnit(CharSequence line, int start, int end) {
+        return switch (line.subSequence(start, end).toString().toLowerCase(Locale.ROOT)) {
+            case "mg", "mcg", "g", "gm", "ml", "iu", "units", "unit" -> true;
+            default -> false;
+        };
+    }
+
+    private void readLine(int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        if (start == end) {
+            // Blank lines end a paragraph of unstructured text
+            if (unitSection == Section.OTHER) {
+                closeUnit();
+                closeChunk();
+            }
+            return;
+        }
+
+        Section section = classify(new TextSpan(text, start, end), unitSection, bodyStarted);
+        boolean newUnit = section != null && (section == Section.MEDICATION || section != unitSection);
+        if (!newUnit && unitStart >= 0 && end - unitStart > chunkSize) {
+            // Continuation that would outgrow a chunk; carry on in a new unit of the same section
+            section = unitSection;
+            newUnit = true;
+        }
+
+        if (newUnit || unitStart < 0) {
+            closeUnit();
+            unitStart = start;
+            unitSection = section != null ? section : Section.OTHER;
+            if (unitSection == Section.PATIENT || unitSection == Section.MEDICATION) {
+                bodyStarted = true;
+            }
+        }
+        unitEnd = end;
+    }
+
+    /**
+     * Pack the finished unit into the current chunk, or start a new chunk with it
+     */
+    private void closeUnit() {
+        if (unitStart < 0) {
+            return;
+        }
+        int start = unitStart;
+        int end = unitEnd;
+        Section section = unitSection;
+        unitStart = -1;
+
+        if (end - start > chunkSize) {
+            // A single line longer than a chunk: cut it by characters
+            closeChunk();
+            for (TextSpan span : IncrementalChunker.split(new TextSpan(text, start, end), chunkSize, overlap)) {
+                cut(start + span.start(), start + span.end());
+            }
+            return;
+        }
+
+        if (chunkStart >= 0) {
+            boolean fits = end - chunkStart <= chunkSize;
+            boolean tooShort = chunkEnd - chunkStart < minChunkLength;
+            if (fits && (section == chunkSection || tooShort)) {
+                chunkEnd = end;
+                if (tooShort) {
+                    chunkSection = section;
+                }
+                return;
+            }
+            closeChunk();
+        }
+        chunkStart = start;
+        chunkEnd = end;
+        chunkSection = section;
+    }
+
+    private void closeChunk() {
+        if (chunkStart >= 0) {
+            cut(chunkStart, chunkEnd);
+            chunkStart = -1;
+        }
+    }
+
+    /**
+     * Hold the chunk back and emit the one held before it, or merge a held chunk that is too short
+     */
+    private void cut(int start, int end) {
+        if (heldStart >= 0 && heldEnd - heldStart < minChunkLength && end - heldStart <= chunkSize) {
+            heldEnd = end;
+            return;
+        }
+        if (heldStart >= 0) {
+            emit(heldStart, heldEnd);
+        }
+        heldStart = start;
+        heldEnd = end;
+    }
+
+    private void emit(int start, int end) {
+        chunksEmitted++;
+        spanConsumer.accept(new TextSpan(text, start, end));
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
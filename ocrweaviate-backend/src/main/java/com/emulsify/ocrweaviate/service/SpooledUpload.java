@@ -0,0 +1,137 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Upload read once from the request, held in memory or spilled to a single file when large.
+ * The SHA-256 of the content is computed while the bytes arrive.
+ */
+public class SpooledUpload implements MultipartFile, AutoCloseable {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final String contentHash;
+    private final long size;
+    private final byte[] bytes;
+    private final Path spillFile;
+    private final boolean ownsFile;
+
+    SpooledUpload(String name, String originalFilename, String contentType, String contentHash,
+                  long size, byte[] bytes, Path spillFile) {
+        this(name, originalFilename, contentType, contentHash, size, bytes, spillFile, true);
+    }
+
+    private SpooledUpload(String name, String originalFilename, String contentType, String contentHash,
+                          long size, byte[] bytes, Path spillFile, boolean ownsFile) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.contentHash = contentHash;
+        this.size = size;
+        this.bytes = bytes;
+        this.spillFile = spillFile;
+        this.ownsFile = ownsFile;
+    }
+
+    /**
+     * The same upload read from a file that already holds its content
+     *
+     * @param owned delete the file on close; false for files someone else cleans up, like journal payloads
+     */
+    SpooledUpload onFile(Path file, boolean owned) {
+        return new SpooledUpload(name, originalFilename, contentType, contentHash, size, null, file, owned);
+    }
+
+    /**
+     * SHA-256 of the content as lowercase hex
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public boolean isInMemory() {
+        return spillFile == null;
+    }
+
+    /**
+     * Random access view for PDFBox, reading from memory when the upload was not spilled
+     */
+    public RandomAccessRead openRandomAccess() throws IOException {
+        return isInMemory() ? new RandomAccessReadBuffer(bytes) : new RandomAccessReadBufferedFile(spillFile.toFile());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return isInMemory() ? bytes.clone() : Files.readAllBytes(spillFile);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return isInMemory() ? new ByteArrayInputStream(bytes) : Files.newInputStream(spillFile);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        if (isInMemory()) {
+            Files.write(dest, bytes);
+        } else {
+            Files.copy(spillFile, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Remove the spill file, if any and owned
+     */
+    @Override
+    public void close() {
+        if (spillFile != null && ownsFile) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                // Stale spill files are removed on the next start
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of OCR text for static letterhead blocks in the page header and footer.
+ *
+ * Clinics and pharmacies send many prescriptions on identical letterhead, but the
+ * header strip also holds what changes from page to page: the date, the patient, a
+ * prescription number. The cache therefore works on the text blocks of a region (see
+ * {@link InkLayout}): the clinic name or address line is reused when its ink map is
+ * within the configured distance of a cached one, which tolerates re-scanning and
+ * re-encoding, while a block with a different date or name is OCR'd on its own.
+ */
+@Component
+public class TemplateRegionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateRegionCache.class);
+
+    public enum Region {
+        HEADER,
+        FOOTER
+    }
+
+    @Value("${ocr.template.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ocr.template.header-fraction:0.15}")
+    private double headerFraction;
+
+    @Value("${ocr.template.footer-fraction:0.10}")
+    private double footerFraction;
+
+    @Value("${ocr.template.max-ink-distance:15}")
+    private int maxInkDistance;
+
+    // Cached blocks whose pixel height differs more than this share are not compared
+    private static final double HEIGHT_TOLERANCE = 0.2;
+
+    @Value("${ocr.template.max-entries:500}")
+    private int maxEntries;
+
+    private final Map<Region, List<Template>> templates = new EnumMap<>(Region.class);
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong rejectedCandidates = new AtomicLong();
+    private final AtomicLong savedOcrMillis = new AtomicLong();
+
+    public TemplateRegionCache() {
+        for (Region region : Region.values()) {
+            templates.put(region, new ArrayList<>());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getHeaderFraction() {
+        return headerFraction;
+    }
+
+    public double getFooterFraction() {
+        return footerFraction;
+    }
+
+    /**
+     * Cached OCR output of a block and how far the block moved since, to translate word boxes
+     */
+    public record Match(String text, int offsetX, int offsetY) {
+    }
+
+    /**
+     * Find cached OCR text for a block of a region, or null when no cached block is the same text
+     */
+    public Match lookup(Region region, InkLayout.Block block) {
+        lookups.incrementAndGet();
+        List<Template> entries = templates.get(region);
+
+        synchronized (entries) {
+            boolean candidateSeen = false;
+            for (Template template : entries) {
+                InkLayout.Block cached = template.block;
+                if (Math.abs(cached.height() - block.height()) > HEIGHT_TOLERANCE * cached.height()) {
+                    continue;
+                }
+                int distance = InkLayout.distance(cached, block, maxInkDistance);
+                if (distance == InkLayout.MAX_DISTANCE) {
+                    continue;
+                }
+                if (distance > maxInkDistance) {
+                    candidateSeen = true;
+                    continue;
+                }
+
+                template.lastUsed = System.nanoTime();
+                hits.incrementAndGet();
+                savedOcrMillis.addAndGet(template.ocrMillis);
+                logger.debug("🧩 {} template hit (ink distance {})", region, distance);
+                return new Match(template.text, block.x() - cached.x(), block.y() - cached.y());
+            }
+
+            if (candidateSeen) {
+                // Same shape as a known block, but something printed in it differs
+                rejectedCandidates.incrementAndGet();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Remember the OCR output of a block together with what it cost to produce
+     */
+    public void store(Region region, InkLayout.Block block, String text, long ocrMillis) {
+        List<Template> entries = templates.get(region);
+
+        synchronized (entries) {
+            if (entries.size() >= maxEntries) {
+                Template leastUsed = entries.get(0);
+                for (Template template : entries) {
+                    if (template.lastUsed < leastUsed.lastUsed) {
+                        leastUsed = template;
+                    }
+                }
+                entries.remove(leastUsed);
+            }
+            entries.add(new Template(block, text != null ? text : "", ocrMillis));
+        }
+    }
+
+    /**
+     * Hit rate and OCR time saved by template reuse
+     */
+    public Map<String, Object> getStats() {
+        long lookupCount = lookups.get();
+        long hitCount = hits.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("hit_rate", lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount);
+        stats.put("saved_ocr_ms", savedOcrMillis.get());
+        stats.put("rejected_candidates", rejectedCandidates.get());
+        for (Region region : Region.values()) {
+            List<Template> entries = templates.get(region);
+            synchronized (entries) {
+                stats.put(region.name().toLowerCase() + "_templates", entries.size());
+            }
+        }
+        return stats;
+    }
+
+    private static class Template {
+        private final InkLayout.Block block;
+        private final String text;
+        private final long ocrMillis;
+        private long lastUsed = System.nanoTime();
+
+        Template(InkLayout.Block block, String text, long ocrMillis) {
+            this.block = block;
+            this.text = text;
+            this.ocrMillis = ocrMillis;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * Resolves the tenant an upload is scheduled under, from the API key or the X-Tenant-Id header.
+ *
+ * Only tenants derived from an API key are trusted: the X-Tenant-Id header is a claim any
+ * client can make, so it separates a client's work from others' but never earns a configured
+ * scheduling weight.
+ */
+public final class TenantIdentity {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String ANONYMOUS = "anonymous";
+
+    private static final String KEY_PREFIX = "key-";
+    private static final String HEADER_PREFIX = "header:";
+
+    private TenantIdentity() {
+    }
+
+    /**
+     * An API key wins over the header and is reduced to a hash so it never appears in metrics.
+     * Header values that look like a key tenant are prefixed so they cannot pose as one.
+     */
+    public static String resolve(String tenantHeader, String apiKey) {
+        if (apiKey != null && !apiKey.isBlank()) {
+            return keyTenant(apiKey);
+        }
+        if (tenantHeader != null && !tenantHeader.isBlank()) {
+            String tenant = tenantHeader.trim();
+            return tenant.startsWith(KEY_PREFIX) ? HEADER_PREFIX + tenant : tenant;
+        }
+        return ANONYMOUS;
+    }
+
+    /**
+     * Tenant id of an API key: 64 bits of its SHA-256, too many to find another key with the same id
+     */
+    public static String keyTenant(String apiKey) {
+        byte[] digest = ContentHashes.newSha256().digest(apiKey.trim().getBytes(StandardCharsets.UTF_8));
+        return KEY_PREFIX + HexFormat.of().formatHex(digest, 0, 8);
+    }
+
+    /**
+     * Whether the tenant was derived from an API key rather than claimed in a header
+     */
+    public static boolean isKeyTenant(String tenant) {
+        return tenant != null && tenant.startsWith(KEY_PREFIX);
+    }
+}
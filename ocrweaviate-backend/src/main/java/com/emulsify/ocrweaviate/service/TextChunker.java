@@ -0,0 +1,32 @@
+package com.emulsify.ocrweaviate.service;
+
+/**
+ * Chunker that text is appended to piece by piece and that emits chunks as {@link TextSpan}s
+ * over the text it keeps
+ */
+public interface TextChunker {
+
+    /**
+     * Append the next piece of text and emit every chunk that is now complete
+     */
+    void append(CharSequence piece);
+
+    /**
+     * Separate the text of the next page from the text so far
+     */
+    default void appendPageBreak() {
+        append(" ");
+    }
+
+    /**
+     * Flush the remaining text as the final chunk(s)
+     */
+    void finish();
+
+    /**
+     * The appended text without leading (and, once finished, trailing) whitespace
+     */
+    CharSequence getText();
+
+    long getCharactersSeen();
+}
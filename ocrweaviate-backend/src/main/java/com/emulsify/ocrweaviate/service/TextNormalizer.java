@@ -0,0 +1,259 @@
+package com.emulsify.ocrweaviate.service;
+
+/**
+ * Single-pass cleanup of OCR output.
+ *
+ * Each method reads the text once, char by char, into a per-thread buffer and produces the
+ * same result as the sequence of regex replacements it stands in for. Whitespace runs are
+ * held as a pending state (spaces, line break) and only written once the next visible
+ * character shows what the run collapses to. Line breaks are only kept when asked for; the
+ * structure chunker needs them, the other chunkers expect every whitespace run as one space.
+ */
+public final class TextNormalizer {
+
+    /** Buffers that grew past this are not kept for the next call */
+    private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Clean the OCR text of a PDF page. Same result as, in order: horizontal whitespace runs
+     * to one space; removing {@code \bpage\s*\d+\b} (case-insensitive); whitespace runs that
+     * contain a line break to one line break; removing control characters other than line
+     * breaks; trim. Without keepLineBreaks line breaks count as horizontal whitespace.
+     */
+    public static String cleanPageText(CharSequence text, boolean keepLineBreaks) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = buffer();
+        int length = text.length();
+
+        // Whitespace run of the text after page markers are removed: spaces it collapses to,
+        // whether it holds a line break
+        int pendingSpaces = 0;
+        boolean pendingBreak = false;
+        boolean inHorizontalRun = false;
+
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (keepLineBreaks ? isHorizontalWhitespace(c) : isWhitespace(c)) {
+                if (!inHorizontalRun) {
+                    pendingSpaces++;
+                    inHorizontalRun = true;
+                }
+                i++;
+                continue;
+            }
+            inHorizontalRun = false;
+            if (c == '\n') {
+                pendingBreak = true;
+                i++;
+                continue;
+            }
+
+            int pageEnd = (c == 'p' || c == 'P') ? matchPageMarker(text, i) : -1;
+            if (pageEnd >= 0) {
+                // Removed text joins the whitespace on both sides into one run
+                i = pageEnd;
+                continue;
+            }
+
+            flush(out, pendingSpaces, pendingBreak);
+            pendingSpaces = 0;
+            pendingBreak = false;
+            if (!isControl(c)) {
+                out.append(c);
+            }
+            i++;
+        }
+
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    /**
+     * Clean the OCR text of an image. Same result as, in order: horizontal whitespace runs to
+     * one space; whitespace runs that contain a line break to one line break; trim; runs of
+     * {@code | \ / _} to one space; space runs to one space; dropping one space on either side
+     * of each line break. Without keepLineBreaks line breaks count as horizontal whitespace.
+     */
+    public static String cleanImageText(CharSequence text, boolean keepLineBreaks) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = buffer();
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        // Every whitespace run of the text becomes one space or one line break; artifacts become
+        // spaces. Between two visible characters the spaces collapse, and vanish next to line breaks.
+        boolean pendingSpace = false;
+        int pendingBreaks = 0;
+        boolean inRun = false;
+        boolean runHasBreak = false;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isWhitespace(c)) {
+                inRun = true;
+                runHasBreak |= keepLineBreaks && c == '\n';
+                continue;
+            }
+            if (inRun) {
+                if (runHasBreak) {
+                    pendingBreaks++;
+                } else {
+                    pendingSpace = true;
+                }
+                inRun = false;
+                runHasBreak = false;
+            }
+            if (c == '|' || c == '\\' || c == '/' || c == '_') {
+                pendingSpace = true;
+                continue;
+            }
+            flushBreaks(out, pendingSpace, pendingBreaks);
+            pendingSpace = false;
+            pendingBreaks = 0;
+            out.append(c);
+        }
+        flushBreaks(out, pendingSpace, pendingBreaks);
+        return out.toString();
+    }
+
+    /**
+     * End of a {@code \bpage\s*\d+\b} match starting at the given index, or -1. Whitespace between
+     * the word and the number may be any run, as the spaces are only collapsed, not removed, first.
+     */
+    private static int matchPageMarker(CharSequence text, int start) {
+        int length = text.length();
+        if (start + 4 > length || isWordBefore(text, start)) {
+            return -1;
+        }
+        if (!isAsciiIgnoreCase(text.charAt(start + 1), 'a') || !isAsciiIgnoreCase(text.charAt(start + 2), 'g')
+                || !isAsciiIgnoreCase(text.charAt(start + 3), 'e')) {
+            return -1;
+        }
+        int i = start + 4;
+        while (i < length && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        int digits = i;
+        while (i < length && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        if (i == digits || isWordAt(text, i)) {
+            return -1;
+        }
+        return i;
+    }
+
+    private static void flush(StringBuilder out, int spaces, boolean lineBreak) {
+        if (out.length() == 0) {
+            // Leading whitespace is trimmed
+            return;
+        }
+        if (lineBreak) {
+            out.append('\n');
+        } else {
+            for (int s = 0; s < spaces; s++) {
+                out.append(' ');
+            }
+        }
+    }
+
+    private static void flushBreaks(StringBuilder out, boolean space, int breaks) {
+        if (breaks > 0) {
+            for (int b = 0; b < breaks; b++) {
+                out.append('\n');
+            }
+        } else if (space) {
+            out.append(' ');
+        }
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder buffer = BUFFER.get();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(4096);
+            BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    /** {@code \s} of java.util.regex: space, tab, line feed, vertical tab, form feed, carriage return */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static boolean isHorizontalWhitespace(char c) {
+        return c != '\n' && isWhitespace(c);
+    }
+
+    /** Control characters that are dropped; tab, vertical tab, form feed and carriage return are whitespace */
+    private static boolean isControl(char c) {
+        return c < ' ' && !isWhitespace(c) || c == '\u007F';
+    }
+
+    private static boolean isAsciiIgnoreCase(char c, char lower) {
+        return c == lower || c == lower - ('a' - 'A');
+    }
+
+    /**
+     * Word characters as {@code \b} sees them: letters, digits, underscore, and non-spacing marks
+     * on top of a letter or digit. Horizontal whitespace is never a word character, so reading the
+     * uncollapsed text gives the same answer as reading the collapsed one.
+     */
+    private static boolean isWordAt(CharSequence text, int index) {
+        if (index >= text.length()) {
+            return false;
+        }
+        int codePoint = Character.codePointAt(text, index);
+        if (codePoint == '_' || Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        return Character.getType(codePoint) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index);
+    }
+
+    private static boolean isWordBefore(CharSequence text, int index) {
+        if (index == 0) {
+            return false;
+        }
+        int codePoint = Character.codePointBefore(text, index);
+        if (codePoint == '_' || Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        return Character.getType(codePoint) == Character.NON_SPACING_MARK
+            && hasBaseCharacter(text, index - Character.charCount(codePoint));
+    }
+
+    private static boolean hasBaseCharacter(CharSequence text, int index) {
+        for (int i = index; i >= 0; i--) {
+            int codePoint = Character.codePointAt(text, i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                return true;
+            }
+            if (Character.getType(codePoint) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
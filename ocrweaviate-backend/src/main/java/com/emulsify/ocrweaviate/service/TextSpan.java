@@ -0,0 +1,41 @@
+package com.emulsify.ocrweaviate.service;
+
+/**
+ * A [start, end) range over a backing text that is only copied when {@link #toString()} is called.
+ *
+ * The backing text must not change inside the range while the span is in use.
+ */
+public record TextSpan(CharSequence source, int start, int end) implements CharSequence {
+
+    public TextSpan {
+        if (start < 0 || end < start || end > source.length()) {
+            throw new IndexOutOfBoundsException("Span [" + start + ", " + end + ") out of bounds for length " + source.length());
+        }
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public TextSpan subSequence(int from, int to) {
+        if (from < 0 || to < from || to > length()) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length());
+        }
+        return new TextSpan(source, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return source.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,231 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Chunker that fills each chunk up to a token budget of the embedding model.
+ *
+ * Appended text is split into words and punctuation as it arrives and each word is counted
+ * with the tokenizer. When the next word would exceed the budget, the chunk is cut after the
+ * last sentence end in its second half, or else before that word. The next chunk starts with
+ * the words that make up at most the overlap budget. Chunks are spans over the retained text.
+ */
+public class TokenBudgetChunker implements TextChunker {
+
+    private final Tokenizer tokenizer;
+    private final int maxTokens;
+    private final int overlapTokens;
+    private final Consumer<TextSpan> spanConsumer;
+
+    private final StringBuilder text = new StringBuilder();
+    private int scanned;
+    private boolean started;
+    private boolean finished;
+    private long charactersSeen;
+
+    // Words and punctuation since the start of the current window
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int[] tokens = new int[256];
+    private boolean[] sentenceEnds = new boolean[256];
+    private int count;
+    private int first;
+    private int windowTokens;
+    private int emittedUpTo;
+
+    private int chunksEmitted;
+    private long tokensEmitted;
+
+    public TokenBudgetChunker(Tokenizer tokenizer, int maxTokens, int overlapTokens, Consumer<TextSpan> spanConsumer) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("Token budget must be positive");
+        }
+        if (overlapTokens < 0 || overlapTokens >= maxTokens) {
+            throw new IllegalArgumentException("Token overlap must be smaller than the token budget");
+        }
+        this.tokenizer = tokenizer;
+        this.maxTokens = maxTokens;
+        this.overlapTokens = overlapTokens;
+        this.spanConsumer = spanConsumer;
+    }
+
+    @Override
+    public void append(CharSequence piece) {
+        if (finished) {
+            throw new IllegalStateException("Chunker already finished");
+        }
+        if (piece == null || piece.length() == 0) {
+            return;
+        }
+
+        int from = 0;
+        if (!started) {
+            while (from < piece.length() && piece.charAt(from) <= ' ') {
+                from++;
+            }
+            if (from == piece.length()) {
+                return;
+            }
+            started = true;
+        }
+
+        text.append(piece, from, piece.length());
+        charactersSeen += piece.length() - from;
+        scan(false);
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        scan(true);
+
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        text.setLength(end);
+
+        if (count > emittedUpTo) {
+            emit(first, count);
+        }
+    }
+
+    @Override
+    public CharSequence getText() {
+        return text;
+    }
+
+    @Override
+    public long getCharactersSeen() {
+        return charactersSeen;
+    }
+
+    public int getChunksEmitted() {
+        return chunksEmitted;
+    }
+
+    public long getTokensEmitted() {
+        return tokensEmitted;
+    }
+
+    /**
+     * Split the text after the last scanned position into words and punctuation. A word that
+     * reaches the end of the text may continue in the next piece, so it waits unless finishing.
+     */
+    private void scan(boolean atEnd) {
+        while (scanned < text.length()) {
+            char c = text.charAt(scanned);
+            if (Character.isWhitespace(c) || c <= ' ') {
+                scanned++;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = scanned + 1;
+                while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+                    end++;
+                }
+                if (end == text.length() && !atEnd) {
+                    return;
+                }
+                add(scanned, end, tokenizer.countTokens(text.subSequence(scanned, end)), false);
+                scanned = end;
+            } else {
+                add(scanned, scanned + 1, 1, c == '.' || c == '!' || c == '?');
+                scanned++;
+            }
+        }
+    }
+
+    private void add(int start, int end, int tokenCount, boolean sentenceEnd) {
+        if (count == starts.length) {
+            grow();
+        }
+        starts[count] = start;
+        ends[count] = end;
+        tokens[count] = tokenCount;
+        sentenceEnds[count] = sentenceEnd;
+        count++;
+        windowTokens += tokenCount;
+
+        while (windowTokens > maxTokens && count - first > 1) {
+            cut();
+        }
+    }
+
+    /**
+     * Emit the current window without its last word, which overflowed the budget
+     */
+    private void cut() {
+        int end = count - 1;
+        if (end <= emittedUpTo) {
+            // Only the overlap of the previous chunk precedes the word; drop it instead of emitting it again
+            first = end;
+            windowTokens = tokens[end];
+            return;
+        }
+        int fitting = windowTokens - tokens[end];
+
+        // Prefer ending at a sentence, if that still fills at least half of the budget
+        int upTo = fitting;
+        for (int i = end - 1; i > first && upTo >= maxTokens / 2; i--) {
+            if (sentenceEnds[i]) {
+                end = i + 1;
+                break;
+            }
+            upTo -= tokens[i];
+        }
+        emit(first, end);
+
+        int next = end;
+        int repeated = 0;
+        while (next > first + 1 && repeated + tokens[next - 1] <= overlapTokens) {
+            next--;
+            repeated += tokens[next];
+        }
+
+        windowTokens = 0;
+        for (int i = next; i < count; i++) {
+            windowTokens += tokens[i];
+        }
+        first = next;
+
+        if (first > starts.length / 2) {
+            compact();
+        }
+    }
+
+    private void emit(int from, int to) {
+        int chunkTokens = 0;
+        for (int i = from; i < to; i++) {
+            chunkTokens += tokens[i];
+        }
+        chunksEmitted++;
+        tokensEmitted += chunkTokens;
+        emittedUpTo = to;
+        spanConsumer.accept(new TextSpan(text, starts[from], ends[to - 1]));
+    }
+
+    /**
+     * Drop words before the current window; the text itself is retained
+     */
+    private void compact() {
+        int shift = first;
+        System.arraycopy(starts, shift, starts, 0, count - shift);
+        System.arraycopy(ends, shift, ends, 0, count - shift);
+        System.arraycopy(tokens, shift, tokens, 0, count - shift);
+        System.arraycopy(sentenceEnds, shift, sentenceEnds, 0, count - shift);
+        count -= shift;
+        emittedUpTo = Math.max(0, emittedUpTo - shift);
+        first = 0;
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        tokens = Arrays.copyOf(tokens, capacity);
+        sentenceEnds = Arrays.copyOf(sentenceEnds, capacity);
+    }
+}
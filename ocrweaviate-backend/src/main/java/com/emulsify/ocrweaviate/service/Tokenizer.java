@@ -0,0 +1,32 @@
+package com.emulsify.ocrweaviate.service;
+
+/**
+ * Counts the tokens an embedding model produces for text.
+ *
+ * Text is pre-split into words (runs of letters and digits) and single punctuation
+ * characters, like the basic tokenizer of BERT-style models. Implementations count the
+ * tokens of one word; a punctuation character is always one token.
+ */
+public interface Tokenizer {
+
+    int countTokens(CharSequence word);
+
+    String getName();
+
+    /**
+     * Rough count for when no vocabulary is configured: one token per four characters
+     */
+    static Tokenizer estimating() {
+        return new Tokenizer() {
+            @Override
+            public int countTokens(CharSequence word) {
+                return Math.max(1, (word.length() + 3) / 4);
+            }
+
+            @Override
+            public String getName() {
+                return "estimate";
+            }
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package com.emulsify.ocrweaviate.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads uploads exactly once, hashing them on the fly.
+ *
+ * Content up to the memory threshold stays on the heap and is handed to PDFBox and ImageIO
+ * directly, so the common upload causes no disk writes at all. Larger uploads spill to one
+ * file under ocr.temp.directory. Uploads queued for a background job are moved off the heap
+ * with {@link #spill}, so a full queue does not hold its uploads in memory.
+ */
+@Component
+public class UploadSpooler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSpooler.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${ocr.temp.directory}")
+    private String tempDirectory;
+
+    @Value("${ingestion.upload.memory-threshold:16MB}")
+    private DataSize memoryThreshold;
+
+    @Value("${ingestion.upload.max-size:50MB}")
+    private DataSize maxSize;
+
+    private final AtomicLong inMemory = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong bytesSpilled = new AtomicLong();
+
+    @PostConstruct
+    void removeStaleSpillFiles() {
+        try {
+            // Spill files only live for the duration of a job
+            FileSystemUtils.deleteRecursively(spillDirectory());
+        } catch (IOException e) {
+            logger.warn("⚠️ Failed to clean upload spool: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Spool a multipart upload. Already spooled uploads are returned as they are.
+     */
+    public SpooledUpload spool(MultipartFile file) throws IOException {
+        if (file instanceof SpooledUpload spooledUpload) {
+            return spooledUpload;
+        }
+        try (InputStream in = file.getInputStream()) {
+            return spool(file.getName(), file.getOriginalFilename(), file.getContentType(), in);
+        }
+    }
+
+    /**
+     * Spool an upload from a stream, such as a raw request body
+     *
+     * @throws IllegalArgumentException when the content exceeds the maximum upload size
+     */
+    public SpooledUpload spool(String name, String filename, String contentType, InputStream in) throws IOException {
+        try (Sink sink = open(name, filename, contentType)) {
+            byte[] chunk = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                sink.write(chunk, 0, read);
+            }
+            return sink.finish();
+        }
+    }
+
+    /**
+     * Start a push-style spool for content that arrives in pieces, e.g. reactive multipart buffers.
+     * Closing the sink without finishing it discards what was written.
+     */
+    public Sink open(String name, String filename, String contentType) {
+        return new Sink(name, filename, contentType);
+    }
+
+    /**
+     * Move an in-memory upload to a spill file, for uploads that wait in a queue
+     */
+    public SpooledUpload spill(SpooledUpload upload) throws IOException {
+        if (!upload.isInMemory()) {
+            return upload;
+        }
+        Files.createDirectories(spillDirectory());
+        Path spillFile = Files.createTempFile(spillDirectory(), "upload_", ".spool");
+        try {
+            upload.transferTo(spillFile);
+        } catch (IOException e) {
+            Files.deleteIfExists(spillFile);
+            throw e;
+        }
+        spilled.incrementAndGet();
+        bytesSpilled.addAndGet(upload.getSize());
+        return upload.onFile(spillFile, true);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "memory_threshold_bytes", memoryThreshold.toBytes(),
+            "in_memory", inMemory.get(),
+            "spilled", spilled.get(),
+            "bytes_spilled", bytesSpilled.get()
+        );
+    }
+
+    /**
+     * Receives the bytes of one upload, keeping them in memory until the threshold and then
+     * spilling to a file
+     */
+    public final class Sink implements AutoCloseable {
+
+        private final String name;
+        private final String filename;
+        private final String contentType;
+        private final MessageDigest digest = ContentHashes.newSha256();
+        private final long threshold = memoryThreshold.toBytes();
+        private final long limit = maxSize.toBytes();
+
+        private byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private int length;
+        private Path spillFile;
+        private OutputStream spillOut;
+        private long size;
+        private boolean finished;
+
+        private Sink(String name, String filename, String contentType) {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+        }
+
+        /**
+         * @throws IllegalArgumentException when the content exceeds the maximum upload size
+         */
+        public void write(byte[] chunk, int offset, int count) throws IOException {
+            digest.update(chunk, offset, count);
+            size += count;
+            if (size > limit) {
+                throw new IllegalArgumentException("Upload exceeds the maximum size of " + maxSize.toMegabytes() + " MB");
+            }
+
+            if (spillOut == null && size > threshold) {
+                Files.createDirectories(spillDirectory());
+                spillFile = Files.createTempFile(spillDirectory(), "upload_", ".spool");
+                spillOut = Files.newOutputStream(spillFile);
+                spillOut.write(buffer, 0, length);
+                buffer = null;
+            }
+
+            if (spillOut != null) {
+                spillOut.write(chunk, offset, count);
+            } else {
+                if (length + count > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(threshold, Math.max(buffer.length * 2L, length + count)));
+                }
+                System.arraycopy(chunk, offset, buffer, length, count);
+                length += count;
+            }
+        }
+
+        public SpooledUpload finish() throws IOException {
+            finished = true;
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            if (spillOut != null) {
+                spillOut.close();
+                spilled.incrementAndGet();
+                bytesSpilled.addAndGet(size);
+                logger.debug("Upload {} spilled to disk ({} bytes)", filename, size);
+                return new SpooledUpload(name, filename, contentType, contentHash, size, null, spillFile);
+            }
+
+            inMemory.incrementAndGet();
+            byte[] content = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+            return new SpooledUpload(name, filename, contentType, contentHash, size, content, null);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (spillOut != null) {
+                spillOut.close();
+                Files.deleteIfExists(spillFile);
+            }
+        }
+    }
+
+    private Path spillDirectory() {
+        return Paths.get(tempDirectory, "spool");
+    }
+}
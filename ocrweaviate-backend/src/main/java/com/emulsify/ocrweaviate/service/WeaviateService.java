@@ -1,21 +1,96 @@
 package com.emulsify.ocrweaviate.service;
 
 import com.emulsify.ocrweaviate.config.WeaviateConfig;
+import com.emulsify.ocrweaviate.model.ChunkProvenance;
+import com.emulsify.ocrweaviate.model.WeaviateDocument;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
+/**
+ * Vector store access over Weaviate's REST API.
+ *
+ * Chunks are written through the batch objects endpoint, at most weaviate.batch.size objects
+ * per request and at most weaviate.batch.max-in-flight requests at a time across all callers.
+ * Each object gets an id derived from its document and position, so a batch retried after a
+ * timeout overwrites what may already have been stored instead of duplicating it. Objects the
+ * batch response reports as failed for a transient reason (timeouts, an unavailable or rate
+ * limited vectorizer), and whole batches failing with 429 or 5xx, are retried with exponential
+ * backoff; an object rejected for any other reason (e.g. an invalid property) fails the batch
+ * right away, since sending it again cannot help.
+ *
+ * A chunk marked as a near-duplicate of a stored one is written to the link collection
+ * (the collection name + "Link", created with no vectorizer) instead: it keeps its own
+ * document, source and text but is neither embedded nor indexed, so searches over the
+ * collection never see it. When the document of the original chunk is deleted, the links
+ * pointing at it are stored as regular chunks again, so their text stays searchable.
+ */
 @Service
 public class WeaviateService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(WeaviateService.class);
+
+    private static final String BATCH_OBJECTS_PATH = "/v1/batch/objects";
+    private static final String SCHEMA_PATH = "/v1/schema";
+    private static final String GRAPHQL_PATH = "/v1/graphql";
+    private static final String LINK_SUFFIX = "Link";
+    // Links read back per round when their original document is deleted
+    private static final int PROMOTE_PAGE_SIZE = 100;
+    // Each batch delete removes up to the server's QUERY_MAXIMUM_RESULTS (10,000 by default) objects
+    private static final int MAX_CLEAR_ROUNDS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+    // Per-object errors worth retrying: the vectorizer or a shard was slow, down or throttling
+    private static final Pattern TRANSIENT_OBJECT_ERROR = Pattern.compile(
+        "timeout|timed out|deadline exceeded|unavailable|connection (refused|reset)|too many requests|rate limit"
+            + "|status( ?code)?:? ?(429|5\\d\\d)|try again|temporar|\\bEOF\\b", Pattern.CASE_INSENSITIVE);
+
     private final WeaviateConfig weaviateConfig;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final Semaphore batchesInFlight;
+
+    private final AtomicLong requestsSent = new AtomicLong();
+    private final AtomicLong objectsStored = new AtomicLong();
+    private final AtomicLong objectsRetried = new AtomicLong();
+    private final AtomicLong objectsFailed = new AtomicLong();
+    private final AtomicLong linksStored = new AtomicLong();
+    private final AtomicLong charactersNotEmbedded = new AtomicLong();
+    private final AtomicLong linksPromoted = new AtomicLong();
+    private volatile boolean linkCollectionReady;
 
     @Autowired
     public WeaviateService(WeaviateConfig weaviateConfig) {
         this.weaviateConfig = weaviateConfig;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        int timeoutSeconds = weaviateConfig.getTimeout().getSeconds();
+        if (timeoutSeconds > 0) {
+            requestFactory.setConnectTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
+            requestFactory.setReadTimeout((int) TimeUnit.SECONDS.toMillis(timeoutSeconds));
+        }
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.objectMapper = new ObjectMapper();
+        this.batchesInFlight = new Semaphore(Math.max(1, weaviateConfig.getBatch().getMaxInFlight()), true);
     }
 
     public boolean initializeCollection() {
@@ -28,8 +103,70 @@ public class WeaviateService {
         }
     }
 
-    public int storeDocumentChunks(List<String> chunks, String filename) {
-        return chunks.size();
+    /**
+     * Store chunks tagged with the content-addressed id of their document; they are read as
+     * strings only here, so callers can pass spans over the document text
+     */
+    public int storeDocumentChunks(List<? extends CharSequence> chunks, String filename, String documentId) {
+        List<WeaviateDocument> documents = new ArrayList<>(chunks.size());
+        for (CharSequence chunk : chunks) {
+            documents.add(new WeaviateDocument(chunk.toString(), filename, documentId));
+        }
+        return storeChunks(documents);
+    }
+
+    /**
+     * Store chunks with their properties, including where in the document each one comes from
+     *
+     * @return number of chunks stored
+     * @throws IllegalArgumentException when a chunk has no document id
+     * @throws IllegalStateException when some chunks could not be stored after all retries
+     */
+    public int storeChunks(List<WeaviateDocument> chunks) {
+        for (WeaviateDocument chunk : chunks) {
+            // Deletes find chunks by their document id; a chunk without one could never be removed
+            if (chunk.getDocumentId() == null) {
+                throw new IllegalArgumentException("Chunk of " + chunk.getSource() + " has no document id");
+            }
+        }
+        int batchSize = getBatchSize();
+        int stored = 0;
+        for (int from = 0; from < chunks.size(); from += batchSize) {
+            stored += storeBatch(chunks.subList(from, Math.min(chunks.size(), from + batchSize)));
+        }
+        return stored;
+    }
+
+    /**
+     * Objects sent per batch request
+     */
+    public int getBatchSize() {
+        return Math.max(1, weaviateConfig.getBatch().getSize());
+    }
+
+    /**
+     * Delete every chunk and link of a document, e.g. before it is re-ingested. Links of other
+     * documents to its chunks are stored as regular chunks first.
+     */
+    public boolean deleteDocument(String documentId) {
+        try {
+            ensureLinkCollection();
+            int promoted = promoteLinksTo(documentId);
+            Map<String, Object> where = Map.of(
+                "path", List.of("document_id"),
+                "operator", "Equal",
+                "valueText", documentId);
+            for (String className : List.of(collectionName(), linkCollectionName())) {
+                Map<String, Object> body = Map.of("match", Map.of("class", className, "where", where));
+                restTemplate.exchange(url(BATCH_OBJECTS_PATH), HttpMethod.DELETE,
+                    new HttpEntity<>(objectMapper.writeValueAsString(body), headers()), String.class);
+            }
+            logger.info("Document {} deleted ({} link(s) of other documents stored as chunks)", documentId, promoted);
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to delete document {}: {}", documentId, e.getMessage());
+            return false;
+        }
     }
 
     public List<Map<String, Object>> searchDocuments(String query, int limit) {
@@ -41,9 +178,16 @@ public class WeaviateService {
         return results;
     }
 
+    /**
+     * Delete every chunk of the collection and every link. Every object has a document id, so
+     * matching any document id matches them all. A batch delete removes at most the server's
+     * query limit of objects, so it is repeated until nothing matches any more.
+     */
     public boolean clearAllDocuments() {
         try {
-            logger.info("All documents cleared");
+            ensureLinkCollection();
+            long deleted = clearCollection(collectionName()) + clearCollection(linkCollectionName());
+            logger.info("All documents cleared: {} objects deleted", deleted);
             return true;
         } catch (Exception e) {
             logger.error("Failed to clear documents: {}", e.getMessage());
@@ -51,6 +195,31 @@ public class WeaviateService {
         }
     }
 
+    private long clearCollection(String className) throws IOException {
+        Map<String, Object> where = Map.of(
+            "path", List.of("document_id"),
+            "operator", "Like",
+            "valueText", "*");
+        String body = objectMapper.writeValueAsString(Map.of("match", Map.of("class", className, "where", where)));
+        long deleted = 0;
+        for (int round = 0; round < MAX_CLEAR_ROUNDS; round++) {
+            String response = restTemplate.exchange(url(BATCH_OBJECTS_PATH), HttpMethod.DELETE,
+                new HttpEntity<>(body, headers()), String.class).getBody();
+            JsonNode results = objectMapper.readTree(response == null ? "{}" : response).path("results");
+            if (!results.has("matches")) {
+                throw new IllegalStateException("unexpected batch delete response: " + response);
+            }
+            if (results.path("failed").asLong() > 0) {
+                throw new IllegalStateException(results.path("failed").asLong() + " objects of " + className + " could not be deleted");
+            }
+            deleted += results.path("successful").asLong();
+            if (results.path("matches").asLong() == 0) {
+                return deleted;
+            }
+        }
+        throw new IllegalStateException("objects of " + className + " were still left after " + MAX_CLEAR_ROUNDS + " batch deletes");
+    }
+
     public boolean testConnection() {
         try {
             logger.info("Connection test successful");
@@ -60,4 +229,281 @@ public class WeaviateService {
             return false;
         }
     }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batch_size", weaviateConfig.getBatch().getSize());
+        stats.put("max_in_flight", weaviateConfig.getBatch().getMaxInFlight());
+        stats.put("requests_sent", requestsSent.get());
+        stats.put("objects_stored", objectsStored.get());
+        stats.put("objects_retried", objectsRetried.get());
+        stats.put("objects_failed", objectsFailed.get());
+        // Links are stored without a vector: each one is an embedding and an index entry saved
+        stats.put("links_stored", linksStored.get());
+        stats.put("characters_not_embedded", charactersNotEmbedded.get());
+        stats.put("links_promoted", linksPromoted.get());
+        return stats;
+    }
+
+    /**
+     * Send one batch, retrying the objects that failed until all are stored or the retries run out
+     */
+    private int storeBatch(List<WeaviateDocument> documents) {
+        Map<String, WeaviateDocument> pending = new LinkedHashMap<>();
+        for (WeaviateDocument document : documents) {
+            pending.put(objectId(document), document);
+            if (document.getDuplicateOf() != null) {
+                ensureLinkCollection();
+            }
+        }
+        int maxRetries = Math.max(0, weaviateConfig.getBatch().getMaxRetries());
+        String lastError = null;
+        List<String> rejected = new ArrayList<>();
+
+        for (int attempt = 0; ; attempt++) {
+            if (attempt > 0) {
+                objectsRetried.addAndGet(pending.size());
+                backOff(attempt);
+            }
+            try {
+                lastError = send(pending, rejected);
+            } catch (HttpStatusCodeException e) {
+                if (!isRetryable(e.getStatusCode())) {
+                    objectsFailed.addAndGet(pending.size());
+                    throw new IllegalStateException("Weaviate rejected the batch: " + e.getStatusCode()
+                        + " " + e.getResponseBodyAsString(), e);
+                }
+                lastError = e.getStatusCode().toString();
+            } catch (ResourceAccessException e) {
+                lastError = e.getMessage();
+            }
+
+            if (pending.isEmpty()) {
+                return documents.size();
+            }
+            if (!rejected.isEmpty()) {
+                objectsFailed.addAndGet(pending.size());
+                throw new IllegalStateException(String.format("%d of %d chunk(s) rejected by Weaviate: %s",
+                    rejected.size(), documents.size(), rejected.get(0)));
+            }
+            if (attempt >= maxRetries) {
+                objectsFailed.addAndGet(pending.size());
+                throw new IllegalStateException(String.format("%d of %d chunk(s) not stored after %d attempt(s): %s",
+                    pending.size(), documents.size(), attempt + 1, lastError));
+            }
+            logger.warn("⚠️ {} of {} chunk(s) not stored, retrying: {}", pending.size(), documents.size(), lastError);
+        }
+    }
+
+    /**
+     * POST the pending objects and remove those the response reports as stored
+     *
+     * @param rejected receives the errors of objects that failed for a reason retrying cannot fix
+     * @return first error reported for an object, or null
+     */
+    private String send(Map<String, WeaviateDocument> pending, List<String> rejected) {
+        List<Map<String, Object>> objects = new ArrayList<>(pending.size());
+        for (Map.Entry<String, WeaviateDocument> entry : pending.entrySet()) {
+            Map<String, Object> object = new LinkedHashMap<>();
+            object.put("class", entry.getValue().getDuplicateOf() != null ? linkCollectionName() : collectionName());
+            object.put("id", entry.getKey());
+            object.put("properties", entry.getValue().toMap());
+            objects.add(object);
+        }
+
+        String response;
+        try {
+            String body = objectMapper.writeValueAsString(Map.of("objects", objects));
+            batchesInFlight.acquire();
+            try {
+                requestsSent.incrementAndGet();
+                response = restTemplate.postForObject(url(BATCH_OBJECTS_PATH), new HttpEntity<>(body, headers()), String.class);
+            } finally {
+                batchesInFlight.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to send a batch", e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize the batch: " + e.getMessage(), e);
+        }
+
+        String firstError = null;
+        try {
+            for (JsonNode result : objectMapper.readTree(response == null ? "[]" : response)) {
+                JsonNode errors = result.path("result").path("errors").path("error");
+                if (errors.isArray() && !errors.isEmpty()) {
+                    String message = errors.get(0).path("message").asText();
+                    if (!TRANSIENT_OBJECT_ERROR.matcher(message).find()) {
+                        rejected.add(message);
+                    }
+                    if (firstError == null) {
+                        firstError = message;
+                    }
+                } else {
+                    WeaviateDocument stored = pending.remove(result.path("id").asText());
+                    if (stored != null) {
+                        objectsStored.incrementAndGet();
+                        if (stored.getDuplicateOf() != null) {
+                            linksStored.incrementAndGet();
+                            charactersNotEmbedded.addAndGet(stored.getContent().length());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Nothing is known to be stored; the pending objects are sent again
+            return "Unreadable batch response: " + e.getMessage();
+        }
+        return firstError;
+    }
+
+    /**
+     * Create the link collection without a vectorizer, once; auto-schema would give it the
+     * default vectorizer and embed every link
+     */
+    private void ensureLinkCollection() {
+        if (linkCollectionReady) {
+            return;
+        }
+        synchronized (this) {
+            if (linkCollectionReady) {
+                return;
+            }
+            try {
+                Map<String, Object> schema = Map.of(
+                    "class", linkCollectionName(),
+                    "description", "Near-duplicate chunks of " + collectionName() + ", stored without vectors",
+                    "vectorizer", "none",
+                    "vectorIndexConfig", Map.of("skip", true));
+                restTemplate.postForObject(url(SCHEMA_PATH),
+                    new HttpEntity<>(objectMapper.writeValueAsString(schema), headers()), String.class);
+                logger.info("Link collection {} created", linkCollectionName());
+            } catch (HttpStatusCodeException e) {
+                if (!e.getResponseBodyAsString().contains("already exists")) {
+                    throw new IllegalStateException("Failed to create the link collection: " + e.getStatusCode()
+                        + " " + e.getResponseBodyAsString(), e);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to serialize the link collection schema: " + e.getMessage(), e);
+            }
+            linkCollectionReady = true;
+        }
+    }
+
+    /**
+     * Store the links to a document's chunks as regular (embedded) chunks and remove them
+     * from the link collection, a page at a time
+     *
+     * @return number of links promoted
+     */
+    private int promoteLinksTo(String documentId) throws IOException {
+        int promoted = 0;
+        for (int round = 0; round < MAX_CLEAR_ROUNDS; round++) {
+            List<WeaviateDocument> links = findLinksTo(documentId);
+            if (links.isEmpty()) {
+                return promoted;
+            }
+            List<String> ids = new ArrayList<>(links.size());
+            for (WeaviateDocument link : links) {
+                ids.add(objectId(link));
+                link.setDuplicateOf(null);
+                link.setDuplicateOfDocument(null);
+            }
+            storeChunks(links);
+
+            Map<String, Object> where = Map.of(
+                "path", List.of("id"),
+                "operator", "ContainsAny",
+                "valueTextArray", ids);
+            Map<String, Object> body = Map.of("match", Map.of("class", linkCollectionName(), "where", where));
+            restTemplate.exchange(url(BATCH_OBJECTS_PATH), HttpMethod.DELETE,
+                new HttpEntity<>(objectMapper.writeValueAsString(body), headers()), String.class);
+            promoted += links.size();
+            linksPromoted.addAndGet(links.size());
+        }
+        throw new IllegalStateException("links to " + documentId + " were still left after " + MAX_CLEAR_ROUNDS + " rounds");
+    }
+
+    /**
+     * Up to a page of links to the chunks of a document, read back with their properties
+     */
+    private List<WeaviateDocument> findLinksTo(String documentId) throws IOException {
+        String query = String.format("{ Get { %s(where: {path: [\"duplicate_of_document\"], operator: Equal, valueText: %s}, limit: %d) "
+                + "{ content source document_id page page_end start_offset end_offset bbox duplicate_of duplicate_of_document } } }",
+            linkCollectionName(), objectMapper.writeValueAsString(documentId), PROMOTE_PAGE_SIZE);
+        String response = restTemplate.postForObject(url(GRAPHQL_PATH),
+            new HttpEntity<>(objectMapper.writeValueAsString(Map.of("query", query)), headers()), String.class);
+        JsonNode root = objectMapper.readTree(response == null ? "{}" : response);
+        if (root.path("errors").isArray() && !root.path("errors").isEmpty()) {
+            throw new IllegalStateException("Failed to read links to " + documentId + ": "
+                + root.path("errors").get(0).path("message").asText());
+        }
+
+        List<WeaviateDocument> links = new ArrayList<>();
+        for (JsonNode object : root.path("data").path("Get").path(linkCollectionName())) {
+            WeaviateDocument link = new WeaviateDocument(object.path("content").asText(), object.path("source").asText(),
+                object.path("document_id").isTextual() ? object.path("document_id").asText() : null);
+            if (object.path("start_offset").isNumber()) {
+                JsonNode bbox = object.path("bbox");
+                link.setProvenance(new ChunkProvenance(object.path("page").asInt(), object.path("page_end").asInt(),
+                    object.path("start_offset").asInt(), object.path("end_offset").asInt(),
+                    bbox.isArray() ? objectMapper.convertValue(bbox, int[].class) : null));
+            }
+            link.setDuplicateOf(object.path("duplicate_of").asText());
+            link.setDuplicateOfDocument(documentId);
+            links.add(link);
+        }
+        return links;
+    }
+
+    private void backOff(int attempt) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, weaviateConfig.getBatch().getBackoffMillis() << Math.min(attempt - 1, 16));
+        try {
+            // Half fixed, half jitter, so callers failing together do not retry together
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a batch", e);
+        }
+    }
+
+    private static boolean isRetryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 429 || status.value() == 408;
+    }
+
+    /**
+     * Stable id of a chunk: the same chunk of the same document always maps to the same object
+     */
+    public String objectId(WeaviateDocument document) {
+        ChunkProvenance provenance = document.getProvenance();
+        String key = collectionName() + '\n'
+            + document.getDocumentId() + '\n'
+            + (provenance != null ? provenance.startOffset() : -1) + '\n'
+            + document.getContent();
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String key = weaviateConfig.getApi().getKey();
+        if (key != null && !key.isBlank()) {
+            headers.setBearerAuth(key);
+        }
+        return headers;
+    }
+
+    private String url(String path) {
+        String base = weaviateConfig.getApi().getUrl();
+        return (base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + path;
+    }
+
+    private String collectionName() {
+        return weaviateConfig.getCollectionName();
+    }
+
+    private String linkCollectionName() {
+        return collectionName() + LINK_SUFFIX;
+    }
 }
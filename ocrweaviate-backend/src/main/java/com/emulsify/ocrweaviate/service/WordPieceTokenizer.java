@@ -0,0 +1,110 @@
+package com.emulsify.ocrweaviate.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * WordPiece token counts from the vocab.txt of a BERT-style embedding model.
+ *
+ * Words are split greedily into the longest vocabulary pieces, continuation pieces carrying
+ * the "##" prefix. A word that cannot be split, or is longer than 100 characters, is a single
+ * unknown token. Candidate pieces are capped at the longest vocabulary entry.
+ */
+public class WordPieceTokenizer implements Tokenizer {
+
+    private static final String CONTINUATION = "##";
+    private static final int MAX_WORD_CHARS = 100;
+
+    private final Set<String> wordStarts = new HashSet<>();
+    private final Set<String> continuations = new HashSet<>();
+    private final boolean lowercase;
+    private final int maxPieceLength;
+
+    public WordPieceTokenizer(Collection<String> vocabulary, boolean lowercase) {
+        int longest = 1;
+        for (String entry : vocabulary) {
+            if (entry.startsWith(CONTINUATION) && entry.length() > CONTINUATION.length()) {
+                continuations.add(entry.substring(CONTINUATION.length()));
+                longest = Math.max(longest, entry.length() - CONTINUATION.length());
+            } else if (!entry.isEmpty()) {
+                wordStarts.add(entry);
+                longest = Math.max(longest, entry.length());
+            }
+        }
+        this.lowercase = lowercase;
+        this.maxPieceLength = longest;
+    }
+
+    /**
+     * Load a vocabulary file with one token per line
+     */
+    public static WordPieceTokenizer load(Path vocabFile, boolean lowercase) throws IOException {
+        return new WordPieceTokenizer(Files.readAllLines(vocabFile, StandardCharsets.UTF_8).stream()
+            .map(String::strip)
+            .toList(), lowercase);
+    }
+
+    @Override
+    public int countTokens(CharSequence word) {
+        String text = normalize(word);
+        if (text.length() > MAX_WORD_CHARS) {
+            return 1;
+        }
+
+        int tokens = 0;
+        int start = 0;
+        while (start < text.length()) {
+            Set<String> pieces = start == 0 ? wordStarts : continuations;
+            int end = Math.min(text.length(), start + maxPieceLength);
+            while (end > start && !pieces.contains(text.substring(start, end))) {
+                end--;
+            }
+            if (end == start) {
+                // No piece matches: the whole word is the unknown token
+                return 1;
+            }
+            tokens++;
+            start = end;
+        }
+        return tokens;
+    }
+
+    @Override
+    public String getName() {
+        return "wordpiece";
+    }
+
+    public int getVocabularySize() {
+        return wordStarts.size() + continuations.size();
+    }
+
+    /**
+     * Lowercase and strip accents like uncased BERT models
+     */
+    private String normalize(CharSequence word) {
+        String text = word.toString();
+        if (!lowercase) {
+            return text;
+        }
+        text = text.toLowerCase(Locale.ROOT);
+        if (text.chars().allMatch(c -> c < 0x80)) {
+            return text;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder stripped = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                stripped.append(c);
+            }
+        }
+        return stripped.toString();
+    }
+}
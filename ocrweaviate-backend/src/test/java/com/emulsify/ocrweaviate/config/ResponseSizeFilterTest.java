@@ -0,0 +1,37 @@
+package com.emulsify.ocrweaviate.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseSizeFilterTest {
+
+    @Test
+    void recordsBodyBytesPerEndpointPattern() throws Exception {
+        ResponseSizeFilter filter = new ResponseSizeFilter();
+
+        for (String body : new String[] {"{\"a\":1}", "{\"message\":\"done\"}"}) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/jobs/42");
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/jobs/{id}");
+                if (body.length() < 10) {
+                    res.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+                } else {
+                    res.getWriter().write(body);
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sizes = (Map<String, Object>) filter.getStats().get("GET /jobs/{id}");
+        assertEquals(2L, sizes.get("count"));
+        assertEquals(25L, sizes.get("total_bytes"));
+        assertEquals(18L, sizes.get("max_bytes"));
+    }
+}
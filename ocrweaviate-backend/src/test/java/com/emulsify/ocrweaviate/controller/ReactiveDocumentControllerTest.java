@@ -0,0 +1,121 @@
+package com.emulsify.ocrweaviate.controller;
+
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import com.emulsify.ocrweaviate.service.BulkIngestionService;
+import com.emulsify.ocrweaviate.service.Bulkheads;
+import com.emulsify.ocrweaviate.service.DocumentProcessingService;
+import com.emulsify.ocrweaviate.service.IngestionJobService;
+import com.emulsify.ocrweaviate.service.SpooledUpload;
+import com.emulsify.ocrweaviate.service.UploadSpooler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveDocumentControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IngestionJobService ingestionJobService;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        UploadSpooler uploadSpooler = new UploadSpooler();
+        ReflectionTestUtils.setField(uploadSpooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(uploadSpooler, "memoryThreshold", DataSize.ofKilobytes(1));
+        ReflectionTestUtils.setField(uploadSpooler, "maxSize", DataSize.ofMegabytes(1));
+
+        ingestionJobService = mock(IngestionJobService.class);
+        ReactiveDocumentController controller = new ReactiveDocumentController(
+            mock(DocumentProcessingService.class), ingestionJobService, uploadSpooler,
+            mock(BulkIngestionService.class), mock(Bulkheads.class), Schedulers.immediate(), Schedulers.immediate());
+        client = WebTestClient.bindToController(controller).build();
+    }
+
+    @Test
+    void spoolsStreamedPartsAndQueuesOneJob() {
+        when(ingestionJobService.submitSpooled(anyList(), any(), anyBoolean(), any()))
+            .thenReturn(new IngestionJob(List.of("a.pdf", "b.png")));
+
+        byte[] large = "x".repeat(4096).getBytes(StandardCharsets.UTF_8);
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("files", resource("a.pdf", large));
+        body.part("files", resource("b.png", "small".getBytes(StandardCharsets.UTF_8)));
+
+        client.post().uri("/upload").header("X-Tenant-Id", "clinic-a")
+            .body(BodyInserters.fromMultipartData(body.build()))
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.ACCEPTED)
+            .expectBody().jsonPath("$.job_id").exists();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SpooledUpload>> uploads = ArgumentCaptor.forClass(List.class);
+        verify(ingestionJobService).submitSpooled(uploads.capture(), eq("clinic-a"), eq(false), eq(UploadResponse.View.FULL));
+        assertEquals(2, uploads.getValue().size());
+        assertEquals(large.length, uploads.getValue().get(0).getSize());
+        assertEquals(false, uploads.getValue().get(0).isInMemory());
+        assertEquals("b.png", uploads.getValue().get(1).getOriginalFilename());
+    }
+
+    @Test
+    void rejectsUnsupportedFilesWithoutQueueing() {
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("files", resource("notes.docx", "text".getBytes(StandardCharsets.UTF_8)));
+
+        client.post().uri("/upload")
+            .body(BodyInserters.fromMultipartData(body.build()))
+            .exchange()
+            .expectStatus().isBadRequest();
+
+        verify(ingestionJobService, never()).submitSpooled(anyList(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void answersServiceUnavailableWhenTheIngestionQueueIsFull() {
+        when(ingestionJobService.submitSpooled(anyList(), any(), anyBoolean(), any()))
+            .thenThrow(new RejectedExecutionException("Ingestion queue is full"));
+
+        MultipartBodyBuilder body = new MultipartBodyBuilder();
+        body.part("files", resource("a.png", "small".getBytes(StandardCharsets.UTF_8)));
+
+        client.post().uri("/upload")
+            .body(BodyInserters.fromMultipartData(body.build()))
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private static ByteArrayResource resource(String filename, byte[] content) {
+        return new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.exception.AdmissionRejectedException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlServiceTest {
+
+    // One A4 page rendered at 300 DPI
+    private static final double A4_MEGAPIXELS = (595.0 / 72 * 300) * (842.0 / 72 * 300) / 1_000_000;
+
+    @TempDir
+    Path tempDir;
+
+    private AdmissionControlService admissionControl;
+    private UploadSpooler uploadSpooler;
+
+    @BeforeEach
+    void setUp() {
+        admissionControl = new AdmissionControlService();
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "capacityMegapixels", 100.0);
+        ReflectionTestUtils.setField(admissionControl, "defaultDrainRate", 5.0);
+        ReflectionTestUtils.setField(admissionControl, "maxRetryAfterSeconds", 300L);
+
+        uploadSpooler = new UploadSpooler();
+        ReflectionTestUtils.setField(uploadSpooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(uploadSpooler, "memoryThreshold", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(uploadSpooler, "maxSize", DataSize.ofMegabytes(10));
+    }
+
+    @Test
+    void pricesPdfsByPageAreaAndImagesByTheirThreeOcrPasses() throws IOException {
+        byte[] pdf;
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.save(out);
+            pdf = out.toByteArray();
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "png", png);
+
+        assertEquals(2 * A4_MEGAPIXELS, estimate("scan.pdf", pdf), 0.1);
+        assertEquals(1.5, estimate("photo.png", png.toByteArray()), 0.001);
+        // Unreadable files are priced as one page
+        assertEquals(A4_MEGAPIXELS, estimate("broken.jpg", "not an image".getBytes(StandardCharsets.UTF_8)), 0.1);
+    }
+
+    @Test
+    void rejectsWorkBeyondCapacityWithRetryAfterFromTheDrainRate() {
+        admissionControl.admit(80);
+
+        // 20 MP over capacity at the default 5 MP/s
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit(40));
+        assertEquals(4, rejected.getRetryAfterSeconds());
+
+        // 80 MP drained within the last minute is 1.33 MP/s
+        admissionControl.release(80);
+        admissionControl.admit(90);
+        rejected = assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit(30));
+        assertEquals(15, rejected.getRetryAfterSeconds());
+
+        rejected = assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit(10_000));
+        assertEquals(300, rejected.getRetryAfterSeconds());
+        assertEquals(3L, admissionControl.getStats().get("rejected"));
+    }
+
+    @Test
+    void admitsAnyUploadWhenIdle() {
+        admissionControl.admit(500);
+
+        assertEquals(500.0, admissionControl.getStats().get("in_flight_megapixels"));
+    }
+
+    @Test
+    void unreservedWorkDoesNotCountAsDrained() {
+        // Admitted, then never queued
+        admissionControl.admit(60);
+        admissionControl.unreserve(60);
+        assertEquals(0.0, admissionControl.getStats().get("in_flight_megapixels"));
+        assertEquals(0L, admissionControl.getStats().get("admitted"));
+
+        admissionControl.admit(90);
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class, () -> admissionControl.admit(30));
+        // Still the default rate; counting the 60 MP as drained would have made it 20 / 1 = 20s
+        assertEquals(4, rejected.getRetryAfterSeconds());
+    }
+
+    private double estimate(String filename, byte[] content) throws IOException {
+        try (SpooledUpload upload = uploadSpooler.spool("files", filename, null, new ByteArrayInputStream(content))) {
+            return admissionControl.estimateCost(upload);
+        }
+    }
+}
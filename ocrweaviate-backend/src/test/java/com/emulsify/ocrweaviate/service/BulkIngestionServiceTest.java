@@ -0,0 +1,181 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.BulkIngestionRun;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkIngestionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DocumentProcessingService documentService;
+    private ThreadPoolTaskExecutor executor;
+    private BulkIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        documentService = mock(DocumentProcessingService.class);
+        when(documentService.processDocuments(anyList(), any())).thenAnswer(invocation -> {
+            List<MultipartFile> files = invocation.getArgument(0);
+            String filename = files.get(0).getOriginalFilename();
+            UploadResponse.DocumentInfo doc = filename.contains("broken")
+                ? UploadResponse.DocumentInfo.failed(filename, "Unable to read image file")
+                : new UploadResponse.DocumentInfo(filename, "text", 2, 4);
+            return new UploadResponse("done", List.of(doc), 1);
+        });
+
+        UploadSpooler spooler = new UploadSpooler();
+        ReflectionTestUtils.setField(spooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(spooler, "memoryThreshold", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(spooler, "maxSize", DataSize.ofMegabytes(10));
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+
+        service = new BulkIngestionService(documentService, spooler, executor);
+        ReflectionTestUtils.setField(service, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(service, "defaultParallelism", 2);
+        ReflectionTestUtils.setField(service, "progressLogSeconds", 30L);
+        ReflectionTestUtils.setField(service, "maxArchiveSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void ingestsArchiveEntriesAndResumesOnRerun() throws Exception {
+        Path archive = tempDir.resolve("scans.zip");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            addEntry(zip, "2019/rx-001.jpg", "first prescription");
+            addEntry(zip, "2019/rx-002.pdf", "second prescription");
+            addEntry(zip, "2019/broken.png", "not an image");
+            addEntry(zip, "2019/notes.txt", "unsupported");
+        }
+
+        BulkIngestionRun first = service.runPath(archive, null);
+
+        assertEquals(BulkIngestionRun.Status.COMPLETED, first.getStatus());
+        assertEquals(3, first.getProgress().get("discovered"));
+        assertEquals(2, first.getProgress().get("processed"));
+        assertEquals(1, first.getProgress().get("failed"));
+        assertEquals(1, first.getProgress().get("unsupported"));
+        assertEquals(4L, first.getProgress().get("chunks_stored"));
+
+        // The ledger skips what was ingested; only the failed entry is retried
+        BulkIngestionRun second = service.runPath(archive, null);
+
+        assertEquals(2, second.getProgress().get("resumed"));
+        assertEquals(1, second.getProgress().get("failed"));
+        verify(documentService, times(4)).processDocuments(anyList(), any());
+    }
+
+    @Test
+    void keysUploadedArchivesByContentRatherThanName() throws Exception {
+        byte[] first = archive("a.png", "first scan");
+        byte[] second = archive("b.png", "second scan");
+
+        // Neither is named; they must not conflict or share a ledger
+        BulkIngestionRun firstRun = service.startArchive("unnamed archive", new ByteArrayInputStream(first), null);
+        BulkIngestionRun secondRun = service.startArchive("unnamed archive", new ByteArrayInputStream(second), null);
+        assertNotEquals(firstRun.getSource(), secondRun.getSource());
+        awaitFinished(firstRun);
+        awaitFinished(secondRun);
+        assertEquals(1, secondRun.getProgress().get("processed"));
+
+        // The same bytes under another name resume the earlier run
+        BulkIngestionRun again = service.startArchive("scans.zip", new ByteArrayInputStream(first), null);
+        assertEquals(firstRun.getSource(), again.getSource());
+        awaitFinished(again);
+        assertEquals(1, again.getProgress().get("resumed"));
+        verify(documentService, times(2)).processDocuments(anyList(), any());
+    }
+
+    @Test
+    void rejectsArchivesOverTheMaximumSizeWithoutKeepingThem() throws Exception {
+        ReflectionTestUtils.setField(service, "maxArchiveSize", DataSize.ofKilobytes(64));
+        byte[] oversized = new byte[65 * 1024];
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> service.startArchive("huge.zip", new ByteArrayInputStream(oversized), null));
+
+        assertTrue(e.getMessage().contains("maximum size"));
+        try (Stream<Path> archives = Files.list(tempDir.resolve("bulk").resolve("archives"))) {
+            assertEquals(0, archives.count());
+        }
+        assertEquals(0, service.getStats().get("runs"));
+        verify(documentService, never()).processDocuments(anyList(), any());
+    }
+
+    @Test
+    void forgetsFinishedRunsAfterTheRetentionPeriod() throws Exception {
+        BulkIngestionRun first = service.startArchive("a.zip", new ByteArrayInputStream(archive("a.png", "first scan")), null);
+        awaitFinished(first);
+        assertEquals(first, service.getRun(first.getId()));
+
+        ReflectionTestUtils.setField(service, "retentionMinutes", 0);
+        BulkIngestionRun second = service.startArchive("b.zip", new ByteArrayInputStream(archive("b.png", "second scan")), null);
+
+        assertNull(service.getRun(first.getId()));
+        assertEquals(second, service.getRun(second.getId()));
+        awaitFinished(second);
+    }
+
+    private static byte[] archive(String entry, String content) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            addEntry(zip, entry, content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void awaitFinished(BulkIngestionRun run) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (run.getStatus() == BulkIngestionRun.Status.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "bulk run " + run.getId() + " did not finish");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, String content) throws Exception {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
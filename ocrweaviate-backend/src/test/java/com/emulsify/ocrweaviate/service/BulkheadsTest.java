@@ -0,0 +1,67 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadsTest {
+
+    private List<ThreadPoolTaskExecutor> executors;
+    private Bulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        executors = List.of(executor(), executor(), executor(), executor(), executor());
+        bulkheads = new Bulkheads(executors.get(0), executors.get(1), executors.get(2), executors.get(3), executors.get(4));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void saturatedBulkheadDoesNotDelayOtherClassesOfWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        bulkheads.supply(Bulkheads.INTERACTIVE, () -> await(release));
+        bulkheads.supply(Bulkheads.INTERACTIVE, () -> await(release));
+
+        assertThrows(RejectedExecutionException.class, () -> bulkheads.supply(Bulkheads.INTERACTIVE, () -> "rejected"));
+        assertEquals("answered", bulkheads.supply(Bulkheads.QUERY, () -> "answered").get(5, TimeUnit.SECONDS));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> interactive = (Map<String, Object>) bulkheads.getStats().get(Bulkheads.INTERACTIVE);
+        assertEquals(1, interactive.get("queued"));
+        assertEquals(1L, interactive.get("rejected"));
+
+        release.countDown();
+    }
+
+    private static ThreadPoolTaskExecutor executor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        return executor;
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,76 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.WeaviateDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChunkStoreWriterTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private WeaviateService weaviateService;
+    private ChunkStoreWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        weaviateService = mock(WeaviateService.class);
+        writer = new ChunkStoreWriter(weaviateService, executor);
+        when(weaviateService.getBatchSize()).thenReturn(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void writesFullBatchesWhileChunksAreStillArriving() throws Exception {
+        List<List<String>> batches = new ArrayList<>();
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        when(weaviateService.storeChunks(anyList())).thenAnswer(invocation -> {
+            List<WeaviateDocument> chunks = invocation.getArgument(0);
+            batches.add(chunks.stream().map(WeaviateDocument::getContent).toList());
+            firstBatch.countDown();
+            return chunks.size();
+        });
+
+        ChunkStoreWriter.Stream stream = writer.open("rx.pdf", "doc-1", IngestionProgressListener.NONE);
+        stream.accept(new StringBuilder("chunk 1"));
+        stream.accept("chunk 2");
+        assertTrue(firstBatch.await(5, TimeUnit.SECONDS), "full batch should be written before the document ends");
+
+        stream.accept("chunk 3");
+        assertEquals(3, stream.finish());
+        assertEquals(List.of(List.of("chunk 1", "chunk 2"), List.of("chunk 3")), batches);
+        assertEquals(2L, writer.getStats().get("chunks_written_during_ocr"));
+    }
+
+    @Test
+    void failedBatchFailsTheDocumentAndAbortReportsWhatWasStored() {
+        when(weaviateService.storeChunks(anyList()))
+            .thenReturn(2)
+            .thenThrow(new IllegalStateException("store unavailable"));
+
+        ChunkStoreWriter.Stream stream = writer.open("rx.pdf", "doc-1", IngestionProgressListener.NONE);
+        for (int i = 0; i < 4; i++) {
+            stream.accept("chunk " + i);
+        }
+
+        assertThrows(IllegalStateException.class, stream::finish);
+        assertEquals(2, stream.abort());
+    }
+}
@@ -0,0 +1,56 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.ChunkProvenance;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DocumentLayoutTest {
+
+    private static final String TSV = String.join("\n",
+        "level\tpage_num\tblock_num\tpar_num\tline_num\tword_num\tleft\ttop\twidth\theight\tconf\ttext",
+        "1\t1\t0\t0\t0\t0\t0\t0\t1000\t2000\t-1\t",
+        "5\t1\t1\t1\t1\t1\t100\t100\t80\t20\t96.1\tTab",
+        "5\t1\t1\t1\t1\t2\t200\t100\t300\t20\t95.4\tAmoxicillin",
+        "5\t1\t1\t1\t2\t1\t100\t150\t60\t20\t91.0\t1-0-1",
+        "5\t1\t2\t1\t1\t1\t100\t500\t200\t40\t88.7\tReview",
+        "");
+
+    @Test
+    void parsesTesseractTsvIntoTextAndWordBoxes() {
+        OcrText ocr = OcrText.parseTsv(TSV);
+
+        assertEquals("Tab Amoxicillin\n1-0-1\n\nReview", ocr.text());
+        assertEquals(4, ocr.words().size());
+        assertEquals(300, ocr.words().get(1).getBoundingBox().width);
+    }
+
+    @Test
+    void locatesChunksOnTheirPagesWithScaledBoxes() {
+        OcrText ocr = OcrText.parseTsv(TSV);
+        // Cleaning dropped the blank line; alignment must still find every word
+        String cleaned = "Tab Amoxicillin\n1-0-1\nReview";
+        OcrPage first = OcrPage.align(1, cleaned, ocr.words(), 1000, 2000);
+        assertEquals(4, first.wordCount());
+
+        DocumentLayout layout = new DocumentLayout();
+        layout.addPage(first, 0);
+        layout.addPage(OcrPage.of(2, "Dr. Anita Rao"), cleaned.length() + 1);
+
+        ChunkProvenance medication = layout.locate(0, 21);
+        assertEquals(1, medication.page());
+        assertEquals(1, medication.pageEnd());
+        assertArrayEquals(new int[] {1000, 500, 4000, 350}, medication.bbox());
+
+        ChunkProvenance spanning = layout.locate(22, cleaned.length() + 5);
+        assertEquals(1, spanning.page());
+        assertEquals(2, spanning.pageEnd());
+        assertArrayEquals(new int[] {1000, 2500, 2000, 200}, spanning.bbox());
+
+        ChunkProvenance textLayer = layout.locate(cleaned.length() + 1, cleaned.length() + 14);
+        assertEquals(2, textLayer.page());
+        assertNull(textLayer.bbox());
+    }
+}
@@ -0,0 +1,286 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import com.emulsify.ocrweaviate.model.WeaviateDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DocumentProcessingServiceTest {
+
+    private static final String PRESCRIPTION_TEXT =
+        "Paracetamol 500 mg tablet, one tablet twice daily after meals for five days.";
+
+    @TempDir
+    Path tempDir;
+
+    private OCRService ocrService;
+    private WeaviateService weaviateService;
+    private ThreadPoolTaskExecutor executor;
+    private FairIngestionScheduler scheduler;
+    private DocumentRegistry registry;
+    private DocumentProcessingService service;
+
+    @BeforeEach
+    void setUp() {
+        ocrService = mock(OCRService.class);
+        weaviateService = mock(WeaviateService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        scheduler = new FairIngestionScheduler(executor);
+        ReflectionTestUtils.setField(scheduler, "defaultWeight", 1.0);
+        ReflectionTestUtils.setField(scheduler, "maxInFlightPerTenant", 2);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 50);
+
+        UploadSpooler spooler = new UploadSpooler();
+        ReflectionTestUtils.setField(spooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(spooler, "memoryThreshold", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(spooler, "maxSize", DataSize.ofMegabytes(10));
+        registry = new DocumentRegistry();
+        ReflectionTestUtils.setField(registry, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(registry, "enabled", true);
+
+        ChunkerFactory chunkerFactory = new ChunkerFactory();
+        ReflectionTestUtils.setField(chunkerFactory, "unit", ChunkerFactory.CHARS);
+        ReflectionTestUtils.setField(chunkerFactory, "chunkSize", 500);
+        ReflectionTestUtils.setField(chunkerFactory, "chunkOverlap", 50);
+        ChunkStoreWriter chunkStoreWriter = new ChunkStoreWriter(weaviateService, Runnable::run);
+        NearDuplicateChunkIndex chunkIndex = new NearDuplicateChunkIndex();
+        ReflectionTestUtils.setField(chunkIndex, "enabled", true);
+        ReflectionTestUtils.setField(chunkIndex, "minSimilarity", 0.8);
+        ReflectionTestUtils.setField(chunkIndex, "minWords", 8);
+        ReflectionTestUtils.setField(chunkIndex, "maxEntries", 100);
+
+        service = new DocumentProcessingService(ocrService, weaviateService, mock(GeminiService.class),
+            mock(TemplateRegionCache.class), mock(NearDuplicateImageIndex.class), scheduler, spooler, registry,
+            chunkerFactory, chunkStoreWriter, chunkIndex);
+        ReflectionTestUtils.setField(service, "minChunkLength", 30);
+        when(weaviateService.storeChunks(anyList())).thenReturn(1);
+        when(weaviateService.getBatchSize()).thenReturn(16);
+        when(weaviateService.objectId(any())).thenAnswer(invocation ->
+            "object-of-" + invocation.<WeaviateDocument>getArgument(0).getDocumentId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void processesFilesConcurrentlyAndKeepsResultsOfSuccessfulFiles() throws Exception {
+        MultipartFile first = image("first.jpg");
+        MultipartFile second = image("second.jpg");
+        MultipartFile broken = image("broken.jpg");
+
+        // Both good files must be in OCR at the same time for either to finish
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(ocrService.extractPageFromImage(any(), any())).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            if ("broken.jpg".equals(file.getOriginalFilename())) {
+                throw new IOException("Unable to read image file: broken.jpg");
+            }
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "files were processed sequentially");
+            return OcrPage.of(1, PRESCRIPTION_TEXT);
+        });
+
+        UploadResponse response = service.processDocuments(List.of(first, broken, second));
+
+        assertEquals(3, response.getTotalDocuments());
+        assertEquals(1, response.getFailedDocuments());
+        List<UploadResponse.DocumentInfo> documents = response.getDocuments();
+        assertEquals("first.jpg", documents.get(0).getFilename());
+        assertEquals(PRESCRIPTION_TEXT, documents.get(0).getContent());
+        assertTrue(documents.get(1).isFailed());
+        assertEquals("Unable to read image file: broken.jpg", documents.get(1).getError());
+        assertEquals(PRESCRIPTION_TEXT, documents.get(2).getContent());
+    }
+
+    @Test
+    void filesOfAMultiFileJobWaitBehindAnotherTenantsJob() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch releaseSecond = new CountDownLatch(1);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        List<String> started = new CopyOnWriteArrayList<>();
+        when(ocrService.extractPageFromImage(any(), any())).thenAnswer(invocation -> {
+            String filename = invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+            started.add(filename);
+            if (filename.equals("a1.jpg") || filename.equals("a2.jpg")) {
+                bothRunning.countDown();
+                assertTrue((filename.equals("a1.jpg") ? releaseFirst : releaseSecond).await(5, TimeUnit.SECONDS));
+            }
+            return OcrPage.of(1, PRESCRIPTION_TEXT);
+        });
+
+        CountDownLatch done = new CountDownLatch(2);
+        scheduler.submit("clinic-a", 3, () -> {
+            service.processDocuments(List.of(image("a1.jpg"), image("a2.jpg"), image("a3.jpg")),
+                IngestionProgressListener.NONE, false, "clinic-a");
+            done.countDown();
+        });
+        assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+
+        // The job and one of its files fill clinic-a's in-flight limit and both workers
+        @SuppressWarnings("unchecked")
+        Map<String, Object> clinicA = (Map<String, Object>) scheduler.getStats().get("clinic-a");
+        assertEquals(2, clinicA.get("in_flight"));
+        assertEquals(1, clinicA.get("queued"));
+
+        scheduler.submit("clinic-b", 1, () -> {
+            service.processDocuments(List.of(image("b1.jpg")), IngestionProgressListener.NONE, false, "clinic-b");
+            done.countDown();
+        });
+        // The freed worker goes to clinic-b's job, not to clinic-a's remaining file
+        releaseSecond.countDown();
+        awaitCondition(() -> started.contains("b1.jpg") || started.contains("a3.jpg"));
+        releaseFirst.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertTrue(started.indexOf("b1.jpg") < started.indexOf("a3.jpg"), "started " + started);
+    }
+
+    @Test
+    void resolvesReuploadsToTheExistingDocumentWithoutOcr() throws Exception {
+        when(ocrService.extractPageFromImage(any(), any())).thenReturn(OcrPage.of(1, PRESCRIPTION_TEXT));
+
+        UploadResponse.DocumentInfo original = service.processDocuments(List.of(image("rx.jpg"))).getDocuments().get(0);
+        UploadResponse duplicateResponse = service.processDocuments(List.of(image("rx-copy.jpg")));
+        UploadResponse.DocumentInfo duplicate = duplicateResponse.getDocuments().get(0);
+
+        assertTrue(duplicate.isDuplicate());
+        assertEquals(original.getDocumentId(), duplicate.getDocumentId());
+        assertEquals(PRESCRIPTION_TEXT, duplicate.getContent());
+        assertEquals(1, duplicateResponse.getDuplicateDocuments());
+        verify(ocrService, times(1)).extractPageFromImage(any(), any());
+        verify(weaviateService, times(1)).storeChunks(anyList());
+        assertEquals(1L, registry.getStats().get("duplicates_avoided"));
+
+        // An explicit replace re-ingests the stored document
+        UploadResponse.DocumentInfo replaced = service.processDocuments(
+            List.of(image("rx.jpg")), IngestionProgressListener.NONE, true).getDocuments().get(0);
+
+        assertFalse(replaced.isDuplicate());
+        verify(weaviateService).deleteDocument(original.getDocumentId());
+        verify(ocrService, times(2)).extractPageFromImage(any(), any());
+    }
+
+    @Test
+    void failedReplaceLeavesNoRegistryEntryBehind() throws Exception {
+        when(ocrService.extractPageFromImage(any(), any()))
+            .thenReturn(OcrPage.of(1, PRESCRIPTION_TEXT))
+            .thenThrow(new IOException("Unable to read image file: rx.jpg"))
+            .thenReturn(OcrPage.of(1, PRESCRIPTION_TEXT));
+
+        String documentId = service.processDocuments(List.of(image("rx.jpg"))).getDocuments().get(0).getDocumentId();
+
+        // The old chunks are deleted, then OCR fails
+        UploadResponse.DocumentInfo failed = service.processDocuments(
+            List.of(image("rx.jpg")), IngestionProgressListener.NONE, true).getDocuments().get(0);
+        assertTrue(failed.isFailed());
+        // Before re-ingesting, and again when the re-ingestion fails
+        verify(weaviateService, times(2)).deleteDocument(documentId);
+        assertNull(registry.find(documentId));
+        assertNull(registry.loadContent(documentId));
+
+        // Nothing is stored for it any more, so the next upload is ingested rather than called a duplicate
+        UploadResponse.DocumentInfo retried = service.processDocuments(List.of(image("rx.jpg"))).getDocuments().get(0);
+        assertFalse(retried.isDuplicate());
+        assertEquals(PRESCRIPTION_TEXT, retried.getContent());
+
+        // The removal survives a restart
+        DocumentRegistry reloaded = new DocumentRegistry();
+        ReflectionTestUtils.setField(reloaded, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(reloaded, "enabled", true);
+        registry.remove(documentId);
+        reloaded.load();
+        assertNull(reloaded.find(documentId));
+    }
+
+    @Test
+    void deletesWhatAFailedBatchMayHaveStoredPartway() throws Exception {
+        when(ocrService.extractPageFromImage(any(), any())).thenReturn(OcrPage.of(1, PRESCRIPTION_TEXT));
+        // Weaviate stored some objects of the batch, then the retries ran out on the others
+        when(weaviateService.storeChunks(anyList())).thenThrow(new IllegalStateException("1 of 2 chunk(s) not stored"));
+
+        UploadResponse.DocumentInfo failed = service.processDocuments(List.of(image("rx.jpg"))).getDocuments().get(0);
+
+        assertTrue(failed.isFailed());
+        String documentId = HexFormat.of().formatHex(ContentHashes.newSha256().digest("rx.jpg".getBytes()));
+        verify(weaviateService).deleteDocument(documentId);
+    }
+
+    @Test
+    void storesNearDuplicateChunksForTheirOwnDocumentLinkedToTheTenantsEarlierChunk() throws Exception {
+        when(ocrService.extractPageFromImage(any(), any())).thenReturn(OcrPage.of(1, PRESCRIPTION_TEXT));
+        List<WeaviateDocument> stored = new ArrayList<>();
+        when(weaviateService.storeChunks(anyList())).thenAnswer(invocation -> {
+            List<WeaviateDocument> batch = invocation.getArgument(0);
+            stored.addAll(batch);
+            return batch.size();
+        });
+
+        String first = ingest("patient-a.jpg", "clinic-a").getDocumentId();
+        UploadResponse.DocumentInfo second = ingest("patient-b.jpg", "clinic-a");
+        UploadResponse.DocumentInfo otherTenant = ingest("patient-c.jpg", "clinic-b");
+
+        assertEquals(3, stored.size());
+        assertNull(stored.get(0).getDuplicateOf());
+        // Stored with its own document and text, as a link to the first chunk
+        assertEquals(second.getDocumentId(), stored.get(1).getDocumentId());
+        assertEquals("patient-b.jpg", stored.get(1).getSource());
+        assertEquals(PRESCRIPTION_TEXT, stored.get(1).getContent());
+        assertEquals("object-of-" + first, stored.get(1).getDuplicateOf());
+        assertEquals(first, stored.get(1).getDuplicateOfDocument());
+        assertEquals(1, second.getChunksCreated());
+        assertNull(stored.get(2).getDuplicateOf());
+        assertEquals(otherTenant.getDocumentId(), stored.get(2).getDocumentId());
+    }
+
+    private UploadResponse.DocumentInfo ingest(String filename, String tenant) {
+        return service.processDocuments(List.of(image(filename)), IngestionProgressListener.NONE, false, tenant)
+            .getDocuments().get(0);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static MultipartFile image(String filename) {
+        // Same bytes for copies of the same prescription, distinct bytes otherwise
+        return new MockMultipartFile("files", filename, "image/jpeg", filename.replace("-copy", "").getBytes());
+    }
+}
@@ -0,0 +1,153 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FairIngestionSchedulerTest {
+
+    private ThreadPoolTaskExecutor executor;
+    private FairIngestionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+
+        scheduler = new FairIngestionScheduler(executor);
+        ReflectionTestUtils.setField(scheduler, "weightsSpec", "key-heavy:2,light:5");
+        ReflectionTestUtils.setField(scheduler, "defaultWeight", 1.0);
+        ReflectionTestUtils.setField(scheduler, "maxInFlightPerTenant", 2);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void interleavesTenantsByWeightInsteadOfArrivalOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        scheduler.submit("blocker", 1, () -> {
+            await(release);
+            done.countDown();
+        });
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit("key-heavy", 1, record(order, "heavy", done));
+        }
+        // Named in a header, so its configured weight is not trusted
+        for (int i = 0; i < 2; i++) {
+            scheduler.submit("light", 1, record(order, "light", done));
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> light = (Map<String, Object>) scheduler.getStats().get("light");
+        assertEquals(1.0, light.get("weight"));
+        assertEquals(2, light.get("queued"));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // heavy's tags are 0.5, 1.0, 1.5 and light's are 1.0, 2.0
+        assertEquals(List.of("heavy", "heavy", "light", "heavy", "light"), order);
+    }
+
+    @Test
+    void onlyApiKeysResolveToTenantsThatCanCarryAWeight() {
+        String keyTenant = TenantIdentity.resolve("clinic-a", "secret-key");
+        assertEquals(TenantIdentity.keyTenant("secret-key"), keyTenant);
+        assertTrue(TenantIdentity.isKeyTenant(keyTenant));
+
+        assertEquals("clinic-a", TenantIdentity.resolve("clinic-a", null));
+        // A header cannot pose as a key tenant
+        assertEquals("header:" + keyTenant, TenantIdentity.resolve(keyTenant, null));
+        assertFalse(TenantIdentity.isKeyTenant(TenantIdentity.resolve(keyTenant, null)));
+    }
+
+    @Test
+    void dropsTenantsWithNothingQueuedOrRunning() throws Exception {
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            scheduler.submit("tenant-" + i, 1, done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        awaitCondition(() -> scheduler.getStats().isEmpty());
+    }
+
+    @Test
+    void withdrawsJobsNotDispatchedYet() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("a", 1, () -> await(release));
+        Runnable queued = () -> { };
+        scheduler.submit("b", 1, queued);
+
+        assertTrue(scheduler.withdraw("b", queued));
+        assertFalse(scheduler.withdraw("b", queued));
+        // Nothing left for b, so its queue is dropped
+        assertFalse(scheduler.getStats().containsKey("b"));
+        release.countDown();
+    }
+
+    @Test
+    void limitsJobsInFlightPerTenant() throws Exception {
+        executor.setMaxPoolSize(3);
+        executor.setCorePoolSize(3);
+        ReflectionTestUtils.setField(scheduler, "maxInFlightPerTenant", 1);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        scheduler.submit("a", 1, () -> { started.countDown(); await(release); });
+        scheduler.submit("a", 1, () -> { started.countDown(); await(release); });
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) scheduler.getStats().get("a");
+        assertEquals(1, stats.get("in_flight"));
+        assertEquals(1, stats.get("queued"));
+
+        release.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static Runnable record(List<String> order, String tenant, CountDownLatch done) {
+        return () -> {
+            order.add(tenant);
+            done.countDown();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IncrementalChunkerTest {
+
+    private static final String TEXT =
+        "Amoxicillin 500 mg capsule. Take one capsule three times daily for seven days. " +
+        "Paracetamol 650 mg tablet. Take one tablet when required for fever, not more than four in a day. " +
+        "Review after one week. Avoid alcohol during the course of antibiotics.   ";
+
+    @Test
+    void pageByPageMatchesWholeText() {
+        List<String> whole = chunk(List.of(TEXT), 80, 10);
+
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < TEXT.length(); i += 17) {
+            pages.add(TEXT.substring(i, Math.min(TEXT.length(), i + 17)));
+        }
+
+        assertEquals(whole, chunk(pages, 80, 10));
+    }
+
+    @Test
+    void spansPointIntoTheTextAndMatchCopiedChunks() {
+        String text = TEXT.repeat(20);
+        List<TextSpan> spans = IncrementalChunker.split(text, 80, 10);
+
+        assertEquals(chunk(List.of(text), 80, 10), spans.stream().map(TextSpan::toString).toList());
+        assertSame(text, spans.get(0).source());
+    }
+
+    @Test
+    void shortTextIsSingleChunk() {
+        assertEquals(List.of("Take once daily"), chunk(List.of("  Take once daily \n"), 500, 50));
+    }
+
+    @Test
+    void blankTextHasNoChunks() {
+        assertEquals(List.of(), chunk(List.of(" ", "\n\t"), 500, 50));
+    }
+
+    private List<String> chunk(List<String> parts, int chunkSize, int overlap) {
+        List<String> chunks = new ArrayList<>();
+        IncrementalChunker chunker = new IncrementalChunker(chunkSize, overlap, chunks::add);
+        parts.forEach(chunker::append);
+        chunker.finish();
+        return chunks;
+    }
+}
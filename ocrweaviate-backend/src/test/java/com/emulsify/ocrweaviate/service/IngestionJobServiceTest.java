@@ -0,0 +1,224 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IngestionJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ThreadPoolTaskExecutor executor;
+    private FairIngestionScheduler scheduler;
+    private AdmissionControlService admissionControl;
+    private UploadSpooler uploadSpooler;
+    private DocumentProcessingService documentService;
+    private IngestionJobService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.initialize();
+
+        scheduler = new FairIngestionScheduler(executor);
+        ReflectionTestUtils.setField(scheduler, "defaultWeight", 1.0);
+        ReflectionTestUtils.setField(scheduler, "maxInFlightPerTenant", 2);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 50);
+
+        uploadSpooler = new UploadSpooler();
+        ReflectionTestUtils.setField(uploadSpooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(uploadSpooler, "memoryThreshold", DataSize.ofBytes(16));
+        ReflectionTestUtils.setField(uploadSpooler, "maxSize", DataSize.ofMegabytes(1));
+
+        admissionControl = new AdmissionControlService();
+        documentService = mock(DocumentProcessingService.class);
+        service = newService(new IngestionJournal());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void runsSubmittedJobAndKeepsItsResult() throws Exception {
+        UploadResponse result = new UploadResponse("Processed 1 documents", List.of(), 1);
+        when(documentService.processDocuments(anyList(), any(), anyBoolean(), any())).thenReturn(result);
+
+        IngestionJob job = service.submit(List.of(file("rx.png")), "clinic-a", true, UploadResponse.View.FULL);
+        assertSame(job, service.getJob(job.getId()));
+
+        awaitFinished(job);
+        assertEquals(IngestionJob.Status.COMPLETED, job.getStatus());
+        assertSame(result, job.getResult());
+        verify(documentService).processDocuments(anyList(), any(), eq(true), eq("clinic-a"));
+        // The admitted cost is returned once the job is done
+        assertEquals(0.0, admissionControl.getStats().get("in_flight_megapixels"));
+    }
+
+    @Test
+    void marksJobFailedWhenNoDocumentCouldBeIngested() throws Exception {
+        when(documentService.processDocuments(anyList(), any(), anyBoolean(), any()))
+            .thenThrow(new IllegalStateException("OCR engine unavailable"));
+
+        IngestionJob job = service.submit(List.of(file("rx.png")), "clinic-a", false, UploadResponse.View.FULL);
+
+        awaitFinished(job);
+        assertEquals(IngestionJob.Status.FAILED, job.getStatus());
+        assertEquals("OCR engine unavailable", job.getError());
+    }
+
+    @Test
+    void forgetsFinishedJobsAfterTheRetentionPeriod() throws Exception {
+        when(documentService.processDocuments(anyList(), any(), anyBoolean(), any()))
+            .thenReturn(new UploadResponse("Processed 1 documents", List.of(), 1));
+        ReflectionTestUtils.setField(service, "retentionMinutes", 0);
+
+        IngestionJob first = service.submit(List.of(file("a.png")), "clinic-a", false, UploadResponse.View.FULL);
+        awaitFinished(first);
+        Thread.sleep(5);
+
+        // Expired jobs are dropped when the next one is accepted
+        IngestionJob second = service.submit(List.of(file("b.png")), "clinic-a", false, UploadResponse.View.FULL);
+        assertNull(service.getJob(first.getId()));
+        assertNotNull(service.getJob(second.getId()));
+    }
+
+    @Test
+    void rejectsJobWhenTheQueueIsFullAndReleasesItsUploads() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(documentService.processDocuments(anyList(), any(), anyBoolean(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new UploadResponse("Processed 1 documents", List.of(), 1);
+        });
+
+        IngestionJob running = service.submit(List.of(file("a.png")), "clinic-a", false, UploadResponse.View.FULL);
+        IngestionJob queued = service.submit(List.of(file("b.png")), "clinic-a", false, UploadResponse.View.FULL);
+
+        // The controllers answer this with 503
+        assertThrows(RejectedExecutionException.class,
+            () -> service.submit(List.of(file("c.png")), "clinic-a", false, UploadResponse.View.FULL));
+        assertEquals(2, service.getStats().get("tracked_jobs"));
+
+        release.countDown();
+        awaitFinished(running);
+        awaitFinished(queued);
+        // Spilled uploads of all three jobs, including the rejected one, are deleted
+        try (Stream<Path> spilled = Files.walk(tempDir)) {
+            assertEquals(0, spilled.filter(Files::isRegularFile).count());
+        }
+        assertEquals(0.0, admissionControl.getStats().get("in_flight_megapixels"));
+    }
+
+    @Test
+    void queuedUploadsWaitOnDiskInsteadOfTheHeap() throws Exception {
+        ReflectionTestUtils.setField(uploadSpooler, "memoryThreshold", DataSize.ofMegabytes(1));
+        List<String> seen = recordUploadsSeenByTheJob();
+
+        IngestionJob job = service.submit(List.of(file("rx.png")), "clinic-a", false, UploadResponse.View.FULL);
+
+        awaitFinished(job);
+        assertEquals(List.of("on disk: not really a png: rx.png"), seen);
+        assertEquals(1L, uploadSpooler.getStats().get("spilled"));
+        try (Stream<Path> spilled = Files.walk(tempDir)) {
+            assertEquals(0, spilled.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void journaledJobsReadTheirUploadsFromTheJournalPayloads() throws Exception {
+        ReflectionTestUtils.setField(uploadSpooler, "memoryThreshold", DataSize.ofMegabytes(1));
+        IngestionJournal journal = new IngestionJournal();
+        ReflectionTestUtils.setField(journal, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "segmentSize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(journal, "compactionIntervalSeconds", 3600L);
+        journal.open();
+        service = newService(journal);
+        List<String> seen = recordUploadsSeenByTheJob();
+
+        try {
+            IngestionJob job = service.submit(List.of(file("rx.png")), "clinic-a", false, UploadResponse.View.FULL);
+
+            awaitFinished(job);
+            assertEquals(List.of("on disk: not really a png: rx.png"), seen);
+            // No second copy was written
+            assertEquals(0L, uploadSpooler.getStats().get("spilled"));
+            assertEquals(0, journal.getStats().get("pending_jobs"));
+        } finally {
+            journal.close();
+        }
+    }
+
+    private IngestionJobService newService(IngestionJournal journal) {
+        IngestionJobService jobService = new IngestionJobService(documentService, executor, new JobEventBroadcaster(),
+            admissionControl, uploadSpooler, scheduler, journal);
+        ReflectionTestUtils.setField(jobService, "retentionMinutes", 60);
+        return jobService;
+    }
+
+    /**
+     * Where each upload is read from and its content, as seen by the running job
+     */
+    private List<String> recordUploadsSeenByTheJob() throws Exception {
+        List<String> seen = new CopyOnWriteArrayList<>();
+        when(documentService.processDocuments(anyList(), any(), anyBoolean(), any())).thenAnswer(invocation -> {
+            List<MultipartFile> uploads = invocation.getArgument(0);
+            for (MultipartFile upload : uploads) {
+                String location = ((SpooledUpload) upload).isInMemory() ? "in memory: " : "on disk: ";
+                seen.add(location + new String(upload.getBytes(), StandardCharsets.UTF_8));
+            }
+            return new UploadResponse("Processed 1 documents", List.of(), 1);
+        });
+        return seen;
+    }
+
+    private static MultipartFile file(String filename) {
+        return new MockMultipartFile("files", filename, "image/png",
+            ("not really a png: " + filename).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitFinished(IngestionJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "job " + job.getId() + " did not finish");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UploadSpooler uploadSpooler;
+
+    @BeforeEach
+    void setUp() {
+        uploadSpooler = new UploadSpooler();
+        ReflectionTestUtils.setField(uploadSpooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(uploadSpooler, "memoryThreshold", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(uploadSpooler, "maxSize", DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    void replaysUnfinishedJobsAcrossRestartsAndCompaction() throws Exception {
+        IngestionJournal journal = openJournal();
+        List<IngestionJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            IngestionJob job = new IngestionJob(List.of("rx-" + i + ".pdf"));
+            job.setTenant("clinic-a");
+            journal.recordAccepted(job, List.of(upload("rx-" + i + ".pdf")), i % 2 == 0);
+            jobs.add(job);
+        }
+        for (int i = 0; i < 6; i++) {
+            journal.recordFinished(jobs.get(i).getId());
+        }
+        assertTrue((int) journal.getStats().get("segments") > 1, "small segments should have rolled over");
+        journal.close();
+
+        IngestionJournal reopened = openJournal();
+        assertPending(reopened, jobs.get(6), jobs.get(7));
+
+        reopened.compact();
+        assertEquals(1, reopened.getStats().get("segments"));
+        reopened.close();
+
+        IngestionJournal compacted = openJournal();
+        assertPending(compacted, jobs.get(6), jobs.get(7));
+        compacted.close();
+    }
+
+    private void assertPending(IngestionJournal journal, IngestionJob... expected) throws IOException {
+        List<IngestionJournal.JournalRecord> pending = journal.pendingJobs();
+        assertEquals(expected.length, pending.size());
+        for (int i = 0; i < expected.length; i++) {
+            IngestionJournal.JournalRecord record = pending.get(i);
+            assertEquals(expected[i].getId(), record.jobId());
+            assertEquals("clinic-a", record.tenant());
+
+            IngestionJournal.Payload payload = record.payloads().get(0);
+            assertEquals(expected[i].getFilenames().get(0), payload.filename());
+            assertEquals("content of " + payload.filename(),
+                Files.readString(journal.payloadPath(payload), StandardCharsets.UTF_8));
+        }
+    }
+
+    private IngestionJournal openJournal() {
+        IngestionJournal journal = new IngestionJournal();
+        ReflectionTestUtils.setField(journal, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "segmentSize", DataSize.ofBytes(1024));
+        ReflectionTestUtils.setField(journal, "fsync", true);
+        ReflectionTestUtils.setField(journal, "compactionIntervalSeconds", 3600L);
+        journal.open();
+        return journal;
+    }
+
+    private SpooledUpload upload(String filename) throws IOException {
+        byte[] content = ("content of " + filename).getBytes(StandardCharsets.UTF_8);
+        return uploadSpooler.spool("files", filename, "application/pdf", new ByteArrayInputStream(content));
+    }
+}
@@ -0,0 +1,113 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.config.ResponseSizeFilter;
+import com.emulsify.ocrweaviate.controller.DocumentController;
+import com.emulsify.ocrweaviate.model.IngestionJob;
+import com.emulsify.ocrweaviate.model.UploadResponse;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Subscribes through the job events endpoint, so emitters go through Spring MVC's async handling
+ */
+class JobEventBroadcasterTest {
+
+    private JobEventBroadcaster broadcaster;
+    private IngestionJobService ingestionJobService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new JobEventBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "timeoutMinutes", 10L);
+        ingestionJobService = mock(IngestionJobService.class);
+        DocumentController controller = new DocumentController(mock(DocumentProcessingService.class), ingestionJobService,
+            broadcaster, mock(UploadSpooler.class), mock(BulkIngestionService.class), mock(Bulkheads.class),
+            mock(ResponseSizeFilter.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void lateSubscriberGetsTheFinalEventAndTheStreamIsClosed() throws Exception {
+        IngestionJob job = track(new IngestionJob(List.of("rx.pdf")));
+        job.markRunning();
+        job.markCompleted(new UploadResponse("Processed 1 documents", List.of(), 1));
+        // Sent before anyone subscribed
+        broadcaster.complete(job.getId(), "completed", job);
+
+        MvcResult result = subscribe(job);
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:status"), body);
+        assertTrue(body.contains("event:completed"), body);
+        assertTrue(body.contains("\"status\":\"COMPLETED\""), body);
+        assertEquals(0, subscribers());
+    }
+
+    @Test
+    void sendsProgressAndRemovesTheEmitterWhenTheJobCompletes() throws Exception {
+        IngestionJob job = track(new IngestionJob(List.of("rx.pdf")));
+        MvcResult result = subscribe(job);
+        assertEquals(1, subscribers());
+
+        broadcaster.publish(job.getId(), "page_ocrd", Map.of("filename", "rx.pdf", "page", 1, "page_count", 2));
+        job.markRunning();
+        job.markFailed("OCR engine unavailable");
+        broadcaster.complete(job.getId(), "failed", job);
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("event:page_ocrd"), body);
+        assertTrue(body.contains("event:failed"), body);
+        assertEquals(0, subscribers());
+        // Nothing is left to send to
+        broadcaster.publish(job.getId(), "stage", Map.of());
+        assertEquals(3L, broadcaster.getStats().get("events_sent"));
+    }
+
+    @Test
+    void removesTheEmitterWhenTheStreamTimesOut() throws Exception {
+        IngestionJob job = track(new IngestionJob(List.of("rx.pdf")));
+        MvcResult result = subscribe(job);
+        assertEquals(1, subscribers());
+
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        assertEquals(0, subscribers());
+        assertEquals(0, broadcaster.getStats().get("jobs"));
+    }
+
+    private IngestionJob track(IngestionJob job) {
+        when(ingestionJobService.getJob(job.getId())).thenReturn(job);
+        return job;
+    }
+
+    private MvcResult subscribe(IngestionJob job) throws Exception {
+        return mockMvc.perform(get("/jobs/{id}/events", job.getId()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
+
+    private int subscribers() {
+        return (int) broadcaster.getStats().get("subscribers");
+    }
+}
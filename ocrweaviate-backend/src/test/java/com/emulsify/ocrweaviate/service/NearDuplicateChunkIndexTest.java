@@ -0,0 +1,62 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NearDuplicateChunkIndexTest {
+
+    private static final String DISCLAIMER = "This prescription is valid for thirty days from the date of issue. "
+        + "Do not share your medicines with others and keep them out of the reach of children. Store below "
+        + "25 degrees in a dry place away from direct sunlight. If you notice a rash, swelling of the face or "
+        + "difficulty breathing stop the medicine and contact your doctor or the nearest emergency department "
+        + "immediately. Complete the full course of antibiotics even if you feel better. Bring this slip to "
+        + "your next visit. Pharmacy helpline 011 4567 8900, open 8 am to 10 pm on all days.";
+
+    private NearDuplicateChunkIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearDuplicateChunkIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "minSimilarity", 0.8);
+        ReflectionTestUtils.setField(index, "minWords", 8);
+        ReflectionTestUtils.setField(index, "maxEntries", 100);
+    }
+
+    @Test
+    void linksRepeatedBoilerplateWithSmallOcrDifferencesToTheStoredChunk() {
+        assertNull(index.checkAndAdd("clinic-a", DISCLAIMER, "doc-1", "object-1"));
+
+        String rescanned = DISCLAIMER.replace("Pharmacy helpline", "PHARMACY helpIine").replace("  ", " ");
+        assertEquals(new NearDuplicateChunkIndex.Match("doc-1", "object-1"),
+            index.checkAndAdd("clinic-a", rescanned, "doc-2", "object-2"));
+        assertNull(index.checkAndAdd("clinic-a", "Tab Amoxicillin 500 mg one tablet three times daily after food for "
+            + "five days with plenty of water, review on Monday with the blood report", "doc-2", "object-3"));
+        assertEquals(1L, index.getStats().get("near_duplicates_linked"));
+    }
+
+    @Test
+    void neverLinksChunksOfAnotherTenant() {
+        index.checkAndAdd("clinic-a", DISCLAIMER, "doc-1", "object-1");
+
+        assertNull(index.checkAndAdd("clinic-b", DISCLAIMER, "doc-2", "object-2"));
+        // Indexed for its own tenant instead
+        assertEquals(new NearDuplicateChunkIndex.Match("doc-2", "object-2"),
+            index.checkAndAdd("clinic-b", DISCLAIMER, "doc-3", "object-3"));
+    }
+
+    @Test
+    void forgetsRemovedDocumentsAndSkipsShortChunks() {
+        index.checkAndAdd("clinic-a", DISCLAIMER, "doc-1", "object-1");
+        index.removeDocument("doc-1");
+
+        assertNull(index.checkAndAdd("clinic-a", DISCLAIMER, "doc-2", "object-2"));
+        assertEquals("doc-2", index.checkAndAdd("clinic-a", DISCLAIMER, "doc-3", "object-3").documentId());
+        assertNull(index.checkAndAdd("clinic-a", "Paracetamol 650 mg SOS", "doc-3", "object-4"));
+        assertNull(index.checkAndAdd("clinic-a", "Paracetamol 650 mg SOS", "doc-4", "object-5"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateImageIndexTest {
+
+    private NearDuplicateImageIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NearDuplicateImageIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxInkDistance", 15);
+        ReflectionTestUtils.setField(index, "maxEntries", 100);
+        ReflectionTestUtils.setField(index, "maxTenants", 10);
+        ReflectionTestUtils.setField(index, "maxLayoutSize", DataSize.ofMegabytes(256));
+    }
+
+    @Test
+    void findsSameImageUploadedAgainInOtherBytes() throws IOException {
+        BufferedImage original = prescription("Rahul Sharma", "Amoxicillin 500 mg");
+        BufferedImage reencoded = reencode(original, "bmp");
+        add("clinic-a", original, "Amoxicillin 500 mg");
+
+        assertEquals("Amoxicillin 500 mg", find("clinic-a", reencoded));
+        // Never across tenants
+        assertNull(find("clinic-b", reencoded));
+    }
+
+    @Test
+    void reusesRescansOfTheSamePageButNotOfAnotherDose() throws IOException {
+        add("clinic-a", TemplateRegionCacheTest.scan(prescription("Rahul Sharma", "Amoxicillin 500 mg"), 0),
+            "Amoxicillin 500 mg");
+
+        int rescanHits = 0;
+        for (int seed = 1; seed < 8; seed++) {
+            BufferedImage rescanned = TemplateRegionCacheTest.scan(prescription("Rahul Sharma", "Amoxicillin 500 mg"), seed);
+            if ("Amoxicillin 500 mg".equals(find("clinic-a", rescanned))) {
+                rescanHits++;
+            }
+            BufferedImage otherDose = TemplateRegionCacheTest.scan(prescription("Rahul Sharma", "Amoxicillin 600 mg"), seed);
+            assertNull(find("clinic-a", otherDose), "scan " + seed + " of another dose reused");
+        }
+
+        // Slightly rotated, rescaled, noisy JPEG scans; a scan too far off is OCR'd again, never misread
+        assertTrue(rescanHits >= 3, "rescans reused: " + rescanHits + " of 7");
+        // Every scan of the other dose and every rescan that missed
+        assertEquals(14L - rescanHits, index.getStats().get("rejected_candidates"));
+    }
+
+    @Test
+    void doesNotReuseTextOfAnotherPatientOnTheSameForm() {
+        BufferedImage first = prescription("Rahul Sharma", "Amoxicillin 500 mg");
+        BufferedImage second = prescription("Priya Nair", "Azithromycin 250 mg");
+        add("clinic-a", first, "Rahul Sharma Amoxicillin 500 mg");
+
+        assertNull(find("clinic-a", second));
+    }
+
+    @Test
+    void keepsNewestEntriesWhenFull() {
+        ReflectionTestUtils.setField(index, "maxEntries", 2);
+        BufferedImage first = prescription("Rahul Sharma", "Amoxicillin 500 mg");
+        BufferedImage second = prescription("Priya Nair", "Azithromycin 250 mg");
+        BufferedImage third = prescription("Arjun Mehta", "Cetirizine 10 mg");
+        add("clinic-a", first, "first");
+        add("clinic-a", second, "second");
+        add("clinic-a", third, "third");
+
+        assertNull(find("clinic-a", first));
+        assertEquals("second", find("clinic-a", second));
+        assertEquals("third", find("clinic-a", third));
+        assertEquals(2, index.getStats().get("entries"));
+    }
+
+    @Test
+    void dropsLeastRecentlyActiveTenantsBeyondTheLayoutBudget() {
+        BufferedImage image = prescription("Rahul Sharma", "Amoxicillin 500 mg");
+        add("clinic-a", image, "Amoxicillin 500 mg");
+        long oneLayout = (long) index.getStats().get("layout_bytes");
+        ReflectionTestUtils.setField(index, "maxLayoutSize", DataSize.ofBytes(2 * oneLayout));
+
+        add("clinic-b", image, "Amoxicillin 500 mg");
+        add("clinic-c", image, "Amoxicillin 500 mg");
+
+        assertNull(find("clinic-a", image));
+        assertEquals("Amoxicillin 500 mg", find("clinic-c", image));
+        assertEquals(2 * oneLayout, index.getStats().get("layout_bytes"));
+    }
+
+    private void add(String tenant, BufferedImage image, String text) {
+        index.add(tenant, layout(image), text);
+    }
+
+    private String find(String tenant, BufferedImage image) {
+        return index.findNearDuplicate(tenant, layout(image));
+    }
+
+    private static List<InkLayout.Block> layout(BufferedImage image) {
+        return InkLayout.blocks(image, 0, 0, image.getWidth(), image.getHeight());
+    }
+
+    private static BufferedImage reencode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, format, bytes);
+        return ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static BufferedImage prescription(String patient, String medication) {
+        int width = 1600;
+        int height = 2000;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(new Color(235, 235, 235));
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 0, width, height / 8);
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 40));
+        g.drawString("Name: " + patient, 160, 440);
+        g.drawString("Rx  " + medication, 160, 600);
+        g.drawString("1-0-1 after food x 5 days", 160, 680);
+        g.fillRect(120, 1800, width - 240, 8);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,56 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OcrCheckpointStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OcrCheckpointStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OcrCheckpointStore();
+        ReflectionTestUtils.setField(store, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "maxAgeHours", 24);
+    }
+
+    @Test
+    void resumesCompletedPagesAfterRestart() throws Exception {
+        try (OcrCheckpointStore.Checkpoint checkpoint = store.open("abc")) {
+            checkpoint.append(0, "Dr. Sharma Clinic");
+            checkpoint.append(1, "");
+        }
+
+        // Simulate a crash in the middle of writing page 2
+        Files.write(tempDir.resolve("checkpoints/abc.ckpt"), new byte[] {0, 0, 0, 2, 0, 0}, StandardOpenOption.APPEND);
+
+        try (OcrCheckpointStore.Checkpoint checkpoint = store.open("abc")) {
+            assertEquals(2, checkpoint.getCompletedPageCount());
+            assertEquals("Dr. Sharma Clinic", checkpoint.completedPage(0));
+            assertEquals("", checkpoint.completedPage(1));
+            assertNull(checkpoint.completedPage(2));
+            checkpoint.append(2, "Paracetamol 650 mg");
+        }
+
+        try (OcrCheckpointStore.Checkpoint checkpoint = store.open("abc")) {
+            assertEquals("Paracetamol 650 mg", checkpoint.completedPage(2));
+            checkpoint.complete();
+        }
+
+        assertFalse(Files.exists(tempDir.resolve("checkpoints/abc.ckpt")));
+    }
+}
@@ -0,0 +1,49 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OcrCpuPoolTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("ocr-");
+        executor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void dispatchesToThePoolAndRethrowsTheOriginalException() throws Exception {
+        OcrCpuPool pool = new OcrCpuPool(executor, true);
+
+        assertTrue(pool.call(() -> Thread.currentThread().getName()).startsWith("ocr-"));
+        IOException thrown = assertThrows(IOException.class, () -> pool.call(() -> {
+            throw new IOException("unreadable page");
+        }));
+        assertEquals("unreadable page", thrown.getMessage());
+    }
+
+    @Test
+    void runsInlineOnPlatformThreads() throws Exception {
+        OcrCpuPool pool = new OcrCpuPool(executor, false);
+
+        assertEquals(Thread.currentThread().getName(), pool.call(() -> Thread.currentThread().getName()));
+    }
+}
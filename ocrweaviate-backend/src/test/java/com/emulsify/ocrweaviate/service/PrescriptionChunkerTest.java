@@ -0,0 +1,78 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrescriptionChunkerTest {
+
+    private static final String PRESCRIPTION = """
+        Dr. Anita Rao MBBS, MD (Medicine)
+        Reg No. 45872 | City Care Clinic, Pune | Ph 020 2456 7890
+        Name: Rahul Sharma   Age/Sex: 42/M   Date: 12/03/2024
+        C/O fever and sore throat for 3 days
+        Rx
+        1. Tab Amoxicillin 500 mg
+           1-0-1 after food x 5 days
+        2. Tab Paracetamol 650 mg
+           SOS for fever above 100 F, not more than 4 in a day
+        3. Syp Ascoril 10 ml
+           Take 5 ml three times a day
+        Advice: warm saline gargles, plenty of fluids
+        Review after 5 days or earlier if fever persists
+        Dr. Anita Rao
+        """;
+
+    @Test
+    void keepsEachMedicationEntryInOneChunk() {
+        List<String> chunks = chunk(PRESCRIPTION, 120);
+
+        for (String medication : List.of("Amoxicillin 500 mg\n   1-0-1 after food x 5 days",
+                "Paracetamol 650 mg\n   SOS for fever above 100 F", "Ascoril 10 ml\n   Take 5 ml three times a day")) {
+            assertEquals(1, chunks.stream().filter(chunk -> chunk.contains(medication)).count(), medication);
+        }
+        assertTrue(chunks.get(0).startsWith("Dr. Anita Rao"));
+        assertTrue(chunks.stream().anyMatch(chunk -> chunk.startsWith("Name: Rahul Sharma") && chunk.endsWith("3 days")));
+        assertTrue(chunks.stream().anyMatch(chunk -> chunk.startsWith("Advice:") && chunk.endsWith("Dr. Anita Rao")));
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.length() >= 30), chunks.toString());
+    }
+
+    @Test
+    void classifiesLinesByTheirFirstWord() {
+        assertEquals(PrescriptionChunker.Section.MEDICATION,
+            PrescriptionChunker.classify("2) Cap. Omeprazole 20mg", PrescriptionChunker.Section.MEDICATION, true));
+        assertEquals(PrescriptionChunker.Section.MEDICATION,
+            PrescriptionChunker.classify("Azithromycin 500 mg", PrescriptionChunker.Section.MEDICATION, true));
+        assertNull(PrescriptionChunker.classify("Take 5 ml at night", PrescriptionChunker.Section.MEDICATION, true));
+        assertNull(PrescriptionChunker.classify("0.5 mg at bedtime", PrescriptionChunker.Section.MEDICATION, true));
+        assertEquals(PrescriptionChunker.Section.HEADER,
+            PrescriptionChunker.classify("Dr. Anita Rao", null, false));
+        assertEquals(PrescriptionChunker.Section.SIGNATURE,
+            PrescriptionChunker.classify("Dr. Anita Rao", PrescriptionChunker.Section.INSTRUCTIONS, true));
+    }
+
+    @Test
+    void cutsUnstructuredTextWithinTheChunkSize() {
+        String text = "Discharge summary of the patient. ".repeat(40);
+        List<String> chunks = chunk(text, 200);
+
+        assertTrue(chunks.size() > 1);
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.length() <= 200));
+    }
+
+    private static List<String> chunk(String text, int chunkSize) {
+        List<String> chunks = new ArrayList<>();
+        PrescriptionChunker chunker = new PrescriptionChunker(chunkSize, 20, 30, span -> chunks.add(span.toString()));
+        for (int i = 0; i < text.length(); i += 17) {
+            chunker.append(text.substring(i, Math.min(text.length(), i + 17)));
+        }
+        chunker.finish();
+        assertEquals(text.strip(), chunker.getText().toString());
+        return chunks;
+    }
+}
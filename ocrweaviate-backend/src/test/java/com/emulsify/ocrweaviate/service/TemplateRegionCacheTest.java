@@ -0,0 +1,190 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TemplateRegionCacheTest {
+
+    private static final int WIDTH = 2480;
+    private static final int HEADER_HEIGHT = 350;
+
+    // Blocks of the letterhead below, in reading order
+    private static final int CLINIC = 0;
+    private static final int DOCTOR = 1;
+    private static final int DATE = 2;
+    private static final int RULE = 3;
+
+    private TemplateRegionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TemplateRegionCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxInkDistance", 16);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+
+    @Test
+    void reusesTextForTheSameLetterhead() {
+        List<InkLayout.Block> stored = blocks(page("City Care Clinic", "Dr. Anita Rao", "12/03/2024"));
+        assertEquals(4, stored.size());
+        cache.store(TemplateRegionCache.Region.HEADER, stored.get(CLINIC), "City Care Clinic", 400);
+
+        TemplateRegionCache.Match match = cache.lookup(TemplateRegionCache.Region.HEADER,
+            blocks(page("City Care Clinic", "Dr. Anita Rao", "12/03/2024")).get(CLINIC));
+
+        assertNotNull(match);
+        assertEquals("City Care Clinic", match.text());
+        assertEquals(0, match.offsetX());
+        assertEquals(0, match.offsetY());
+    }
+
+    @Test
+    void reusesStaticBlocksOfScannedLetterheadsButNotTheirDates() throws IOException {
+        String[] dates = {"12/03/2024", "13/03/2024", "22/03/2024", "12/08/2024",
+            "17/03/2024", "12/03/2025", "02/03/2024", "12/05/2024", "12/09/2024"};
+        int staticLookups = 0;
+        int staticHits = 0;
+
+        for (int i = 0; i < dates.length; i++) {
+            BufferedImage scanned = scan(page("City Care Clinic", "Dr. Anita Rao", dates[i]), i);
+            List<InkLayout.Block> blocks = blocks(scanned);
+            assertEquals(4, blocks.size());
+
+            for (int b = 0; b < blocks.size(); b++) {
+                TemplateRegionCache.Match match = cache.lookup(TemplateRegionCache.Region.HEADER, blocks.get(b));
+                if (b == DATE) {
+                    assertNull(match, "date " + dates[i] + " reused a cached date");
+                } else if (i > 0) {
+                    staticLookups++;
+                    staticHits += match != null ? 1 : 0;
+                }
+                if (match == null) {
+                    cache.store(TemplateRegionCache.Region.HEADER, blocks.get(b), "block " + b + " of scan " + i, 400);
+                }
+            }
+        }
+
+        // Slightly rotated, rescaled, noisy JPEG scans; a scan too far off is OCR'd again, never misread
+        double staticHitRate = (double) staticHits / staticLookups;
+        assertTrue(staticHitRate >= 0.75, "static block hit rate " + staticHitRate);
+        assertTrue((double) cache.getStats().get("hit_rate") >= 0.5);
+    }
+
+    @Test
+    void rejectsLetterheadWithDifferentPrintedNameOrDate() throws IOException {
+        List<InkLayout.Block> stored = blocks(scan(page("City Care Clinic", "Dr. Anita Rao", "12/03/2024"), 0));
+        cache.store(TemplateRegionCache.Region.HEADER, stored.get(DOCTOR), "Dr. Anita Rao MBBS, MD", 400);
+        cache.store(TemplateRegionCache.Region.HEADER, stored.get(DATE), "Date: 12/03/2024", 400);
+
+        List<InkLayout.Block> otherDoctor = blocks(scan(page("City Care Clinic", "Dr. Anita Roo", "12/03/2024"), 3));
+        List<InkLayout.Block> otherDate = blocks(scan(page("City Care Clinic", "Dr. Anita Rao", "12/83/2024"), 5));
+
+        assertNull(cache.lookup(TemplateRegionCache.Region.HEADER, otherDoctor.get(DOCTOR)));
+        assertNull(cache.lookup(TemplateRegionCache.Region.HEADER, otherDate.get(DATE)));
+        assertEquals(2L, cache.getStats().get("rejected_candidates"));
+    }
+
+    @Test
+    void reportsHowFarTheBlockMoved() {
+        cache.store(TemplateRegionCache.Region.HEADER,
+            blocks(page("City Care Clinic", "Dr. Anita Rao", "12/03/2024")).get(CLINIC), "City Care Clinic", 400);
+
+        BufferedImage shifted = new BufferedImage(WIDTH, HEADER_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = shifted.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, WIDTH, HEADER_HEIGHT);
+        g.drawImage(page("City Care Clinic", "Dr. Anita Rao", "12/03/2024"), 7, 5, null);
+        g.dispose();
+        TemplateRegionCache.Match match = cache.lookup(TemplateRegionCache.Region.HEADER, blocks(shifted).get(CLINIC));
+
+        assertNotNull(match);
+        assertEquals(7, match.offsetX());
+        assertEquals(5, match.offsetY());
+    }
+
+    private static List<InkLayout.Block> blocks(BufferedImage header) {
+        return InkLayout.blocks(header, 0, 0, WIDTH, HEADER_HEIGHT);
+    }
+
+    private static BufferedImage page(String clinic, String doctor, String date) {
+        BufferedImage image = new BufferedImage(WIDTH, HEADER_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 110));
+        g.drawString(clinic, 200, 150);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 40));
+        g.drawString(doctor + "   MBBS, MD", 200, 250);
+        g.drawString("Date: " + date, 1900, 250);
+        g.fillRect(100, 320, WIDTH - 200, 6);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * The page as a scanner would return it: slightly rotated, rescaled and shifted, on off-white
+     * paper with sensor noise, saved as JPEG
+     */
+    static BufferedImage scan(BufferedImage page, int seed) throws IOException {
+        int variant = seed % 8;
+        BufferedImage scanned = new BufferedImage(page.getWidth(), page.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scanned.createGraphics();
+        g.setColor(new Color(245, 243, 238));
+        g.fillRect(0, 0, scanned.getWidth(), scanned.getHeight());
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        AffineTransform transform = new AffineTransform();
+        transform.translate(variant * 3, variant * 2);
+        transform.rotate(Math.toRadians(variant * 0.06 - 0.2));
+        transform.scale(1 - variant * 0.003, 1 - variant * 0.003);
+        g.drawImage(page, transform, null);
+        g.dispose();
+
+        Random random = new Random(seed);
+        int[] pixels = scanned.getRGB(0, 0, scanned.getWidth(), scanned.getHeight(), null, 0, scanned.getWidth());
+        for (int i = 0; i < pixels.length; i++) {
+            int level = (pixels[i] & 0xFF) + (int) (random.nextGaussian() * 12);
+            level = Math.max(0, Math.min(255, level));
+            pixels[i] = (level << 16) | (level << 8) | level;
+        }
+        scanned.setRGB(0, 0, scanned.getWidth(), scanned.getHeight(), pixels, 0, scanned.getWidth());
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(0.9f - variant * 0.04f);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(jpeg)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(scanned, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return ImageIO.read(new ByteArrayInputStream(jpeg.toByteArray()));
+    }
+}
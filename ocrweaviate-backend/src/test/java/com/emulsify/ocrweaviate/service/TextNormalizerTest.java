@@ -0,0 +1,94 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextNormalizerTest {
+
+    private static final String[] PIECES = {
+        "page", "Page 3", "PAGE", "12", "7", " ", "  ", "\t", "\n", "\r\n", "\u000B", "\f", "\u0001", "\u007F",
+        "|", "\\", "/", "_", "Tab", "Amoxicillin", "500", "mg", ".", "x", "é", "́", "a", "_page 4", "pages 2"
+    };
+
+    @Test
+    void cleansPageTextLikeTheRegexPipeline() {
+        String page = "  Tab  Amoxicillin\t500 mg \r\n\n 1-0-1 page 2 of\u0001 ";
+        assertEquals("Tab Amoxicillin 500 mg\n1-0-1  of", TextNormalizer.cleanPageText(page, true));
+        assertEquals("Tab Amoxicillin 500 mg 1-0-1  of", TextNormalizer.cleanPageText(page, false));
+
+        Random random = new Random(7);
+        for (int run = 0; run < 20_000; run++) {
+            String text = randomText(random);
+            assertEquals(regexPageText(text), TextNormalizer.cleanPageText(text, true), () -> escape(text));
+            assertEquals(regexCollapsedPageText(text), TextNormalizer.cleanPageText(text, false), () -> escape(text));
+        }
+    }
+
+    @Test
+    void cleansImageTextLikeTheRegexPipeline() {
+        String image = "|| Rx | \n _ Tab  Amoxicillin 500 mg\n";
+        assertEquals(" Rx\nTab Amoxicillin 500 mg", TextNormalizer.cleanImageText(image, true));
+        assertEquals(" Rx Tab Amoxicillin 500 mg", TextNormalizer.cleanImageText(image, false));
+
+        Random random = new Random(11);
+        for (int run = 0; run < 20_000; run++) {
+            String text = randomText(random);
+            assertEquals(regexImageText(text), TextNormalizer.cleanImageText(text, true), () -> escape(text));
+            assertEquals(regexCollapsedImageText(text), TextNormalizer.cleanImageText(text, false), () -> escape(text));
+        }
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int pieces = random.nextInt(16);
+        for (int i = 0; i < pieces; i++) {
+            text.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return text.toString();
+    }
+
+    /** The cleanup OCRService did for PDF pages before line breaks were kept for the structure chunker */
+    private static String regexCollapsedPageText(String text) {
+        text = Pattern.compile("\\s+").matcher(text).replaceAll(" ");
+        text = Pattern.compile("\\bpage\\s*\\d+\\b", Pattern.CASE_INSENSITIVE).matcher(text).replaceAll("");
+        text = text.replaceAll("[\\u0000-\\u001F\\u007F]", "");
+        text = text.replaceAll("\\s*\\n\\s*", " ");
+        return text.trim();
+    }
+
+    /** The cleanup OCRService did for images before line breaks were kept for the structure chunker */
+    private static String regexCollapsedImageText(String text) {
+        String cleaned = text.replaceAll("\\s+", " ").trim();
+        cleaned = cleaned.replaceAll("[|\\\\/_]+", " ");
+        return cleaned.replaceAll("\\s+", " ");
+    }
+
+    /** The cleanup OCRService does for PDF pages for the structure chunker, before the single-pass normalizer */
+    private static String regexPageText(String text) {
+        if (text.trim().isEmpty()) {
+            return "";
+        }
+        text = Pattern.compile("[^\\S\\n]+").matcher(text).replaceAll(" ");
+        text = Pattern.compile("\\bpage\\s*\\d+\\b", Pattern.CASE_INSENSITIVE).matcher(text).replaceAll("");
+        text = text.replaceAll("\\s*\\n\\s*", "\n");
+        text = text.replaceAll("[\\u0000-\\u0009\\u000B-\\u001F\\u007F]", "");
+        return text.trim();
+    }
+
+    /** The cleanup OCRService does for images for the structure chunker, before the single-pass normalizer */
+    private static String regexImageText(String text) {
+        String cleaned = text.replaceAll("[^\\S\\n]+", " ").replaceAll("\\s*\\n\\s*", "\n").trim();
+        cleaned = cleaned.replaceAll("[|\\\\/_]+", " ");
+        return cleaned.replaceAll("[^\\S\\n]+", " ").replaceAll(" ?\n ?", "\n");
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        text.chars().forEach(c -> escaped.append(c < ' ' || c > '~' ? String.format("\\u%04X", c) : String.valueOf((char) c)));
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBudgetChunkerTest {
+
+    private static final WordPieceTokenizer WORD_PIECE = new WordPieceTokenizer(List.of(
+        "take", "one", "tablet", "daily", "after", "food", "para", "##ceta", "##mol", "500", "mg", "review", "in", "a", "week"
+    ), true);
+
+    @Test
+    void countsWordPieces() {
+        assertEquals(3, WORD_PIECE.countTokens("Paracetamol"));
+        assertEquals(1, WORD_PIECE.countTokens("Tablet"));
+        assertEquals(1, WORD_PIECE.countTokens("amoxicillin"));
+    }
+
+    @Test
+    void chunksStayWithinBudgetAndEndAtSentences() {
+        String sentence = "Take one Paracetamol 500 mg tablet daily after food. ";
+        String text = sentence.repeat(12) + "Review in a week.";
+        CachingTokenizer tokenizer = new CachingTokenizer(WORD_PIECE, 100);
+
+        List<String> chunks = new ArrayList<>();
+        TokenBudgetChunker chunker = new TokenBudgetChunker(tokenizer, 40, 8, span -> chunks.add(span.toString()));
+        for (int i = 0; i < text.length(); i += 23) {
+            chunker.append(text.substring(i, Math.min(text.length(), i + 23)));
+        }
+        chunker.finish();
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(tokens(tokenizer, chunk) <= 40, "over budget: " + chunk);
+        }
+        assertTrue(chunks.get(0).endsWith("food."), chunks.get(0));
+        assertTrue(chunks.get(chunks.size() - 1).endsWith("Review in a week."));
+        assertEquals(text, chunker.getText().toString());
+        assertTrue((long) tokenizer.getStats().get("cache_hits") > 0);
+    }
+
+    @Test
+    void emitsAWordOverTheBudgetOnItsOwnWithoutAnOverlapOnlyChunk() {
+        // One token per four characters: the code is 12 tokens against a budget of 8
+        String code = "AB12CD34EF56GH78IJ90KL12MN34OP56QR78ST90UV12WX34";
+        String text = "take one tablet daily after food at night then " + code + " review in a week";
+
+        List<String> chunks = new ArrayList<>();
+        TokenBudgetChunker chunker = new TokenBudgetChunker(Tokenizer.estimating(), 8, 3, span -> chunks.add(span.toString()));
+        chunker.append(text);
+        chunker.finish();
+
+        assertEquals(List.of("take one tablet daily after", "after food at night then", code, "review in a week"), chunks);
+    }
+
+    private static int tokens(Tokenizer tokenizer, String chunk) {
+        int count = 0;
+        for (String word : chunk.split("(?<=[^\\p{L}\\p{N}])|(?=[^\\p{L}\\p{N}])")) {
+            if (!word.isBlank()) {
+                count += Character.isLetterOrDigit(word.charAt(0)) ? tokenizer.countTokens(word) : 1;
+            }
+        }
+        return count;
+    }
+}
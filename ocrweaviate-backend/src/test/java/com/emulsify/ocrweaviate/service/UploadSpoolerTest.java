@@ -0,0 +1,78 @@
+package com.emulsify.ocrweaviate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadSpoolerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private UploadSpooler spooler;
+
+    @BeforeEach
+    void setUp() {
+        spooler = new UploadSpooler();
+        ReflectionTestUtils.setField(spooler, "tempDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(spooler, "memoryThreshold", DataSize.ofKilobytes(100));
+        ReflectionTestUtils.setField(spooler, "maxSize", DataSize.ofKilobytes(500));
+    }
+
+    @Test
+    void keepsSmallUploadsInMemoryAndSpillsLargeOnes() throws Exception {
+        byte[] small = randomBytes(80 * 1024);
+        byte[] large = randomBytes(300 * 1024);
+
+        SpooledUpload smallUpload = spooler.spool("file", "small.pdf", "application/pdf", new ByteArrayInputStream(small));
+        assertTrue(smallUpload.isInMemory());
+        assertArrayEquals(small, smallUpload.getBytes());
+        assertEquals(sha256(small), smallUpload.getContentHash());
+        assertFalse(Files.exists(tempDir.resolve("spool")));
+
+        try (SpooledUpload largeUpload = spooler.spool("file", "large.pdf", "application/pdf", new ByteArrayInputStream(large))) {
+            assertFalse(largeUpload.isInMemory());
+            assertEquals(large.length, largeUpload.getSize());
+            assertArrayEquals(large, largeUpload.getBytes());
+            assertEquals(sha256(large), largeUpload.getContentHash());
+        }
+        try (var spillFiles = Files.list(tempDir.resolve("spool"))) {
+            assertEquals(0, spillFiles.count());
+        }
+    }
+
+    @Test
+    void rejectsUploadsOverTheMaximumSize() throws Exception {
+        byte[] tooLarge = randomBytes(600 * 1024);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> spooler.spool("file", "huge.pdf", "application/pdf", new ByteArrayInputStream(tooLarge)));
+        try (var spillFiles = Files.list(tempDir.resolve("spool"))) {
+            assertEquals(0, spillFiles.count());
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(ContentHashes.newSha256().digest(bytes));
+    }
+}
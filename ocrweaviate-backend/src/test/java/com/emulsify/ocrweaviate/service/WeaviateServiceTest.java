@@ -0,0 +1,370 @@
+package com.emulsify.ocrweaviate.service;
+
+import com.emulsify.ocrweaviate.config.WeaviateConfig;
+import com.emulsify.ocrweaviate.model.ChunkProvenance;
+import com.emulsify.ocrweaviate.model.WeaviateDocument;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the client against a stand-in for Weaviate's batch objects, schema and GraphQL endpoints
+ */
+class WeaviateServiceTest {
+
+    // Objects a batch delete removes at most, as QUERY_MAXIMUM_RESULTS does
+    private static final int DELETE_LIMIT = 10_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private WeaviateConfig config;
+
+    // Requests received, and what the stand-in answers: per-object errors or a status for the whole batch
+    private final List<JsonNode> requests = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> failingContent = Collections.synchronizedSet(new HashSet<>());
+    private final Set<String> invalidContent = Collections.synchronizedSet(new HashSet<>());
+    private final List<Integer> statuses = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile String authorization;
+    // Batch deletes received, and the objects left for them to match
+    private final List<JsonNode> deletes = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger objectsLeft = new AtomicInteger();
+    private volatile int failingDeletes;
+    // Classes created, and link objects stored, by object id
+    private final List<JsonNode> schemas = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, JsonNode> links = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/batch/objects", this::handleBatch);
+        server.createContext("/v1/schema", this::handleSchema);
+        server.createContext("/v1/graphql", this::handleGraphql);
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        config = new WeaviateConfig();
+        config.getApi().setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        config.getApi().setKey("test-key");
+        config.getTimeout().setSeconds(5);
+        config.getBatch().setSize(3);
+        config.getBatch().setMaxInFlight(2);
+        config.getBatch().setBackoffMillis(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void sendsBatchesOfTheConfiguredSizeAndRetriesOnlyTheFailedObjects() {
+        WeaviateService service = new WeaviateService(config);
+        List<WeaviateDocument> chunks = chunks("rx.pdf", 7);
+        failingContent.add("chunk 4");
+
+        assertEquals(7, service.storeChunks(chunks));
+
+        // 3 + 3 (one object fails) + the failed object again + 1
+        assertEquals(List.of(3, 3, 1, 1), requests.stream().map(request -> request.get("objects").size()).toList());
+        JsonNode first = requests.get(1).get("objects").get(1);
+        JsonNode retried = requests.get(2).get("objects").get(0);
+        assertEquals(first.get("id"), retried.get("id"));
+        assertEquals("PolicyDocument", retried.get("class").asText());
+        assertEquals("doc-1", retried.get("properties").get("document_id").asText());
+        assertEquals(4, retried.get("properties").get("start_offset").asInt());
+        assertEquals("Bearer test-key", authorization);
+        assertEquals(1L, service.getStats().get("objects_retried"));
+    }
+
+    @Test
+    void retriesUnavailableServerAndFailsOnRejectedOrPersistentlyFailingObjects() {
+        WeaviateService service = new WeaviateService(config);
+
+        statuses.add(503);
+        assertEquals(2, service.storeChunks(chunks("a.pdf", 2)));
+        assertEquals(2, requests.size());
+
+        statuses.add(422);
+        assertThrows(IllegalStateException.class, () -> service.storeChunks(chunks("b.pdf", 2)));
+        assertEquals(3, requests.size());
+
+        failingContent.add("chunk 0");
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+            () -> service.storeChunks(chunks("c.pdf", 2)));
+        assertTrue(thrown.getMessage().contains("vectorizer unavailable"), thrown.getMessage());
+        // One attempt and three retries
+        assertEquals(7, requests.size());
+        // Both objects of the rejected batch and the one that kept failing
+        assertEquals(3L, service.getStats().get("objects_failed"));
+    }
+
+    @Test
+    void failsAtOnceOnObjectsRejectedForAReasonRetryingCannotFix() {
+        WeaviateService service = new WeaviateService(config);
+        invalidContent.add("chunk 1");
+        failingContent.add("chunk 2");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+            () -> service.storeChunks(chunks("a.pdf", 3)));
+
+        assertTrue(thrown.getMessage().contains("invalid number property 'page'"), thrown.getMessage());
+        // No retries: the invalid object and the one that failed transiently alongside it
+        assertEquals(1, requests.size());
+        assertEquals(0L, service.getStats().get("objects_retried"));
+        assertEquals(2L, service.getStats().get("objects_failed"));
+    }
+
+    @Test
+    void boundsTheBatchesInFlightAcrossCallers() throws Exception {
+        WeaviateService service = new WeaviateService(config);
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Integer>> stored = new ArrayList<>();
+            for (int caller = 0; caller < 6; caller++) {
+                String filename = "doc" + caller + ".pdf";
+                stored.add(callers.submit(() -> service.storeChunks(chunks(filename, 9))));
+            }
+            for (Future<Integer> future : stored) {
+                assertEquals(9, future.get());
+            }
+        } finally {
+            callers.shutdown();
+        }
+        assertEquals(18, requests.size());
+        assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void storesNearDuplicatesAsLinksWithoutVectors() {
+        WeaviateService service = new WeaviateService(config);
+        WeaviateDocument original = new WeaviateDocument("Keep out of the reach of children", "a.pdf", "doc-1");
+        WeaviateDocument linked = link("Keep out of the reach of children.", "doc-2", original, service);
+
+        assertEquals(2, service.storeChunks(List.of(original, linked)));
+
+        JsonNode objects = requests.get(0).get("objects");
+        assertEquals("PolicyDocument", objects.get(0).get("class").asText());
+        assertEquals("PolicyDocumentLink", objects.get(1).get("class").asText());
+        assertFalse(objects.get(1).has("vector"));
+        assertEquals("doc-2", objects.get(1).get("properties").get("document_id").asText());
+        assertEquals(service.objectId(original), objects.get(1).get("properties").get("duplicate_of").asText());
+        // Created once, so auto-schema does not give it a vectorizer
+        assertEquals(1, schemas.size());
+        assertEquals("none", schemas.get(0).get("vectorizer").asText());
+        assertEquals(1L, service.getStats().get("links_stored"));
+        assertEquals(34L, service.getStats().get("characters_not_embedded"));
+    }
+
+    @Test
+    void embedsLinksAgainWhenTheirOriginalIsDeleted() {
+        WeaviateService service = new WeaviateService(config);
+        WeaviateDocument original = new WeaviateDocument("Keep out of the reach of children", "a.pdf", "doc-1");
+        WeaviateDocument linked = link("Keep out of the reach of children.", "doc-2", original, service);
+        linked.setProvenance(new ChunkProvenance(2, 2, 40, 74, new int[]{100, 200, 300, 40}));
+        service.storeChunks(List.of(original, linked));
+        requests.clear();
+
+        assertTrue(service.deleteDocument("doc-1"));
+
+        // The link is stored as a regular chunk of its own document, then removed from the links
+        JsonNode promoted = requests.get(0).get("objects").get(0);
+        assertEquals("PolicyDocument", promoted.get("class").asText());
+        assertEquals(service.objectId(linked), promoted.get("id").asText());
+        assertEquals("doc-2", promoted.get("properties").get("document_id").asText());
+        assertEquals(40, promoted.get("properties").get("start_offset").asInt());
+        assertEquals("[100,200,300,40]", promoted.get("properties").get("bbox").toString());
+        assertFalse(promoted.get("properties").has("duplicate_of"));
+        assertTrue(links.isEmpty());
+        // The promoted link, then the document's chunks and its own links
+        assertEquals(List.of("PolicyDocumentLink", "PolicyDocument", "PolicyDocumentLink"),
+            deletes.stream().map(delete -> delete.get("match").get("class").asText()).toList());
+        assertEquals(1L, service.getStats().get("links_promoted"));
+    }
+
+    @Test
+    void clearsTheCollectionInBatchDeletesUntilNothingMatches() {
+        WeaviateService service = new WeaviateService(config);
+        objectsLeft.set(12_345);
+
+        assertTrue(service.clearAllDocuments());
+
+        // 10,000 + 2,345, then an empty match; then the links, none left here
+        assertEquals(4, deletes.size());
+        JsonNode match = deletes.get(0).get("match");
+        assertEquals("PolicyDocument", match.get("class").asText());
+        assertEquals("Like", match.get("where").get("operator").asText());
+        assertEquals("*", match.get("where").get("valueText").asText());
+        assertEquals("PolicyDocumentLink", deletes.get(3).get("match").get("class").asText());
+        assertEquals(0, objectsLeft.get());
+    }
+
+    @Test
+    void refusesChunksWithoutADocumentIdWhichNoDeleteCouldFind() {
+        WeaviateService service = new WeaviateService(config);
+        List<WeaviateDocument> chunks = new ArrayList<>(chunks("a.pdf", 2));
+        chunks.add(new WeaviateDocument("Take one tablet daily", "b.pdf"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.storeChunks(chunks));
+        assertEquals(0, requests.size());
+    }
+
+    @Test
+    void reportsFailureWhenObjectsCannotBeDeleted() {
+        WeaviateService service = new WeaviateService(config);
+        objectsLeft.set(5);
+        failingDeletes = 2;
+        assertFalse(service.clearAllDocuments());
+
+        statuses.add(500);
+        assertFalse(service.clearAllDocuments());
+    }
+
+    private static WeaviateDocument link(String content, String documentId, WeaviateDocument original, WeaviateService service) {
+        WeaviateDocument link = new WeaviateDocument(content, "b.pdf", documentId);
+        link.setDuplicateOf(service.objectId(original));
+        link.setDuplicateOfDocument(original.getDocumentId());
+        return link;
+    }
+
+    private List<WeaviateDocument> chunks(String filename, int count) {
+        List<WeaviateDocument> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            WeaviateDocument chunk = new WeaviateDocument("chunk " + i, filename, "doc-1");
+            chunk.setProvenance(new ChunkProvenance(1, 1, i, i + 7, null));
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            handleDelete(exchange);
+            return;
+        }
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            requests.add(request);
+            Thread.sleep(20);
+
+            Integer status = statuses.isEmpty() ? null : statuses.remove(0);
+            if (status != null) {
+                respond(exchange, status, "{\"error\":[{\"message\":\"stand-in status\"}]}");
+                return;
+            }
+            ArrayNode results = objectMapper.createArrayNode();
+            for (JsonNode object : request.get("objects")) {
+                if (object.get("class").asText().endsWith("Link")) {
+                    links.put(object.get("id").asText(), object);
+                }
+                ObjectNode result = results.addObject();
+                result.set("id", object.get("id"));
+                ObjectNode outcome = result.putObject("result");
+                if (invalidContent.contains(object.get("properties").get("content").asText())) {
+                    outcome.putObject("errors").putArray("error").addObject()
+                        .put("message", "invalid number property 'page' on class 'PolicyDocument': requires a float");
+                } else if (failingContent.remove(object.get("properties").get("content").asText())) {
+                    // Fails once; "chunk 0" of c.pdf is re-added below to fail every time
+                    outcome.putObject("errors").putArray("error").addObject().put("message", "vectorizer unavailable");
+                    if (object.get("properties").get("source").asText().equals("c.pdf")) {
+                        failingContent.add("chunk 0");
+                    }
+                }
+            }
+            respond(exchange, 200, objectMapper.writeValueAsString(results));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void handleDelete(HttpExchange exchange) throws IOException {
+        JsonNode delete = objectMapper.readTree(exchange.getRequestBody());
+        deletes.add(delete);
+        JsonNode where = delete.get("match").get("where");
+        if (where.get("path").get(0).asText().equals("id")) {
+            where.get("valueTextArray").forEach(id -> links.remove(id.asText()));
+        }
+        Integer status = statuses.isEmpty() ? null : statuses.remove(0);
+        if (status != null) {
+            respond(exchange, status, "{\"error\":[{\"message\":\"stand-in status\"}]}");
+            return;
+        }
+        int matches = Math.min(objectsLeft.get(), DELETE_LIMIT);
+        int failed = Math.min(failingDeletes, matches);
+        objectsLeft.addAndGet(failed - matches);
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode results = response.putObject("results");
+        results.put("matches", matches);
+        results.put("limit", DELETE_LIMIT);
+        results.put("successful", matches - failed);
+        results.put("failed", failed);
+        respond(exchange, 200, objectMapper.writeValueAsString(response));
+    }
+
+    private void handleSchema(HttpExchange exchange) throws IOException {
+        schemas.add(objectMapper.readTree(exchange.getRequestBody()));
+        respond(exchange, 200, "{}");
+    }
+
+    /**
+     * Answers the query for links to one document with the stored link objects
+     */
+    private void handleGraphql(HttpExchange exchange) throws IOException {
+        String query = objectMapper.readTree(exchange.getRequestBody()).get("query").asText();
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode found = response.putObject("data").putObject("Get").putArray("PolicyDocumentLink");
+        for (JsonNode link : links.values()) {
+            JsonNode properties = link.get("properties");
+            if (query.contains("valueText: \"" + properties.get("duplicate_of_document").asText() + "\"")) {
+                found.add(properties);
+            }
+        }
+        respond(exchange, 200, objectMapper.writeValueAsString(response));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}